@@ -3,6 +3,8 @@ package io.github.opensabe.jdbc.autoconfigure.config;
 import io.github.opensabe.jdbc.core.RepositoryFactoryBeanCustomizer;
 import io.github.opensabe.jdbc.datasource.aop.ContentNameAdvice;
 import io.github.opensabe.jdbc.datasource.aop.ContentNameAdvisor;
+import io.github.opensabe.jdbc.datasource.aop.DataSourceCoalescingContext;
+import io.github.opensabe.jdbc.datasource.aop.DataSourceContextTaskDecorator;
 import io.github.opensabe.jdbc.datasource.aop.ReadOnlyRepositoryFactoryCustomizer;
 import io.github.opensabe.jdbc.datasource.support.JdbcNamedContextFactory;
 import io.github.opensabe.jdbc.datasource.support.MultipleDataSourceProperties;
@@ -90,6 +92,18 @@ public class DynamicDataSourceConfiguration {
         return new ReadOnlyRepositoryFactoryCustomizer();
     }
 
+    @Bean
+    @ConditionalOnMissingBean
+    public DataSourceContextTaskDecorator dataSourceContextTaskDecorator () {
+        return new DataSourceContextTaskDecorator();
+    }
+
+    @Bean
+    @ConditionalOnMissingBean
+    public DataSourceCoalescingContext dataSourceCoalescingContext () {
+        return new DataSourceCoalescingContext();
+    }
+
     @Bean
     @ConditionalOnMissingBean
     public RepositoryFactoryBeanCustomizer repositoryFactoryBeanCustomizer (JdbcNamedContextFactory factory) {
@@ -1,18 +1,34 @@
 package io.github.opensabe.jdbc.autoconfigure.config;
 
 import io.github.opensabe.jdbc.core.ApplicationContextHolder;
+import io.github.opensabe.jdbc.core.cache.EntityCacheStoreFactory;
+import io.github.opensabe.jdbc.core.cache.EntityCaches;
 import io.github.opensabe.jdbc.core.converter.IntegerToBooleanConverter;
+import io.github.opensabe.jdbc.core.count.CachedCountStrategy;
+import io.github.opensabe.jdbc.core.count.CountMode;
+import io.github.opensabe.jdbc.core.count.CountStrategies;
+import io.github.opensabe.jdbc.core.count.EstimatedCountStrategy;
 import io.github.opensabe.jdbc.core.executor.CustomerJdbcOperation;
 import io.github.opensabe.jdbc.core.executor.CustomerJdbcOperationImpl;
 import io.github.opensabe.jdbc.core.executor.ExtendSQLGeneratorSource;
+import io.github.opensabe.jdbc.core.id.IdAllocationCallback;
+import io.github.opensabe.jdbc.core.id.IdAllocator;
 import io.github.opensabe.jdbc.core.jackson.PageSerializeModule;
+import io.github.opensabe.jdbc.core.loader.CoalescingContext;
+import io.github.opensabe.jdbc.core.loader.CoalescingLoaders;
 import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
 import org.springframework.context.ApplicationContext;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.context.annotation.Lazy;
 import org.springframework.core.convert.ConversionService;
+import org.springframework.core.task.TaskDecorator;
+import org.springframework.core.task.support.CompositeTaskDecorator;
+import org.springframework.dao.DataAccessException;
 import org.springframework.core.convert.converter.Converter;
 import org.springframework.core.convert.support.DefaultConversionService;
 import org.springframework.core.convert.support.GenericConversionService;
@@ -21,20 +37,35 @@ import org.springframework.data.jdbc.core.JdbcAggregateTemplate;
 import org.springframework.data.jdbc.core.convert.JdbcConverter;
 import org.springframework.data.jdbc.core.convert.JdbcCustomConversions;
 import org.springframework.data.relational.core.dialect.Dialect;
+import org.springframework.data.relational.core.dialect.MySqlDialect;
 import org.springframework.data.relational.core.mapping.RelationalMappingContext;
 import org.springframework.data.relational.repository.query.RelationalExampleMapper;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcOperations;
 import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.transaction.PlatformTransactionManager;
 
+import java.sql.DatabaseMetaData;
 import java.util.List;
 import java.util.Optional;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ThreadPoolExecutor;
 import java.util.function.Consumer;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
 
 /**
  * @author heng.ma
  */
 @Configuration(proxyBeanMethods = false)
+@EnableConfigurationProperties(JdbcExtendProperties.class)
 public class GenerateConfiguration {
 
+    public static final String COUNT_EXECUTOR = "jdbcCountExecutor";
+
+    private static final Pattern VERSION = Pattern.compile("(\\d+)\\.(\\d+)\\.(\\d+)");
+
 
     @Bean
     public ApplicationContextHolder applicationHolder (ApplicationContext applicationContext) {
@@ -49,14 +80,116 @@ public class GenerateConfiguration {
 
     @Bean
     @ConditionalOnMissingBean
-    public ExtendSQLGeneratorSource globalSQLGeneratorSource (RelationalMappingContext context, Dialect dialect, JdbcConverter converter) {
-        return new ExtendSQLGeneratorSource(context, converter, dialect);
+    public ExtendSQLGeneratorSource globalSQLGeneratorSource (RelationalMappingContext context, Dialect dialect, JdbcConverter converter, JdbcExtendProperties properties, ObjectProvider<IdAllocator> idAllocators,
+                                                              NamedParameterJdbcTemplate namedParameterJdbcTemplate) {
+        ExtendSQLGeneratorSource source = new ExtendSQLGeneratorSource(context, converter, dialect);
+        source.setInsertSelectiveCacheSize(properties.getInsertSelectiveCacheSize());
+        source.setUpdateSelectiveCacheSize(properties.getUpdateSelectiveCacheSize());
+        source.setDeleteByIdsCacheSize(properties.getDeleteByIdsCacheSize());
+        source.setFindAllByIdCacheSize(properties.getFindAllByIdCacheSize());
+        source.setInsertListBatchSize(properties.getInsertListBatchSize());
+        source.setMaxPlaceholders(properties.getMaxPlaceholders());
+        source.setDefaultInsertMode(properties.getInsertMode());
+        source.setInListPadding(properties.isInListPadding());
+        source.setInListBuckets(properties.getInListBuckets());
+        source.setMaxInListSize(properties.getMaxInListSize());
+        source.setCriteriaCacheSize(properties.getCriteriaCacheSize());
+        source.setUpsertCacheSize(properties.getUpsertCacheSize());
+        source.setIdAllocators(idAllocators.orderedStream().toList());
+        source.setDirectRowMapper(properties.isDirectRowMapper());
+        source.setUpsertRowAlias(dialect instanceof MySqlDialect && upsertRowAlias(namedParameterJdbcTemplate.getJdbcOperations()));
+        return source;
+    }
+
+    /**
+     * MySQL 8.0.20及以上支持upsert的行别名，MariaDB的版本号中带有MariaDB，不支持。连不上数据库时按不支持处理
+     */
+    private static boolean upsertRowAlias (JdbcOperations operations) {
+        try {
+            return Boolean.TRUE.equals(operations.execute((ConnectionCallback<Boolean>) connection -> {
+                DatabaseMetaData metaData = connection.getMetaData();
+                String version = metaData.getDatabaseProductVersion();
+                if (!"MySQL".equalsIgnoreCase(metaData.getDatabaseProductName()) || version == null || version.contains("MariaDB")) {
+                    return false;
+                }
+                Matcher matcher = VERSION.matcher(version);
+                if (!matcher.find()) {
+                    return false;
+                }
+                int major = Integer.parseInt(matcher.group(1));
+                int minor = Integer.parseInt(matcher.group(2));
+                int patch = Integer.parseInt(matcher.group(3));
+                return major > 8 || major == 8 && (minor > 0 || patch >= 20);
+            }));
+        } catch (DataAccessException e) {
+            return false;
+        }
+    }
+
+    @Bean
+    @ConditionalOnMissingBean
+    public IdAllocationCallback idAllocationCallback (ExtendSQLGeneratorSource extendSQLGeneratorSource) {
+        return new IdAllocationCallback(extendSQLGeneratorSource);
+    }
+
+    @Bean
+    @ConditionalOnMissingBean
+    public CustomerJdbcOperation criteriaJdbcOperation (JdbcAggregateTemplate jdbcAggregateTemplate, ExtendSQLGeneratorSource extendSQLGeneratorSource, NamedParameterJdbcTemplate namedParameterJdbcTemplate, Dialect dialect, ObjectProvider<PlatformTransactionManager> transactionManager, JdbcExtendProperties properties,
+                                                        @Qualifier(COUNT_EXECUTOR) ObjectProvider<Executor> countExecutor, CountStrategies countStrategies) {
+        CustomerJdbcOperationImpl operation = new CustomerJdbcOperationImpl(jdbcAggregateTemplate, extendSQLGeneratorSource, namedParameterJdbcTemplate, dialect, transactionManager.getIfUnique());
+        operation.setStreamFetchSize(properties.getStreamFetchSize());
+        operation.setCountExecutor(countExecutor.getIfAvailable());
+        operation.setCountStrategies(countStrategies);
+        return operation;
+    }
+
+    @Bean
+    @ConditionalOnMissingBean
+    public CountStrategies countStrategies (JdbcExtendProperties properties, Dialect dialect) {
+        CountStrategies strategies = new CountStrategies();
+        strategies.setDefaultMode(properties.getCountMode());
+        strategies.setStrategy(CountMode.CACHED, new CachedCountStrategy(properties.getCountCacheTtl(), properties.getCountCacheSize()));
+        strategies.setStrategy(CountMode.ESTIMATED, new EstimatedCountStrategy(properties.getCountEstimateThreshold(), dialect));
+        return strategies;
     }
 
     @Bean
     @ConditionalOnMissingBean
-    public CustomerJdbcOperation criteriaJdbcOperation (JdbcAggregateTemplate jdbcAggregateTemplate, ExtendSQLGeneratorSource extendSQLGeneratorSource, NamedParameterJdbcTemplate namedParameterJdbcTemplate, Dialect dialect) {
-        return new CustomerJdbcOperationImpl(jdbcAggregateTemplate, extendSQLGeneratorSource, namedParameterJdbcTemplate, dialect);
+    public CoalescingLoaders coalescingLoaders (JdbcExtendProperties properties, ObjectProvider<CoalescingContext> context) {
+        CoalescingLoaders loaders = new CoalescingLoaders();
+        context.ifAvailable(loaders::setContext);
+        loaders.setEnabled(properties.isCoalesceFindById());
+        loaders.setWindow(properties.getCoalesceWindow());
+        loaders.setMaxBatchSize(properties.getCoalesceMaxBatchSize());
+        return loaders;
+    }
+
+    @Bean
+    @ConditionalOnMissingBean
+    public EntityCaches entityCaches (ObjectProvider<EntityCacheStoreFactory> storeFactory) {
+        EntityCaches caches = new EntityCaches();
+        storeFactory.ifAvailable(caches::setStoreFactory);
+        return caches;
+    }
+
+    /**
+     * 分页查询并行count用的线程池，多数据源时通过TaskDecorator把数据源选择带到count线程
+     */
+    @Bean(COUNT_EXECUTOR)
+    @ConditionalOnMissingBean(name = COUNT_EXECUTOR)
+    @ConditionalOnProperty(prefix = JdbcExtendProperties.PREFIX, name = "concurrent-count", havingValue = "true")
+    public ThreadPoolTaskExecutor jdbcCountExecutor (JdbcExtendProperties properties, ObjectProvider<TaskDecorator> decorators) {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setThreadNamePrefix("jdbc-count-");
+        executor.setCorePoolSize(properties.getCountPoolSize());
+        executor.setMaxPoolSize(properties.getCountPoolSize());
+        executor.setQueueCapacity(properties.getCountQueueCapacity());
+        executor.setRejectedExecutionHandler(new ThreadPoolExecutor.CallerRunsPolicy());
+        List<TaskDecorator> list = decorators.orderedStream().toList();
+        if (!list.isEmpty()) {
+            executor.setTaskDecorator(new CompositeTaskDecorator(list));
+        }
+        return executor;
     }
 
 
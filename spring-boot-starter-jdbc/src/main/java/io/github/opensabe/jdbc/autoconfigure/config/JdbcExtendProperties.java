@@ -0,0 +1,330 @@
+package io.github.opensabe.jdbc.autoconfigure.config;
+
+import io.github.opensabe.jdbc.core.InsertMode;
+import io.github.opensabe.jdbc.core.count.CountMode;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+/**
+ * 扩展sql生成、执行相关的配置
+ * @author heng.ma
+ */
+@ConfigurationProperties(prefix = JdbcExtendProperties.PREFIX)
+public class JdbcExtendProperties {
+
+    public static final String PREFIX = "spring.data.jdbc.extend";
+
+    /**
+     * 每个实体insertSelective缓存的sql条数上限（按非空字段组合缓存）
+     */
+    private int insertSelectiveCacheSize = 64;
+
+    /**
+     * 每个实体批量updateByIdSelective缓存的sql条数上限（按非空字段组合缓存）
+     */
+    private int updateSelectiveCacheSize = 64;
+
+    /**
+     * 每个实体deleteByIds缓存的sql条数上限（按in参数个数缓存，开启in-list-padding时只有少数几种）
+     */
+    private int deleteByIdsCacheSize = 64;
+
+    /**
+     * 每个实体findAllById缓存的sql条数上限（按表名和in参数个数缓存）
+     */
+    private int findAllByIdCacheSize = 64;
+
+    /**
+     * insertList每条sql最多插入的行数，小于等于0表示只按占位符上限拆分
+     */
+    private int insertListBatchSize = 1000;
+
+    /**
+     * 单条sql最多的占位符个数，insertList拆分时行数不超过 maxPlaceholders / 字段数
+     */
+    private int maxPlaceholders = 65535;
+
+    /**
+     * 实体上没有@InsertStrategy时insertList的执行方式，BATCH需要配合rewriteBatchedStatements=true
+     */
+    private InsertMode insertMode = InsertMode.VALUES;
+
+    /**
+     * findAllById/deleteAllById的in列表是否补齐到固定档位（重复最后一个id），减少不同sql的数量
+     */
+    private boolean inListPadding = true;
+
+    /**
+     * in列表补齐的档位，为空时按2的幂补齐
+     */
+    private int[] inListBuckets;
+
+    /**
+     * 单条sql中in列表的最大长度，超过后拆分成多条sql
+     */
+    private int maxInListSize = 1024;
+
+    /**
+     * 每个实体按条件结构缓存的查询、更新、删除sql条数上限，命中率可以通过ExtendSQLGeneratorSource#criteriaStatistics查看
+     */
+    private int criteriaCacheSize = 256;
+
+    /**
+     * 每个实体缓存的upsert sql条数上限（按行数和冲突时覆盖的字段缓存）
+     */
+    private int upsertCacheSize = 64;
+
+    /**
+     * 扁平实体（没有嵌入、关联、集合属性，有无参构造方法）是否直接从ResultSet按列赋值，不经过通用的EntityRowMapper
+     */
+    private boolean directRowMapper;
+
+    /**
+     * streamAll的fetchSize，0表示按数据库选择：MySQL为Integer.MIN_VALUE（逐行读取），其他为1000
+     */
+    private int streamFetchSize;
+
+    /**
+     * 分页查询时count是否在另一个连接上跟内容查询并行执行（事务中仍然串行）。
+     * count在内容之前提交，内容不满一页时如果count已经开始执行，仍然会多执行一次count
+     */
+    private boolean concurrentCount;
+
+    /**
+     * 并行count线程池的线程数
+     */
+    private int countPoolSize = 8;
+
+    /**
+     * 并行count线程池的队列长度，队列满时在调用线程执行
+     */
+    private int countQueueCapacity = 256;
+
+    /**
+     * 分页查询默认的总数计算方式，可以通过@PageCount或者CountStrategies.with覆盖
+     */
+    private CountMode countMode = CountMode.EXACT;
+
+    /**
+     * CACHED方式count结果的缓存时间
+     */
+    private Duration countCacheTtl = Duration.ofMinutes(1);
+
+    /**
+     * CACHED方式最多缓存的count结果数
+     */
+    private int countCacheSize = 1024;
+
+    /**
+     * ESTIMATED方式预估行数不小于该值时使用预估值，否则执行count(*)。只在MySQL/MariaDB上预估，其他数据库总是执行count(*)
+     */
+    private long countEstimateThreshold = 100_000;
+
+    /**
+     * 是否把并发的findById合并成一次findAllById（事务中不合并）
+     */
+    private boolean coalesceFindById;
+
+    /**
+     * 合并的等待时间，第一个调用方最多等待这么久
+     */
+    private Duration coalesceWindow = Duration.ofMillis(2);
+
+    /**
+     * 一次合并的最多id数，凑满时立即查询
+     */
+    private int coalesceMaxBatchSize = 128;
+
+    public int getInsertSelectiveCacheSize() {
+        return insertSelectiveCacheSize;
+    }
+
+    public void setInsertSelectiveCacheSize(int insertSelectiveCacheSize) {
+        this.insertSelectiveCacheSize = insertSelectiveCacheSize;
+    }
+
+    public int getUpdateSelectiveCacheSize() {
+        return updateSelectiveCacheSize;
+    }
+
+    public void setUpdateSelectiveCacheSize(int updateSelectiveCacheSize) {
+        this.updateSelectiveCacheSize = updateSelectiveCacheSize;
+    }
+
+    public int getDeleteByIdsCacheSize() {
+        return deleteByIdsCacheSize;
+    }
+
+    public void setDeleteByIdsCacheSize(int deleteByIdsCacheSize) {
+        this.deleteByIdsCacheSize = deleteByIdsCacheSize;
+    }
+
+    public int getFindAllByIdCacheSize() {
+        return findAllByIdCacheSize;
+    }
+
+    public void setFindAllByIdCacheSize(int findAllByIdCacheSize) {
+        this.findAllByIdCacheSize = findAllByIdCacheSize;
+    }
+
+    public int getInsertListBatchSize() {
+        return insertListBatchSize;
+    }
+
+    public void setInsertListBatchSize(int insertListBatchSize) {
+        this.insertListBatchSize = insertListBatchSize;
+    }
+
+    public int getMaxPlaceholders() {
+        return maxPlaceholders;
+    }
+
+    public void setMaxPlaceholders(int maxPlaceholders) {
+        this.maxPlaceholders = maxPlaceholders;
+    }
+
+    public InsertMode getInsertMode() {
+        return insertMode;
+    }
+
+    public void setInsertMode(InsertMode insertMode) {
+        this.insertMode = insertMode;
+    }
+
+    public boolean isInListPadding() {
+        return inListPadding;
+    }
+
+    public void setInListPadding(boolean inListPadding) {
+        this.inListPadding = inListPadding;
+    }
+
+    public int[] getInListBuckets() {
+        return inListBuckets;
+    }
+
+    public void setInListBuckets(int[] inListBuckets) {
+        this.inListBuckets = inListBuckets;
+    }
+
+    public int getMaxInListSize() {
+        return maxInListSize;
+    }
+
+    public void setMaxInListSize(int maxInListSize) {
+        this.maxInListSize = maxInListSize;
+    }
+
+    public int getCriteriaCacheSize() {
+        return criteriaCacheSize;
+    }
+
+    public void setCriteriaCacheSize(int criteriaCacheSize) {
+        this.criteriaCacheSize = criteriaCacheSize;
+    }
+
+    public int getUpsertCacheSize() {
+        return upsertCacheSize;
+    }
+
+    public void setUpsertCacheSize(int upsertCacheSize) {
+        this.upsertCacheSize = upsertCacheSize;
+    }
+
+    public int getStreamFetchSize() {
+        return streamFetchSize;
+    }
+
+    public void setStreamFetchSize(int streamFetchSize) {
+        this.streamFetchSize = streamFetchSize;
+    }
+
+    public boolean isConcurrentCount() {
+        return concurrentCount;
+    }
+
+    public void setConcurrentCount(boolean concurrentCount) {
+        this.concurrentCount = concurrentCount;
+    }
+
+    public int getCountPoolSize() {
+        return countPoolSize;
+    }
+
+    public void setCountPoolSize(int countPoolSize) {
+        this.countPoolSize = countPoolSize;
+    }
+
+    public int getCountQueueCapacity() {
+        return countQueueCapacity;
+    }
+
+    public void setCountQueueCapacity(int countQueueCapacity) {
+        this.countQueueCapacity = countQueueCapacity;
+    }
+
+    public CountMode getCountMode() {
+        return countMode;
+    }
+
+    public void setCountMode(CountMode countMode) {
+        this.countMode = countMode;
+    }
+
+    public Duration getCountCacheTtl() {
+        return countCacheTtl;
+    }
+
+    public void setCountCacheTtl(Duration countCacheTtl) {
+        this.countCacheTtl = countCacheTtl;
+    }
+
+    public int getCountCacheSize() {
+        return countCacheSize;
+    }
+
+    public void setCountCacheSize(int countCacheSize) {
+        this.countCacheSize = countCacheSize;
+    }
+
+    public long getCountEstimateThreshold() {
+        return countEstimateThreshold;
+    }
+
+    public void setCountEstimateThreshold(long countEstimateThreshold) {
+        this.countEstimateThreshold = countEstimateThreshold;
+    }
+
+    public boolean isDirectRowMapper() {
+        return directRowMapper;
+    }
+
+    public void setDirectRowMapper(boolean directRowMapper) {
+        this.directRowMapper = directRowMapper;
+    }
+
+    public boolean isCoalesceFindById() {
+        return coalesceFindById;
+    }
+
+    public void setCoalesceFindById(boolean coalesceFindById) {
+        this.coalesceFindById = coalesceFindById;
+    }
+
+    public Duration getCoalesceWindow() {
+        return coalesceWindow;
+    }
+
+    public void setCoalesceWindow(Duration coalesceWindow) {
+        this.coalesceWindow = coalesceWindow;
+    }
+
+    public int getCoalesceMaxBatchSize() {
+        return coalesceMaxBatchSize;
+    }
+
+    public void setCoalesceMaxBatchSize(int coalesceMaxBatchSize) {
+        this.coalesceMaxBatchSize = coalesceMaxBatchSize;
+    }
+}
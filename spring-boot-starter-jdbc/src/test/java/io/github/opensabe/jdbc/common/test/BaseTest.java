@@ -12,7 +12,7 @@ import org.testcontainers.junit.jupiter.Testcontainers;
         properties = {
                 "spring.datasource.username=root",
                 "spring.datasource.password=123456",
-                "spring.datasource.url=jdbc:p6spy:mysql://localhost:3306/sys",
+                "spring.datasource.url=jdbc:p6spy:mysql://localhost:3306/sys?allowLoadLocalInfile=true",
                 "spring.datasource.driver-class-name=com.p6spy.engine.spy.P6SpyDriver",
         },
         classes = App.class)
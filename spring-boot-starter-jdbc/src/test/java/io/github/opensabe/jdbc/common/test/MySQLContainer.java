@@ -23,6 +23,7 @@ public class MySQLContainer extends GenericContainer<MySQLContainer> {
     protected void configure() {
         this.withEnv("MYSQL_ROOT_PASSWORD", "123456");
         this.withExposedPorts(3306);
+        this.withCommand("--local-infile=1");
     }
 
     public MySQLContainer withFixedExposedPort(int hostPort, int containerPort) {
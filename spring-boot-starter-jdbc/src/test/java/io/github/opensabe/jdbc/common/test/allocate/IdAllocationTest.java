@@ -0,0 +1,94 @@
+package io.github.opensabe.jdbc.common.test.allocate;
+
+import io.github.opensabe.jdbc.common.test.BaseTest;
+import io.github.opensabe.jdbc.common.test.allocate.repository.HiLoRoleRepository;
+import io.github.opensabe.jdbc.common.test.allocate.repository.SnowflakeRoleRepository;
+import io.github.opensabe.jdbc.common.test.vo.HiLoRole;
+import io.github.opensabe.jdbc.common.test.vo.SnowflakeRole;
+import io.github.opensabe.jdbc.core.EnableJdbcRepositories;
+import io.github.opensabe.jdbc.core.InsertMode;
+import io.github.opensabe.jdbc.core.executor.CustomerJdbcOperation;
+import io.github.opensabe.jdbc.core.id.HiLoIdAllocator;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.util.List;
+import java.util.stream.IntStream;
+import java.util.stream.LongStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * @author heng.ma
+ */
+@Import(IdAllocationTest.HiLoConfiguration.class)
+@EnableJdbcRepositories(basePackageClasses = SnowflakeRoleRepository.class)
+public class IdAllocationTest extends BaseTest {
+
+    @Autowired
+    private SnowflakeRoleRepository snowflakeRoleRepository;
+    @Autowired
+    private HiLoRoleRepository hiLoRoleRepository;
+    @Autowired
+    private CustomerJdbcOperation customerJdbcOperation;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @BeforeEach
+    void setup () {
+        jdbcTemplate.update("truncate table t_allocated_role");
+        jdbcTemplate.update("truncate table id_sequence");
+    }
+
+    @Test
+    public void snowflakeInsertList() {
+        List<SnowflakeRole> list = IntStream.range(0, 3000).mapToObj(i -> new SnowflakeRole("role" + i)).toList();
+
+        long l = snowflakeRoleRepository.insertList(list);
+
+        assertThat(l).isEqualTo(3000);
+        assertThat(list)
+                .extracting(SnowflakeRole::getId)
+                .doesNotContainNull()
+                .isSorted()
+                .doesNotHaveDuplicates();
+    }
+
+    @Test
+    public void hiLoInsertBatch() {
+        List<HiLoRole> list = IntStream.range(0, 250).mapToObj(i -> new HiLoRole("role" + i)).toList();
+
+        long l = customerJdbcOperation.insertList(list, HiLoRole.class, InsertMode.BATCH);
+
+        assertThat(l).isEqualTo(250);
+        assertThat(list)
+                .extracting(HiLoRole::getId)
+                .containsExactlyElementsOf(LongStream.rangeClosed(1, 250).boxed().toList());
+        assertThat(jdbcTemplate.queryForObject("select next_hi from id_sequence where name = 't_allocated_role'", Long.class))
+                .isEqualTo(301);
+    }
+
+    @Test
+    public void insertSelectiveKeepsProvidedId() {
+        HiLoRole role = new HiLoRole("role");
+        role.setId(10000L);
+
+        hiLoRoleRepository.insertSelective(role);
+
+        assertThat(role.getId()).isEqualTo(10000L);
+        assertThat(hiLoRoleRepository.count()).isEqualTo(1);
+    }
+
+    static class HiLoConfiguration {
+
+        @Bean
+        public HiLoIdAllocator hiLoIdAllocator (JdbcTemplate jdbcTemplate, PlatformTransactionManager transactionManager) {
+            return new HiLoIdAllocator(jdbcTemplate, transactionManager);
+        }
+    }
+}
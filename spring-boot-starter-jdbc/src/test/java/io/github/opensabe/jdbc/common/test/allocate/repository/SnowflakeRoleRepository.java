@@ -0,0 +1,11 @@
+package io.github.opensabe.jdbc.common.test.allocate.repository;
+
+
+import io.github.opensabe.jdbc.common.test.vo.SnowflakeRole;
+import io.github.opensabe.jdbc.core.repository.BaseRepository;
+
+/**
+ * @author heng.ma
+ */
+public interface SnowflakeRoleRepository extends BaseRepository<SnowflakeRole, Long> {
+}
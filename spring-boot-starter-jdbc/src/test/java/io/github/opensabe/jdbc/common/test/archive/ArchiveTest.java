@@ -65,6 +65,15 @@ public class ArchiveTest extends BaseTest {
 
     }
 
+    @Test
+    void testAggregate () {
+        Weekend<User> weekend = Weekend.of(User.class);
+        weekend.weekendCriteria()
+                .andLessThanOrEqualTo(User::getAge, 4);
+        Assertions.assertThat(service.aggregate(weekend).sum(User::getAge).doubles())
+                .containsExactly(10.0);
+    }
+
     @Test
     void testFindAllByQuery () {
         Weekend<User> weekend = Weekend.of(User.class);
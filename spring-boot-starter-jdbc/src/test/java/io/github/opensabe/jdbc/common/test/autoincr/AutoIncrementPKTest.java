@@ -19,6 +19,7 @@ import java.util.List;
 import java.util.Optional;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
 
 /**
  * @author heng.ma
@@ -205,6 +206,36 @@ public class AutoIncrementPKTest extends BaseTest {
         assertThat(repository.count()).isEqualTo(5);
 
     }
+    @Test
+    public void insertListInChunks() {
+        //默认每批1000行，这里会拆成3条insert
+        List<Role> list = new ArrayList<>(2500);
+        for (int i = 1; i <= 2500; i++) {
+            list.add(new Role("role" + i));
+        }
+        long l = repository.insertList(list);
+
+        assertThat(l).isEqualTo(2500);
+        assertThat(repository.count()).isEqualTo(2500);
+        assertThat(list)
+                .extracting(Role::getId)
+                .doesNotContainNull()
+                .doesNotHaveDuplicates();
+        assertThat(list.get(2499).getId()).isEqualTo(2500);
+    }
+
+    @Test
+    public void upsertRejectsGeneratedId() {
+        Role role = new Role("role1");
+        repository.insertSelective(role);
+
+        assertThatThrownBy(() -> repository.upsert(role))
+                .isInstanceOf(UnsupportedOperationException.class);
+        assertThatThrownBy(() -> repository.upsertList(List.of(new Role("role2"))))
+                .isInstanceOf(UnsupportedOperationException.class);
+        assertThat(repository.count()).isEqualTo(1);
+    }
+
     @Test
     public void insertLongIdList() {
 
@@ -218,4 +249,23 @@ public class AutoIncrementPKTest extends BaseTest {
 
         assertThat(longRoleRepository.count()).isEqualTo(5);
     }
+
+    @Test
+    public void findIds() {
+        List<LongRole> longRoles = new ArrayList<>(5);
+        for (int i = 1; i < 6; i++) {
+            longRoles.add(new LongRole("role" + i));
+        }
+        longRoleRepository.insertList(longRoles);
+
+        Weekend<LongRole> weekend = Weekend.of(LongRole.class);
+        weekend.weekendCriteria()
+                .andNotEqualTo(LongRole::getName, "role3");
+
+        assertThat(longRoleRepository.findIds(weekend)).containsExactlyInAnyOrder(1, 2, 4, 5);
+
+        List<Long> scanned = new ArrayList<>();
+        longRoleRepository.scanIds(weekend, scanned::add);
+        assertThat(scanned).containsExactlyInAnyOrder(1L, 2L, 4L, 5L);
+    }
 }
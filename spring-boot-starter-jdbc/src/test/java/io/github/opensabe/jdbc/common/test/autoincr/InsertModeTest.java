@@ -0,0 +1,150 @@
+package io.github.opensabe.jdbc.common.test.autoincr;
+
+import io.github.opensabe.jdbc.common.test.BaseTest;
+import io.github.opensabe.jdbc.common.test.autoincr.repository.RoleRepository;
+import io.github.opensabe.jdbc.common.test.vo.Role;
+import io.github.opensabe.jdbc.core.EnableJdbcRepositories;
+import io.github.opensabe.jdbc.core.InsertMode;
+import io.github.opensabe.jdbc.core.executor.CustomerJdbcOperation;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * insertList各种执行方式的正确性
+ * @author heng.ma
+ */
+@EnableJdbcRepositories(basePackageClasses = RoleRepository.class)
+public class InsertModeTest extends BaseTest {
+
+    private static final int ROWS = 2500;
+
+    @Autowired
+    private RoleRepository repository;
+    @Autowired
+    private CustomerJdbcOperation customerJdbcOperation;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @BeforeEach
+    void setup () {
+        jdbcTemplate.update("truncate table t_role");
+    }
+
+    @Test
+    public void insertListBatch() {
+        List<Role> list = roles(5);
+
+        long l = customerJdbcOperation.insertList(list, Role.class, InsertMode.BATCH);
+
+        assertThat(l).isEqualTo(5);
+        assertThat(repository.count()).isEqualTo(5);
+        assertThat(list)
+                .extracting(Role::getId)
+                .containsExactly(1, 2, 3, 4, 5);
+    }
+
+    @Test
+    public void insertSelectiveList() {
+        List<Role> list = roles(4);
+        list.get(1).setName(null);
+        list.get(3).setName(null);
+
+        long l = repository.insertSelectiveList(list);
+
+        assertThat(l).isEqualTo(4);
+        assertThat(list)
+                .extracting(Role::getId)
+                .doesNotContainNull()
+                .doesNotHaveDuplicates();
+        assertThat(repository.findById(list.get(1).getId()))
+                .isPresent()
+                .get()
+                .extracting(Role::getName)
+                .isNull();
+    }
+
+    @Test
+    public void insertStream() {
+        List<Long> progress = new ArrayList<>();
+
+        long l = repository.insertStream(IntStream.rangeClosed(1, 2500).mapToObj(i -> new Role("role" + i)), 1000, true, progress::add);
+
+        assertThat(l).isEqualTo(2500);
+        assertThat(progress).containsExactly(1000L, 2000L, 2500L);
+        assertThat(repository.count()).isEqualTo(2500);
+    }
+
+    @Test
+    public void insertStreamCommitPerChunk() {
+        assertThatThrownBy(() -> repository.insertStream(failAt(1500), 1000, true, null))
+                .isInstanceOf(IllegalStateException.class);
+        assertThat(repository.count()).isEqualTo(1000);
+    }
+
+    @Test
+    public void insertStreamSingleTransaction() {
+        assertThatThrownBy(() -> repository.insertStream(failAt(1500), 1000, false, null))
+                .isInstanceOf(IllegalStateException.class);
+        assertThat(repository.count()).isZero();
+    }
+
+    @Test
+    public void loadData() {
+        List<Role> list = roles(3000);
+        list.get(0).setName("a\tb\nc");
+        list.get(1).setName("d\\e");
+        list.get(2).setName(null);
+
+        long l = repository.loadData(list.stream());
+
+        assertThat(l).isEqualTo(3000);
+        assertThat(repository.count()).isEqualTo(3000);
+        assertThat(jdbcTemplate.queryForList("select name from t_role order by id limit 4", String.class))
+                .containsExactly("a\tb\nc", "d\\e", null, "role4");
+    }
+
+    private Stream<Role> failAt (int row) {
+        return IntStream.rangeClosed(1, 2500).mapToObj(i -> {
+            if (i == row) {
+                throw new IllegalStateException("broken row " + i);
+            }
+            return new Role("role" + i);
+        });
+    }
+
+    @Test
+    public void insertListModes() {
+        //超过一批的行数，两种方式都要回填所有自增主键
+        for (InsertMode mode : InsertMode.values()) {
+            jdbcTemplate.update("truncate table t_role");
+            List<Role> list = roles(ROWS);
+
+            long l = customerJdbcOperation.insertList(list, Role.class, mode);
+
+            assertThat(l).as(mode.name()).isEqualTo(ROWS);
+            assertThat(repository.count()).as(mode.name()).isEqualTo(ROWS);
+            assertThat(list)
+                    .as(mode.name())
+                    .extracting(Role::getId)
+                    .containsExactlyElementsOf(IntStream.rangeClosed(1, ROWS).boxed().toList());
+        }
+    }
+
+    private List<Role> roles (int size) {
+        List<Role> list = new ArrayList<>(size);
+        for (int i = 1; i <= size; i++) {
+            list.add(new Role("role" + i));
+        }
+        return list;
+    }
+}
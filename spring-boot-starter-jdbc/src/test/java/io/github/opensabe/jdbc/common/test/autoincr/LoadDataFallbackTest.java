@@ -0,0 +1,44 @@
+package io.github.opensabe.jdbc.common.test.autoincr;
+
+import io.github.opensabe.jdbc.common.test.BaseTest;
+import io.github.opensabe.jdbc.common.test.autoincr.repository.RoleRepository;
+import io.github.opensabe.jdbc.common.test.vo.Role;
+import io.github.opensabe.jdbc.core.EnableJdbcRepositories;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.TestPropertySource;
+
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * 连接没有开启allowLoadLocalInfile时，loadData降级为insertStream
+ * @author heng.ma
+ */
+@TestPropertySource(properties = "spring.datasource.url=jdbc:p6spy:mysql://localhost:3306/sys")
+@EnableJdbcRepositories(basePackageClasses = RoleRepository.class)
+public class LoadDataFallbackTest extends BaseTest {
+
+    @Autowired
+    private RoleRepository repository;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @BeforeEach
+    void setup () {
+        jdbcTemplate.update("truncate table t_role");
+    }
+
+    @Test
+    public void fallbackToInsertStream() {
+        long l = repository.loadData(IntStream.rangeClosed(1, 2500).mapToObj(i -> new Role("role" + i)));
+
+        assertThat(l).isEqualTo(2500);
+        assertThat(repository.count()).isEqualTo(2500);
+        assertThat(jdbcTemplate.queryForList("select name from t_role order by id limit 2", String.class))
+                .containsExactly("role1", "role2");
+    }
+}
@@ -0,0 +1,132 @@
+package io.github.opensabe.jdbc.common.test.cache;
+
+import io.github.opensabe.jdbc.common.test.BaseTest;
+import io.github.opensabe.jdbc.common.test.cache.repository.CachedRoleRepository;
+import io.github.opensabe.jdbc.common.test.vo.CachedRole;
+import io.github.opensabe.jdbc.core.EnableJdbcRepositories;
+import io.github.opensabe.jdbc.core.cache.EntityCacheStore;
+import io.github.opensabe.jdbc.core.cache.EntityCaches;
+import io.github.opensabe.jdbc.core.cache.LocalEntityCacheStore;
+import io.github.opensabe.jdbc.core.cache.RepositoryCache;
+import io.github.opensabe.jdbc.core.lambda.Weekend;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Example;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * 缓存命中，以及通过repository写入以后失效；直接执行的sql不会失效缓存，用来判断是否命中
+ * @author heng.ma
+ */
+@EnableJdbcRepositories(basePackageClasses = CachedRoleRepository.class)
+public class EntityCacheTest extends BaseTest {
+
+    @Autowired
+    private CachedRoleRepository repository;
+    @Autowired
+    private EntityCaches entityCaches;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @BeforeEach
+    void setup () {
+        jdbcTemplate.update("truncate table t_role");
+        List<CachedRole> list = new ArrayList<>();
+        for (int i = 1; i <= 5; i++) {
+            list.add(new CachedRole("role" + i));
+        }
+        repository.insertList(list);
+    }
+
+    @Test
+    public void findByIdHit() {
+        assertThat(repository.findById(1)).get().extracting(CachedRole::getName).isEqualTo("role1");
+        EntityCacheStore.Statistics before = entityCaches.forEntity(CachedRole.class).idStatistics();
+
+        jdbcTemplate.update("update t_role set name = 'changed' where id = 1");
+
+        assertThat(repository.findById(1)).get().extracting(CachedRole::getName).isEqualTo("role1");
+        assertThat(entityCaches.forEntity(CachedRole.class).idStatistics().hits()).isEqualTo(before.hits() + 1);
+    }
+
+    @Test
+    public void updateByIdInvalidates() {
+        repository.findById(2);
+        CachedRole role = new CachedRole("updated");
+        role.setId(2);
+
+        repository.updateByIdSelective(role);
+
+        assertThat(repository.findById(2)).get().extracting(CachedRole::getName).isEqualTo("updated");
+    }
+
+    @Test
+    public void findAllByExampleInvalidatedByInsert() {
+        Example<CachedRole> example = Example.of(new CachedRole("role3"));
+        assertThat(repository.findAll(example)).hasSize(1);
+
+        jdbcTemplate.update("insert into t_role (name) values ('role3')");
+        assertThat(repository.findAll(example)).hasSize(1);
+
+        repository.insertSelective(new CachedRole("role3"));
+        assertThat(repository.findAll(example)).hasSize(3);
+    }
+
+    @Test
+    public void criteriaWriteInvalidatesAll() {
+        repository.findById(4);
+        repository.findAll();
+
+        Weekend<CachedRole> weekend = Weekend.of(CachedRole.class);
+        weekend.weekendCriteria().andEqualTo(CachedRole::getId, 4);
+        repository.deleteAll(weekend);
+
+        assertThat(repository.findById(4)).isEmpty();
+        assertThat(repository.findAll()).hasSize(4);
+    }
+
+    @Test
+    public void returnsCopies() {
+        repository.findById(1).orElseThrow().setName("mutated");
+        repository.findAll().forEach(role -> role.setName("mutated"));
+
+        assertThat(repository.findById(1)).get().extracting(CachedRole::getName).isEqualTo("role1");
+        assertThat(repository.findAll()).extracting(CachedRole::getName).doesNotContain("mutated");
+    }
+
+    @Test
+    public void loadStartedBeforeInvalidationIsNotCached() {
+        RepositoryCache cache = new RepositoryCache(new LocalEntityCacheStore(16, Duration.ofMinutes(1)), new LocalEntityCacheStore(16, Duration.ofMinutes(1)));
+
+        //查询过程中发生了写入，查到的旧值不放进缓存
+        assertThat(cache.<String>getById(1, () -> {
+            cache.invalidate(List.of(1));
+            return "stale";
+        })).isEqualTo("stale");
+
+        assertThat(cache.<String>getById(1, () -> "fresh")).isEqualTo("fresh");
+        assertThat(cache.<String>getById(1, () -> "reloaded")).isEqualTo("fresh");
+    }
+
+    @Test
+    public void transactionBypassesCache() {
+        repository.findById(5);
+
+        String name = transactionTemplate.execute(status -> {
+            jdbcTemplate.update("update t_role set name = 'tx' where id = 5");
+            return repository.findById(5).map(CachedRole::getName).orElse(null);
+        });
+
+        assertThat(name).isEqualTo("tx");
+    }
+}
@@ -0,0 +1,10 @@
+package io.github.opensabe.jdbc.common.test.cache.repository;
+
+import io.github.opensabe.jdbc.common.test.vo.CachedRole;
+import io.github.opensabe.jdbc.core.repository.BaseRepository;
+
+/**
+ * @author heng.ma
+ */
+public interface CachedRoleRepository extends BaseRepository<CachedRole, Integer> {
+}
@@ -0,0 +1,140 @@
+package io.github.opensabe.jdbc.common.test.common;
+
+import io.github.opensabe.jdbc.common.test.BaseTest;
+import io.github.opensabe.jdbc.common.test.common.repository.UserRepository;
+import io.github.opensabe.jdbc.common.test.vo.User;
+import io.github.opensabe.jdbc.core.EnableJdbcRepositories;
+import io.github.opensabe.jdbc.core.loader.CoalescingLoader;
+import io.github.opensabe.jdbc.core.loader.CoalescingLoaders;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * 并发的findById合并成findAllById
+ * @author heng.ma
+ */
+@TestPropertySource(properties = {
+        "spring.data.jdbc.extend.coalesce-find-by-id=true",
+        "spring.data.jdbc.extend.coalesce-window=50ms",
+        "spring.data.jdbc.extend.coalesce-max-batch-size=16"
+})
+@EnableJdbcRepositories(basePackageClasses = UserRepository.class)
+public class CoalescingFindByIdTest extends BaseTest {
+
+    @Autowired
+    private UserRepository userRepository;
+    @Autowired
+    private CoalescingLoaders coalescingLoaders;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @BeforeEach
+    void setup () {
+        jdbcTemplate.update("truncate table t_user");
+        List<User> list = new ArrayList<>();
+        for (int i = 0; i < 100; i++) {
+            list.add(new User("id"+i, "name"+i, "email"+i, i*10));
+        }
+        userRepository.insertList(list);
+    }
+
+    @Test
+    public void concurrentFindById() {
+        CoalescingLoader.Statistics before = coalescingLoaders.statistics().getOrDefault(User.class, new CoalescingLoader.Statistics(0, 0, 0));
+        ExecutorService executor = Executors.newFixedThreadPool(32);
+        try {
+            List<CompletableFuture<Optional<User>>> futures = IntStream.range(0, 64)
+                    .mapToObj(i -> CompletableFuture.supplyAsync(() -> userRepository.findById("id" + (i % 40 == 39 ? "missing" : i)), executor))
+                    .toList();
+
+            for (int i = 0; i < futures.size(); i++) {
+                Optional<User> user = futures.get(i).join();
+                if (i % 40 == 39) {
+                    assertThat(user).isEmpty();
+                }else {
+                    assertThat(user).isPresent().get().extracting(User::getName).isEqualTo("name" + i);
+                }
+            }
+        }finally {
+            executor.shutdown();
+        }
+
+        CoalescingLoader.Statistics after = coalescingLoaders.statistics().get(User.class);
+        long batches = after.batches() - before.batches();
+        assertThat(after.keys() - before.keys()).isLessThanOrEqualTo(64);
+        assertThat(batches).isLessThan(64);
+        assertThat(after.largestBatch()).isLessThanOrEqualTo(16);
+        assertThat((double) (after.keys() - before.keys()) / batches).isGreaterThan(1);
+    }
+
+    @Test
+    public void coalesceWithinSameContext() {
+        ThreadLocal<String> context = new ThreadLocal<>();
+        CoalescingLoaders loaders = new CoalescingLoaders();
+        loaders.setWindow(Duration.ofMillis(50));
+        loaders.setContext(context::get);
+        List<String> mixed = new CopyOnWriteArrayList<>();
+        AtomicInteger batches = new AtomicInteger();
+        Function<List<String>, Map<String, String>> batchLoader = keys -> {
+            batches.incrementAndGet();
+            String current = context.get();
+            keys.stream().filter(key -> !key.startsWith(current)).forEach(mixed::add);
+            return keys.stream().collect(Collectors.toMap(Function.identity(), key -> current));
+        };
+
+        ExecutorService executor = Executors.newFixedThreadPool(32);
+        try {
+            List<CompletableFuture<String>> futures = IntStream.range(0, 64)
+                    .mapToObj(i -> CompletableFuture.supplyAsync(() -> {
+                        String name = i % 2 == 0 ? "read" : "write";
+                        context.set(name);
+                        try {
+                            return loaders.<String, String>loader(String.class, batchLoader).load(name + i);
+                        }finally {
+                            context.remove();
+                        }
+                    }, executor))
+                    .toList();
+            for (int i = 0; i < futures.size(); i++) {
+                assertThat(futures.get(i).join()).isEqualTo(i % 2 == 0 ? "read" : "write");
+            }
+        }finally {
+            executor.shutdown();
+        }
+
+        assertThat(mixed).isEmpty();
+        assertThat(batches.get()).isGreaterThanOrEqualTo(2).isLessThan(64);
+    }
+
+    @Test
+    public void findByIdInTransaction() {
+        Optional<User> user = transactionTemplate.execute(status -> {
+            userRepository.insertList(List.of(new User("id100", "name100", "email100", 1000)));
+            return userRepository.findById("id100");
+        });
+
+        assertThat(user).isPresent();
+    }
+}
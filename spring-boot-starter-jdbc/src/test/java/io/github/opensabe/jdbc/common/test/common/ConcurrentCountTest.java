@@ -0,0 +1,192 @@
+package io.github.opensabe.jdbc.common.test.common;
+
+import io.github.opensabe.jdbc.common.test.BaseTest;
+import io.github.opensabe.jdbc.common.test.common.repository.UserRepository;
+import io.github.opensabe.jdbc.common.test.count.repository.ReadOnlyUserRepository;
+import io.github.opensabe.jdbc.common.test.vo.User;
+import io.github.opensabe.jdbc.core.EnableJdbcRepositories;
+import io.github.opensabe.jdbc.core.lambda.Weekend;
+import io.github.opensabe.jdbc.datasource.aop.ReadOnlyRepositoryAdvice;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Import;
+import org.springframework.core.Ordered;
+import org.springframework.core.task.TaskDecorator;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertTimeout;
+
+/**
+ * 开启并行count以后分页结果跟串行一致，count在count线程池中执行，并且沿用调用线程选择的数据源。
+ * 配置了只读库，count线程通过DataSourceContextTaskDecorator拿到调用线程的只读标记
+ * @author heng.ma
+ */
+@TestPropertySource(properties = {
+        "spring.data.jdbc.extend.concurrent-count=true",
+
+        "spring.dynamic.datasource.default[0].username=root",
+        "spring.dynamic.datasource.default[0].password=123456",
+        "spring.dynamic.datasource.default[0].url=jdbc:mysql://localhost:3306/sys",
+
+        "spring.dynamic.datasource.default[1].username=root",
+        "spring.dynamic.datasource.default[1].password=123456",
+        "spring.dynamic.datasource.default[1].url=jdbc:mysql://localhost:3306/sys",
+        "spring.dynamic.datasource.default[1].hikari.read-only=true",
+})
+@Import(ConcurrentCountTest.Config.class)
+@EnableJdbcRepositories(basePackageClasses = {UserRepository.class, ReadOnlyUserRepository.class})
+public class ConcurrentCountTest extends BaseTest {
+
+    @Autowired
+    private UserRepository userRepository;
+    @Autowired
+    private ReadOnlyUserRepository readOnlyUserRepository;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+    @Autowired
+    private CountRecorder recorder;
+
+    public static class Config {
+
+        @Bean
+        public CountRecorder countRecorder () {
+            return new CountRecorder();
+        }
+    }
+
+    /**
+     * 排在DataSourceContextTaskDecorator里面，执行时记录count线程以及当时的只读标记。
+     * 设置了gate时count等待gate打开以后才执行
+     */
+    public static class CountRecorder implements TaskDecorator, Ordered {
+
+        private final List<String> threads = new CopyOnWriteArrayList<>();
+
+        private final List<Boolean> readOnly = new CopyOnWriteArrayList<>();
+
+        private volatile CountDownLatch gate;
+
+        @Override
+        public Runnable decorate(Runnable runnable) {
+            return () -> {
+                threads.add(Thread.currentThread().getName());
+                readOnly.add(ReadOnlyRepositoryAdvice.isReadOnly());
+                CountDownLatch latch = gate;
+                if (latch != null) {
+                    try {
+                        latch.await(10, TimeUnit.SECONDS);
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                }
+                runnable.run();
+            };
+        }
+
+        @Override
+        public int getOrder() {
+            return Ordered.HIGHEST_PRECEDENCE;
+        }
+
+        void reset () {
+            threads.clear();
+            readOnly.clear();
+            gate = null;
+        }
+    }
+
+    @BeforeEach
+    void setup () {
+        recorder.reset();
+        jdbcTemplate.update("truncate table t_user");
+        List<User> list = new ArrayList<>();
+        for (int i = 0; i < 100; i++) {
+            list.add(new User("id"+i, "name"+i, "email"+i, i*10));
+        }
+        userRepository.insertList(list);
+        recorder.reset();
+    }
+
+    @Test
+    public void findPage() {
+        Weekend<User> weekend = Weekend.of(User.class);
+        weekend.weekendCriteria()
+                .andGreaterThanOrEqualTo(User::getAge, 500);
+
+        Page<User> page = userRepository.findAll(weekend, PageRequest.of(1, 20, Sort.by("age")));
+
+        assertThat(page.getTotalElements()).isEqualTo(50);
+        assertThat(page.getTotalPages()).isEqualTo(3);
+        assertThat(page.getContent())
+                .extracting(User::getAge)
+                .startsWith(700);
+        assertThat(recorder.threads)
+                .singleElement()
+                .asString()
+                .startsWith("jdbc-count-")
+                .isNotEqualTo(Thread.currentThread().getName());
+        assertThat(recorder.readOnly).containsExactly(false);
+    }
+
+    @Test
+    public void countSeesReadOnlyDataSource() {
+        Weekend<User> weekend = Weekend.of(User.class);
+        weekend.weekendCriteria()
+                .andGreaterThanOrEqualTo(User::getAge, 500);
+
+        Page<User> page = readOnlyUserRepository.findAll(weekend, PageRequest.of(0, 20, Sort.by("age")));
+
+        assertThat(page.getTotalElements()).isEqualTo(50);
+        assertThat(recorder.threads)
+                .singleElement()
+                .asString()
+                .startsWith("jdbc-count-");
+        assertThat(recorder.readOnly).containsExactly(true);
+        assertThat(ReadOnlyRepositoryAdvice.isReadOnly()).isFalse();
+    }
+
+    @Test
+    public void findShortPage() {
+        CountDownLatch gate = new CountDownLatch(1);
+        recorder.gate = gate;
+        try {
+            //count被gate挡住，不满一页时直接返回，不等待count
+            Page<User> page = assertTimeout(Duration.ofSeconds(5), () -> userRepository.findAll(PageRequest.of(2, 40)));
+
+            assertThat(page.getContent()).hasSize(20);
+            assertThat(page.getTotalElements()).isEqualTo(100);
+            assertThat(gate.getCount()).isEqualTo(1);
+        }finally {
+            gate.countDown();
+        }
+    }
+
+    @Test
+    public void findPageByTableInTransaction() {
+        Page<User> page = transactionTemplate.execute(status -> {
+            userRepository.insertList(List.of(new User("id100", "name100", "email100", 1000)));
+            return userRepository.findAll(PageRequest.of(0, 10), "t_user");
+        });
+
+        assertThat(page).hasSize(10);
+        assertThat(page.getTotalElements()).isEqualTo(101);
+        assertThat(recorder.threads).isEmpty();
+    }
+}
@@ -0,0 +1,108 @@
+package io.github.opensabe.jdbc.common.test.common;
+
+import io.github.opensabe.jdbc.common.test.BaseTest;
+import io.github.opensabe.jdbc.common.test.common.repository.UserRepository;
+import io.github.opensabe.jdbc.common.test.vo.ActivityConfig;
+import io.github.opensabe.jdbc.common.test.vo.TypedUser;
+import io.github.opensabe.jdbc.common.test.vo.User;
+import io.github.opensabe.jdbc.core.EnableJdbcRepositories;
+import io.github.opensabe.jdbc.core.executor.ExtendSQLGeneratorSource;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.jdbc.core.convert.EntityRowMapper;
+import org.springframework.data.jdbc.core.convert.JdbcConverter;
+import org.springframework.data.relational.core.mapping.RelationalMappingContext;
+import org.springframework.data.relational.core.mapping.RelationalPersistentEntity;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.test.context.TestPropertySource;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
+
+/**
+ * DirectRowMapper跟EntityRowMapper的结果一致性
+ * @author heng.ma
+ */
+@TestPropertySource(properties = "spring.data.jdbc.extend.direct-row-mapper=true")
+@EnableJdbcRepositories(basePackageClasses = UserRepository.class)
+public class DirectRowMapperTest extends BaseTest {
+
+    private static final int ROWS = 1000;
+
+    @Autowired
+    private UserRepository userRepository;
+    @Autowired
+    private ExtendSQLGeneratorSource extendSQLGeneratorSource;
+    @Autowired
+    private RelationalMappingContext mappingContext;
+    @Autowired
+    private JdbcConverter converter;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @BeforeEach
+    void setup () {
+        jdbcTemplate.update("truncate table t_user");
+        List<User> list = new ArrayList<>(ROWS);
+        for (int i = 0; i < ROWS; i++) {
+            list.add(new User("id"+i, "name"+i, i % 10 == 0 ? null : "email"+i, i));
+        }
+        userRepository.insertList(list);
+    }
+
+    @Test
+    public void sameAsEntityRowMapper() {
+        RowMapper<User> direct = extendSQLGeneratorSource.entityRowMapper(User.class);
+
+        assertThat(direct).isNotInstanceOf(EntityRowMapper.class);
+        assertThat(jdbcTemplate.query("select * from t_user order by id", direct))
+                .usingRecursiveFieldByFieldElementComparator()
+                .containsExactlyElementsOf(jdbcTemplate.query("select * from t_user order by id", entityRowMapper(User.class)));
+        assertThat(userRepository.findAll("t_user"))
+                .hasSize(ROWS);
+    }
+
+    @Test
+    public void nullIntoPrimitiveAndConvertedTypes() {
+        jdbcTemplate.update("truncate table t_user");
+        jdbcTemplate.update("insert into t_user(id, name, age, email) values ('id1', 'LOW', 1, 'e1'), ('id2', 'HIGH', null, null), ('id3', null, 3, 'e3')");
+        RowMapper<TypedUser> direct = extendSQLGeneratorSource.entityRowMapper(TypedUser.class);
+
+        //枚举、int到long需要converter.readValue转换，null的列不给基本类型赋值
+        assertThat(direct).isNotInstanceOf(EntityRowMapper.class);
+        List<TypedUser> list = jdbcTemplate.query("select * from t_user order by id", direct);
+        assertThat(list)
+                .usingRecursiveFieldByFieldElementComparator()
+                .containsExactlyElementsOf(jdbcTemplate.query("select * from t_user order by id", entityRowMapper(TypedUser.class)));
+        assertThat(list)
+                .extracting(TypedUser::getName, TypedUser::getAge)
+                .containsExactly(tuple(TypedUser.Level.LOW, 1L), tuple(TypedUser.Level.HIGH, 0L), tuple(null, 3L));
+    }
+
+    @Test
+    public void converterPropertyUsesEntityRowMapper() {
+        jdbcTemplate.update("truncate table t_activity");
+        jdbcTemplate.update("insert into t_activity(id, config, online) values ('a1', '{\"key\":\"k1\",\"value\":\"v1\"}', 1), ('a2', null, 0)");
+        RowMapper<ActivityConfig> direct = extendSQLGeneratorSource.entityRowMapper(ActivityConfig.class);
+
+        //@Converter的属性只能通过PropertyValueConverter读取
+        assertThat(direct).isInstanceOf(EntityRowMapper.class);
+        List<ActivityConfig> list = jdbcTemplate.query("select * from t_activity order by id", direct);
+        assertThat(list)
+                .usingRecursiveFieldByFieldElementComparator()
+                .containsExactlyElementsOf(jdbcTemplate.query("select * from t_activity order by id", entityRowMapper(ActivityConfig.class)));
+        assertThat(list)
+                .extracting(a -> a.getConfig() == null ? null : a.getConfig().getKey(), ActivityConfig::getOnline)
+                .containsExactly(tuple("k1", true), tuple(null, false));
+    }
+
+    @SuppressWarnings("unchecked")
+    private <T> RowMapper<T> entityRowMapper (Class<T> type) {
+        return new EntityRowMapper<>((RelationalPersistentEntity<T>) mappingContext.getRequiredPersistentEntity(type), converter);
+    }
+}
@@ -6,7 +6,12 @@ import io.github.opensabe.jdbc.common.test.BaseTest;
 import io.github.opensabe.jdbc.common.test.common.repository.UserRepository;
 import io.github.opensabe.jdbc.common.test.common.service.UserService;
 import io.github.opensabe.jdbc.common.test.vo.User;
+import io.github.opensabe.jdbc.common.test.vo.UserRole;
+import io.github.opensabe.jdbc.common.test.vo.User_;
 import io.github.opensabe.jdbc.core.EnableJdbcRepositories;
+import io.github.opensabe.jdbc.core.executor.ExtendSQLGeneratorSource;
+import io.github.opensabe.jdbc.core.executor.SqlCache;
+import io.github.opensabe.jdbc.core.lambda.QueryTemplate;
 import io.github.opensabe.jdbc.core.lambda.Weekend;
 import io.github.opensabe.jdbc.core.lambda.WeekendCriteria;
 import org.assertj.core.groups.Tuple;
@@ -17,15 +22,22 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.context.annotation.Import;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.ScrollPosition;
 import org.springframework.data.domain.Sort;
+import org.springframework.data.domain.Window;
 import org.springframework.jdbc.core.JdbcTemplate;
 
 import java.util.ArrayList;
+import java.util.Comparator;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
 
 /**
  * @author heng.ma
@@ -44,12 +56,16 @@ public class QueryTest extends BaseTest {
 
     private final ObjectMapper objectMapper;
 
+    private final ExtendSQLGeneratorSource extendSQLGeneratorSource;
+
     @Autowired
-    public QueryTest(UserService userService, UserRepository userRepository, JdbcTemplate jdbcTemplate, ObjectMapper objectMapper) {
+    public QueryTest(UserService userService, UserRepository userRepository, JdbcTemplate jdbcTemplate, ObjectMapper objectMapper,
+                     ExtendSQLGeneratorSource extendSQLGeneratorSource) {
         this.userService = userService;
         this.userRepository = userRepository;
         this.jdbcTemplate = jdbcTemplate;
         this.objectMapper = objectMapper;
+        this.extendSQLGeneratorSource = extendSQLGeneratorSource;
     }
 
     @BeforeEach
@@ -99,6 +115,71 @@ public class QueryTest extends BaseTest {
 
     }
 
+    @Test
+    public void findAndDeleteAllByIdsPadded() {
+        List<User> list = userService.selectByIds(List.of("id1", "id2", "id3"));
+        assertThat(list)
+                .hasSize(3)
+                .extracting(User::getId)
+                .containsExactlyInAnyOrder("id1", "id2", "id3");
+
+        int deleted = userRepository.deleteAllById(List.of("id4", "id5", "id6", "id7", "id8"));
+        assertThat(deleted).isEqualTo(5);
+        assertThat(userRepository.count()).isEqualTo(95);
+    }
+
+    @Test
+    public void streamAll() {
+        try (Stream<User> stream = userRepository.streamAll()) {
+            assertThat(stream.count()).isEqualTo(100);
+        }
+
+        Weekend<User> weekend = Weekend.of(User.class);
+        weekend.weekendCriteria()
+                .andGreaterThanOrEqualTo(User::getAge, 500);
+        List<String> ids = userRepository.streamAll(weekend)
+                .map(User::getId)
+                .toList();
+        assertThat(ids).hasSize(50);
+
+        assertThat(userRepository.streamAll("t_user").mapToInt(User::getAge).sum())
+                .isEqualTo(49500);
+    }
+
+    @Test
+    public void findAfter() {
+        Weekend<User> weekend = Weekend.of(User.class);
+        weekend.weekendCriteria()
+                .andGreaterThanOrEqualTo(User::getAge, 100);
+        List<Integer> ages = new ArrayList<>();
+        ScrollPosition position = ScrollPosition.keyset();
+        Window<User> window;
+        do {
+            window = userRepository.findAfter(weekend, Sort.by(Sort.Direction.DESC, "age"), position, 30);
+            window.forEach(user -> ages.add(user.getAge()));
+            position = window.isEmpty() ? position : window.positionAt(window.size() - 1);
+        } while (window.hasNext());
+
+        assertThat(ages)
+                .hasSize(90)
+                .isSortedAccordingTo(Comparator.reverseOrder())
+                .doesNotHaveDuplicates();
+    }
+
+    @Test
+    public void findAfterMixedDirectionsByTable() {
+        Sort sort = Sort.by(Sort.Order.asc("name"), Sort.Order.desc("age"));
+        Window<User> first = userRepository.findAfter(sort, ScrollPosition.keyset(), 60, "t_user");
+        Window<User> second = userRepository.findAfter(sort, first.positionAt(first.size() - 1), 60, "t_user");
+
+        assertThat(first.hasNext()).isTrue();
+        assertThat(second.hasNext()).isFalse();
+        assertThat(second.size()).isEqualTo(40);
+        assertThat(second.getContent())
+                .extracting(User::getId)
+                .doesNotContainAnyElementsOf(first.getContent().stream().map(User::getId).toList());
+    }
+
     @Test
     public void findByEntity() {
         User query = new User();
@@ -498,4 +579,262 @@ public class QueryTest extends BaseTest {
                 .extracting(User::getEmail)
                 .containsExactly("email1");
     }
+
+    @Test
+    public void findColumns() {
+        Weekend<User> weekend = Weekend.of(User.class);
+        weekend.weekendCriteria()
+                .andEqualTo(User::getId, "id1");
+        weekend.columns(User::getId, User::getName);
+
+        assertThat(userRepository.findOne(weekend))
+                .isPresent()
+                .get()
+                .extracting(User::getName, User::getEmail, User::getAge)
+                .containsExactly("name1", null, null);
+        assertThat(userRepository.findAll(weekend, "t_user"))
+                .extracting(User::getName, User::getEmail)
+                .containsExactly(Tuple.tuple("name1", null));
+    }
+
+    @Test
+    public void findByMetamodel() {
+        Weekend<User> weekend = Weekend.of(User.class);
+        weekend.weekendCriteria()
+                .andEqualTo(User_.name, "name1");
+        weekend.columns(User_.id, User_.age);
+
+        assertThat(userRepository.findOne(weekend))
+                .isPresent()
+                .get()
+                .extracting(User::getId, User::getName, User::getAge)
+                .containsExactly("id1", null, 10);
+    }
+
+    @Test
+    public void findColumn() {
+        Weekend<User> weekend = Weekend.of(User.class);
+        weekend.weekendCriteria()
+                .andLessThan(User::getAge, 50);
+
+        assertThat(userRepository.findColumn(weekend, User::getName, String.class))
+                .containsExactlyInAnyOrder("name0", "name1", "name2", "name3", "name4");
+        assertThat(userRepository.findIntColumn(weekend, User::getAge)).containsExactlyInAnyOrder(0, 10, 20, 30, 40);
+        assertThat(userRepository.findLongColumn(weekend, User::getAge)).containsExactlyInAnyOrder(0, 10, 20, 30, 40);
+        assertThat(userRepository.findDoubleColumn(weekend, User::getAge)).containsExactlyInAnyOrder(0, 10, 20, 30, 40);
+    }
+
+    @Test
+    public void scanColumn() {
+        LongAdder sum = new LongAdder();
+        userRepository.scanLongColumn(Weekend.of(User.class), User::getAge, sum::add);
+        assertThat(sum.sum()).isEqualTo(49500);
+
+        List<String> ids = new ArrayList<>();
+        userRepository.scanColumn(Weekend.of(User.class), User::getId, String.class, ids::add);
+        assertThat(ids).hasSize(100).contains("id0", "id99");
+    }
+
+    @Test
+    public void findProjection() {
+        Weekend<User> weekend = Weekend.of(User.class);
+        weekend.weekendCriteria()
+                .andGreaterThanOrEqualTo(User::getAge, 500);
+
+        List<UserName> names = userRepository.findAll(weekend, Sort.by("age"), UserName.class);
+        assertThat(names)
+                .hasSize(50)
+                .startsWith(new UserName("id50", "name50"));
+
+        Page<UserAge> page = userRepository.findAll(weekend, PageRequest.of(1, 20, Sort.by("age")), UserAge.class);
+        assertThat(page.getTotalElements()).isEqualTo(50);
+        assertThat(page.getContent())
+                .extracting(UserAge::getAge)
+                .startsWith(700, 710);
+
+        assertThat(userRepository.findOne(weekend, UserName.class)).isPresent();
+    }
+
+    @Test
+    public void findProjectionFromTable() {
+        jdbcTemplate.update("truncate table t_user_his");
+        for (int i = 0; i < 3; i++) {
+            jdbcTemplate.update("insert into `t_user_his` (`id`, `name`, `email`, `age`) values (?,?,?,?)",
+                    "his" + i, "hisname" + i, "his@" + i, i);
+        }
+        Weekend<User> weekend = Weekend.of(User.class);
+        weekend.weekendCriteria()
+                .andGreaterThanOrEqualTo(User::getAge, 1);
+
+        assertThat(userRepository.findAll(weekend, Sort.by("age"), UserName.class, "t_user_his"))
+                .containsExactly(new UserName("his1", "hisname1"), new UserName("his2", "hisname2"));
+        Page<UserAge> page = userRepository.findAll(weekend, PageRequest.of(0, 1, Sort.by("age")), UserAge.class, "t_user_his");
+        assertThat(page.getTotalElements()).isEqualTo(2);
+        assertThat(page.getContent())
+                .extracting(UserAge::getId, UserAge::getAge)
+                .containsExactly(tuple("his1", 1));
+        assertThat(userRepository.findOne(weekend, UserName.class, "t_user_his"))
+                .get()
+                .extracting(UserName::id)
+                .asString()
+                .startsWith("his");
+    }
+
+    @Test
+    public void criteriaSqlCachedByShape() {
+        SqlCache.Statistics before = extendSQLGeneratorSource.criteriaStatistics(User.class);
+        for (int i = 1; i <= 3; i++) {
+            Weekend<User> weekend = Weekend.of(User.class);
+            weekend.weekendCriteria()
+                    .andIn(User::getId, List.of("id" + i, "id" + (i + 1)))
+                    .andLessThan(User::getAge, i * 10 + 10);
+            assertThat(userRepository.findColumn(weekend, User::getName, String.class))
+                    .containsExactlyInAnyOrder("name" + i, "name" + (i + 1));
+        }
+        Weekend<User> weekend = Weekend.of(User.class);
+        weekend.weekendCriteria()
+                .andIn(User::getId, List.of("id1", "id2", "id3"))
+                .andLessThan(User::getAge, 1000);
+        assertThat(userRepository.findColumn(weekend, User::getName, String.class)).hasSize(3);
+
+        SqlCache.Statistics after = extendSQLGeneratorSource.criteriaStatistics(User.class);
+        //值不同、结构相同的条件只渲染一次，in的参数个数不同时重新渲染
+        assertThat(after.hits() - before.hits()).isGreaterThanOrEqualTo(2);
+        assertThat(after.misses() - before.misses()).isLessThanOrEqualTo(2);
+
+        //limit/offset是参数，每一页共用同一条sql
+        before = after;
+        for (int i = 0; i < 5; i++) {
+            Weekend<User> page = Weekend.of(User.class);
+            page.weekendCriteria().andLessThan(User::getAge, 500);
+            assertThat(userRepository.findAll(page, PageRequest.of(i, 10, Sort.by("age")), "t_user").getContent())
+                    .extracting(User::getAge)
+                    .containsExactlyElementsOf(IntStream.range(i * 10, i * 10 + 10).mapToObj(a -> a * 10).toList());
+        }
+        after = extendSQLGeneratorSource.criteriaStatistics(User.class);
+        //内容和count各渲染一次
+        assertThat(after.misses() - before.misses()).isLessThanOrEqualTo(2);
+        assertThat(after.size()).isLessThanOrEqualTo(before.size() + 2);
+    }
+
+    @Test
+    public void queryTemplate() {
+        Weekend<User> weekend = Weekend.of(User.class);
+        weekend.weekendCriteria()
+                .andIn(User::getId, QueryTemplate.slot("ids"))
+                .andBetween(User::getAge, QueryTemplate.slot("min"), QueryTemplate.slot("max"));
+        QueryTemplate<User> template = weekend.compile();
+
+        assertThat(userRepository.findAll(template, List.of("id1", "id2", "id3"), 0, 20))
+                .extracting(User::getId)
+                .containsExactlyInAnyOrder("id1", "id2");
+        assertThat(userRepository.findAll(template, List.of("id5"), 0, 100))
+                .extracting(User::getId)
+                .containsExactly("id5");
+        assertThat(userRepository.count(template, List.of("id1", "id2", "id3"), 0, 1000)).isEqualTo(3);
+        assertThat(userRepository.exists(template, List.of("id1"), 20, 30)).isFalse();
+
+        Weekend<User> byName = Weekend.of(User.class);
+        byName.weekendCriteria().andEqualTo(User::getName, QueryTemplate.slot("name"));
+        QueryTemplate<User> nameTemplate = byName.compile();
+        assertThat(userRepository.findOne(nameTemplate, "name8"))
+                .isPresent()
+                .get()
+                .extracting(User::getAge)
+                .isEqualTo(80);
+        assertThat(userRepository.findOne(nameTemplate, "none")).isEmpty();
+        Assertions.assertThrows(IllegalArgumentException.class, () -> userRepository.findAll(nameTemplate));
+    }
+
+    @Test
+    public void aggregate() {
+        Weekend<User> weekend = Weekend.of(User.class);
+        weekend.weekendCriteria()
+                .andLessThan(User::getAge, 50);
+
+        assertThat(userRepository.aggregate(weekend)
+                .sum(User::getAge)
+                .count()
+                .max(User::getAge)
+                .avg(User::getAge)
+                .one(AgeStats.class))
+                .contains(new AgeStats(100, 5, 40, 20.0));
+
+        weekend = Weekend.of(User.class);
+        weekend.weekendCriteria()
+                .andLessThan(User::getAge, 30);
+        assertThat(userRepository.aggregate(weekend)
+                .sum(User::getAge)
+                .groupBy(User::getName)
+                .list(NameAge.class))
+                .containsExactly(new NameAge("name0", 0L), new NameAge("name1", 10L), new NameAge("name2", 20L));
+        assertThat(userRepository.aggregate(weekend).sum(User::getAge).groupBy(User::getName).longs())
+                .containsExactly(0, 10, 20);
+        assertThat(userRepository.aggregate(weekend).count().one(Long.class)).contains(3L);
+    }
+
+    @Test
+    public void aggregatePrimitiveWithNullGroup() {
+        jdbcTemplate.update("insert into t_user (id, name, email) values ('null1', 'name00', 'null1'), ('null2', 'name00', 'null2')");
+        Weekend<User> weekend = Weekend.of(User.class);
+        weekend.weekendCriteria()
+                .andIn(User::getName, "name0", "name00", "name1");
+
+        assertThat(userRepository.aggregate(weekend).sum(User::getAge).groupBy(User::getName).longs())
+                .containsExactly(0, 0, 10);
+        assertThat(userRepository.aggregate(weekend).max(User::getAge).groupBy(User::getName).doubles())
+                .containsExactly(0.0, Double.NaN, 10.0);
+
+        Weekend<User> none = Weekend.of(User.class);
+        none.weekendCriteria()
+                .andLessThan(User::getAge, 0);
+        assertThat(userRepository.aggregate(none).sum(User::getAge).longs()).containsExactly(0);
+        assertThat(userRepository.aggregate(none).sum(User::getAge).doubles()).containsExactly(Double.NaN);
+    }
+
+    @Test
+    public void subquery() {
+        jdbcTemplate.update("truncate table t_user_role");
+        jdbcTemplate.update("insert into t_user_role (user_id, role_id, role_name, user_name) values ('id1', 'r1', 'admin', 'name1'), ('id2', 'r2', 'guest', 'name2'), ('id3', 'r1', 'admin', 'name3')");
+
+        Weekend<UserRole> admins = Weekend.of(UserRole.class);
+        admins.weekendCriteria().andEqualTo(UserRole::getRoleName, "admin");
+
+        Weekend<User> weekend = Weekend.of(User.class);
+        weekend.weekendCriteria().andInSubquery(User::getId, admins, UserRole::getUserId);
+        assertThat(userRepository.findAll(weekend)).extracting(User::getId).containsExactlyInAnyOrder("id1", "id3");
+
+        weekend = Weekend.of(User.class);
+        weekend.weekendCriteria()
+                .andLessThan(User::getAge, 30)
+                .andNotInSubquery(User::getId, admins, UserRole::getUserId);
+        assertThat(userRepository.findAll(weekend)).extracting(User::getId).containsExactlyInAnyOrder("id0", "id2");
+
+        weekend = Weekend.of(User.class);
+        weekend.weekendCriteria().andExists(admins, UserRole::getUserId, User::getId);
+        assertThat(userRepository.count(weekend)).isEqualTo(2);
+
+        weekend = Weekend.of(User.class);
+        weekend.weekendCriteria()
+                .andLessThan(User::getAge, 50)
+                .andNotExists(admins, UserRole::getUserId, User::getId);
+        assertThat(userRepository.count(weekend)).isEqualTo(3);
+        assertThat(userRepository.exists(weekend)).isTrue();
+    }
+
+    public record AgeStats(long sum, long count, Integer max, double avg) {
+    }
+
+    public record NameAge(String name, Long total) {
+    }
+
+    public record UserName(String id, String name) {
+    }
+
+    public interface UserAge {
+
+        String getId();
+
+        Integer getAge();
+    }
 }
@@ -0,0 +1,59 @@
+package io.github.opensabe.jdbc.common.test.common;
+
+import io.github.opensabe.jdbc.common.test.BaseTest;
+import io.github.opensabe.jdbc.common.test.common.repository.UserRepository;
+import io.github.opensabe.jdbc.common.test.vo.User;
+import io.github.opensabe.jdbc.core.EnableJdbcRepositories;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.TestPropertySource;
+
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * 开启rewriteBatchedStatements以后批量updateByIdSelective的返回值
+ * @author heng.ma
+ */
+@TestPropertySource(properties = "spring.datasource.url=jdbc:p6spy:mysql://localhost:3306/sys?allowLoadLocalInfile=true&rewriteBatchedStatements=true")
+@EnableJdbcRepositories(basePackageClasses = UserRepository.class)
+public class RewriteBatchedUpdateTest extends BaseTest {
+
+    @Autowired
+    private UserRepository userRepository;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @BeforeEach
+    void setup () {
+        jdbcTemplate.update("truncate table t_user");
+        List<User> list = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            list.add(new User("id"+i, "name"+i, "email"+i, i));
+        }
+        userRepository.insertList(list);
+    }
+
+    @Test
+    public void updateCountsKeepOrder() {
+        List<User> updates = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            updates.add(i % 2 == 0 ? new User("id"+i, "new"+i, null, null) : new User("id"+i, null, null, 100 + i));
+        }
+        updates.add(2, new User("absent1", "new", null, null));
+        updates.add(8, new User("absent2", null, null, 1));
+
+        int[] counts = userRepository.updateByIdSelective(updates);
+
+        //同一组超过3条时驱动改写成多语句，update仍然返回每条的影响行数
+        assertThat(counts).containsExactly(1, 1, 0, 1, 1, 1, 1, 1, 0, 1, 1, 1);
+        assertThat(counts).doesNotContain(Statement.SUCCESS_NO_INFO);
+        assertThat(userRepository.findById("id4")).get().extracting(User::getName).isEqualTo("new4");
+        assertThat(userRepository.findById("id7")).get().extracting(User::getAge).isEqualTo(107);
+    }
+}
@@ -5,6 +5,9 @@ import io.github.opensabe.jdbc.common.test.common.repository.UserRepository;
 import io.github.opensabe.jdbc.common.test.common.service.UserService;
 import io.github.opensabe.jdbc.common.test.vo.User;
 import io.github.opensabe.jdbc.core.EnableJdbcRepositories;
+import io.github.opensabe.jdbc.core.executor.ExtendSQLGeneratorSource;
+import io.github.opensabe.jdbc.core.executor.SqlCache;
+import io.github.opensabe.jdbc.core.lambda.UpdateAssignment;
 import io.github.opensabe.jdbc.core.lambda.Weekend;
 import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.BeforeEach;
@@ -30,10 +33,13 @@ public class UpdateTest extends BaseTest {
 
     private final JdbcTemplate jdbcTemplate;
 
+    private final ExtendSQLGeneratorSource extendSQLGeneratorSource;
+
     @Autowired
-    public UpdateTest(UserService userService, JdbcTemplate jdbcTemplate) {
+    public UpdateTest(UserService userService, JdbcTemplate jdbcTemplate, ExtendSQLGeneratorSource extendSQLGeneratorSource) {
         this.userService = userService;
         this.jdbcTemplate = jdbcTemplate;
+        this.extendSQLGeneratorSource = extendSQLGeneratorSource;
     }
 
     @BeforeEach
@@ -78,6 +84,22 @@ public class UpdateTest extends BaseTest {
 
     }
 
+    @Test
+    public void insertSelectiveCachedByShape() {
+        SqlCache.Statistics before = extendSQLGeneratorSource.insertSelectiveStatistics(User.class);
+
+        userService.insertSelective(new User(UUID.randomUUID().toString(), "name1", null, 10));
+        userService.insertSelective(new User(UUID.randomUUID().toString(), "name2", null, 11));
+        userService.insertSelective(new User(UUID.randomUUID().toString(), "name3", "email", 12));
+
+        SqlCache.Statistics after = extendSQLGeneratorSource.insertSelectiveStatistics(User.class);
+
+        //同样的非空字段组合只渲染一次
+        Assertions.assertTrue(after.hits() - before.hits() >= 1);
+        Assertions.assertTrue(after.size() >= 2);
+        Assertions.assertEquals(3, userService.count());
+    }
+
     @Test
     public void updateByPrimaryKeySelective() {
         User old = new User(UUID.randomUUID().toString(), "u1", null, 10);
@@ -105,6 +127,38 @@ public class UpdateTest extends BaseTest {
         Assertions.assertTrue(user.getUpdateTime().isAfter(user.getCreateTime()));
     }
 
+    @Test
+    public void updateByPrimaryKeySelectiveList() {
+        List<User> list = new ArrayList<>(10);
+        for (int i = 0; i < 10; i++) {
+            list.add(new User("id"+i, "name"+i, "email", i));
+        }
+        userService.insertList(list);
+
+        List<User> updates = new ArrayList<>(12);
+        for (int i = 0; i < 10; i++) {
+            //两种非空字段组合，交替出现
+            updates.add(i % 2 == 0 ? new User("id"+i, "new"+i, null, null) : new User("id"+i, null, "new@"+i, 100));
+        }
+        //不存在的主键和没有非空字段的实体放在中间，结果按原来的下标写回
+        updates.add(3, new User("absent", "new", null, null));
+        updates.add(7, new User("id9", null, null, null));
+
+        int[] counts = userService.updateByIdSelective(updates);
+
+        Assertions.assertArrayEquals(new int[]{1, 1, 1, 0, 1, 1, 1, 0, 1, 1, 1, 1}, counts);
+
+        User even = userService.selectInstanceById("id2");
+        Assertions.assertNotNull(even);
+        Assertions.assertEquals("new2", even.getName());
+        Assertions.assertEquals("email", even.getEmail());
+
+        User odd = userService.selectInstanceById("id3");
+        Assertions.assertNotNull(odd);
+        Assertions.assertEquals("name3", odd.getName());
+        Assertions.assertEquals(100, odd.getAge());
+    }
+
     @Test
     public void deleteById() {
         User user = new User(UUID.randomUUID().toString(), "name", "email", 10);
@@ -198,6 +252,38 @@ public class UpdateTest extends BaseTest {
 
     }
 
+    @Test
+    public void updateWithAssignments() {
+        User user = new User(UUID.randomUUID().toString(), "name1", "email1", 10);
+        userService.insertSelective(user);
+
+        Weekend<User> weekend = Weekend.of(User.class)
+                .increment(User::getAge, 5);
+        weekend.weekendCriteria()
+                .andEqualTo(User::getId, user.getId());
+        Assertions.assertEquals(1, userService.update(weekend));
+        Assertions.assertEquals(15, userService.selectInstanceById(user.getId()).getAge());
+
+        Weekend<User> greatest = Weekend.of(User.class)
+                .greatest(User::getAge, 12)
+                .set(User::getEmail, User::getId);
+        greatest.weekendCriteria()
+                .andEqualTo(User::getId, user.getId());
+        userService.updateSelective(new User(null, "name2", "ignored", null), greatest);
+
+        User current = userService.selectInstanceById(user.getId());
+        Assertions.assertEquals(15, current.getAge());
+        Assertions.assertEquals("name2", current.getName());
+        Assertions.assertEquals(user.getId(), current.getEmail());
+
+        Weekend<User> multiply = Weekend.of(User.class)
+                .set(User::getAge, User::getAge, UpdateAssignment.Operator.MULTIPLY, 2);
+        multiply.weekendCriteria()
+                .andEqualTo(User::getId, user.getId());
+        Assertions.assertEquals(1, userService.update(multiply));
+        Assertions.assertEquals(30, userService.selectInstanceById(user.getId()).getAge());
+    }
+
     @Test
     public void updateSelectiveByEntity() {
         List<User> list = new ArrayList<>(100);
@@ -235,6 +321,41 @@ public class UpdateTest extends BaseTest {
         Assertions.assertEquals(100, realCount);
     }
 
+    @Test
+    void upsert () {
+        User user = new User(UUID.randomUUID().toString(), "name1", "email1", 10);
+        userService.upsert(user);
+
+        Assertions.assertEquals(1, userService.count());
+
+        User conflict = new User(user.getId(), "name2", "email2", 11);
+        userService.getRepository().upsert(conflict, User::getName);
+
+        User current = userService.selectInstanceById(user.getId());
+        Assertions.assertNotNull(current);
+        Assertions.assertEquals("name2", current.getName());
+        //没有指定的字段不覆盖
+        Assertions.assertEquals("email1", current.getEmail());
+        Assertions.assertEquals(10, current.getAge());
+    }
+
+    @Test
+    void upsertList () {
+        List<User> list = new ArrayList<>(10);
+        for (int i = 0; i < 10; i++) {
+            list.add(new User("id"+i, "name"+i, "email", i));
+        }
+        userService.insertList(list.subList(0, 5));
+
+        list.forEach(u -> u.setName("new" + u.getName()));
+        userService.upsertList(list);
+
+        Assertions.assertEquals(10, userService.count());
+        Assertions.assertEquals(10, userService.select(new User(null, null, "email", null)).stream()
+                .filter(u -> u.getName().startsWith("new"))
+                .count());
+    }
+
     @Test
     void testUpdateById () {
         String  id = UUID.randomUUID().toString();
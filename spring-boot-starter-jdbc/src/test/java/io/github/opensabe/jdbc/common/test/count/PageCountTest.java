@@ -0,0 +1,122 @@
+package io.github.opensabe.jdbc.common.test.count;
+
+import io.github.opensabe.jdbc.common.test.BaseTest;
+import io.github.opensabe.jdbc.common.test.count.repository.CachedCountUserRepository;
+import io.github.opensabe.jdbc.common.test.vo.User;
+import io.github.opensabe.jdbc.core.EnableJdbcRepositories;
+import io.github.opensabe.jdbc.core.count.CountMode;
+import io.github.opensabe.jdbc.core.count.CountQuery;
+import io.github.opensabe.jdbc.core.count.CountStrategies;
+import io.github.opensabe.jdbc.core.count.EstimatedCountStrategy;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.relational.core.dialect.Dialect;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * @author heng.ma
+ */
+@EnableJdbcRepositories(basePackageClasses = CachedCountUserRepository.class)
+public class PageCountTest extends BaseTest {
+
+    @Autowired
+    private CachedCountUserRepository repository;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    @Autowired
+    private CountStrategies countStrategies;
+    @Autowired
+    private Dialect dialect;
+
+    @BeforeEach
+    void setup () {
+        jdbcTemplate.update("truncate table t_user");
+        List<User> list = new ArrayList<>();
+        for (int i = 0; i < 100; i++) {
+            list.add(new User("id"+i, "name"+i, "email"+i, i*10));
+        }
+        repository.insertList(list);
+    }
+
+    @AfterEach
+    void restore () {
+        countStrategies.setStrategy(CountMode.ESTIMATED, new EstimatedCountStrategy(100_000, dialect));
+    }
+
+    @Test
+    public void cachedByRepository() {
+        assertThat(repository.findAll(PageRequest.of(0, 10)).getTotalElements()).isEqualTo(100);
+
+        repository.insertSelective(new User("id100", "name100", "email100", 1000));
+
+        assertThat(repository.findAll(PageRequest.of(1, 10)).getTotalElements()).isEqualTo(100);
+        assertThat(CountStrategies.with(CountMode.EXACT, () -> repository.findAll(PageRequest.of(1, 10))).getTotalElements())
+                .isEqualTo(101);
+    }
+
+    @Test
+    public void cachedByQueryMethod() {
+        assertThat(repository.selectPage(500, PageRequest.of(0, 10)).getTotalElements()).isEqualTo(50);
+
+        repository.insertSelective(new User("id100", "name100", "email100", 1000));
+
+        assertThat(repository.selectPage(500, PageRequest.of(2, 10)).getTotalElements()).isEqualTo(50);
+        assertThat(repository.selectExactPage(500, PageRequest.of(2, 10)).getTotalElements()).isEqualTo(51);
+    }
+
+    @Test
+    public void derivedCountQuery() {
+        Page<User> page = repository.selectWithSubquery(500, PageRequest.of(1, 10));
+
+        assertThat(page.getTotalElements()).isEqualTo(50);
+        assertThat(page.getContent())
+                .extracting(User::getAge)
+                .startsWith(890);
+    }
+
+    @Test
+    public void explicitCountQuery() {
+        assertThat(repository.selectWithCountQuery(500, PageRequest.of(1, 10)).getTotalElements()).isEqualTo(100);
+    }
+
+    @Test
+    public void estimatedBelowThreshold() {
+        AtomicLong estimated = new AtomicLong(-2);
+        countStrategies.setStrategy(CountMode.ESTIMATED, new EstimatedCountStrategy(100_000, dialect) {
+            @Override
+            protected long estimate(CountQuery query) {
+                long estimate = super.estimate(query);
+                estimated.set(estimate);
+                return estimate;
+            }
+        });
+
+        long total = CountStrategies.with(CountMode.ESTIMATED, () -> repository.findAll(PageRequest.of(0, 10), "t_user"))
+                .getTotalElements();
+
+        assertThat(estimated.get()).isBetween(0L, 100_000L - 1);
+        assertThat(total).isEqualTo(100);
+    }
+
+    @Test
+    public void estimatedAboveThreshold() {
+        jdbcTemplate.execute("analyze table t_user");
+        countStrategies.setStrategy(CountMode.ESTIMATED, new EstimatedCountStrategy(1, dialect));
+
+        long total = CountStrategies.with(CountMode.ESTIMATED, () -> repository.findAll(PageRequest.of(0, 10), "t_user"))
+                .getTotalElements();
+
+        //InnoDB的统计信息是采样的，只要求数量级一致
+        assertThat(total).isBetween(1L, 1000L);
+    }
+}
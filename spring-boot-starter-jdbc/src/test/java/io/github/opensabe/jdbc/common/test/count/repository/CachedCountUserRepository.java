@@ -0,0 +1,31 @@
+package io.github.opensabe.jdbc.common.test.count.repository;
+
+import io.github.opensabe.jdbc.common.test.vo.User;
+import io.github.opensabe.jdbc.core.count.CountMode;
+import io.github.opensabe.jdbc.core.count.PageCount;
+import io.github.opensabe.jdbc.core.repository.BaseRepository;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jdbc.repository.query.Query;
+
+/**
+ * @author heng.ma
+ */
+@PageCount(CountMode.CACHED)
+public interface CachedCountUserRepository extends BaseRepository<User, String> {
+
+    @Query("select * from t_user where age >= :age")
+    Page<User> selectPage (int age, Pageable pageable);
+
+    @PageCount(CountMode.EXACT)
+    @Query("select * from t_user where age >= :age")
+    Page<User> selectExactPage (int age, Pageable pageable);
+
+    @PageCount(CountMode.EXACT)
+    @Query("select u.*, (select count(*) from t_user o where o.age < u.age) lower_count from t_user u where u.age >= :age order by u.age desc")
+    Page<User> selectWithSubquery (int age, Pageable pageable);
+
+    @PageCount(value = CountMode.EXACT, query = "select count(*) * 2 from t_user where age >= :age")
+    @Query("select * from t_user where age >= :age")
+    Page<User> selectWithCountQuery (int age, Pageable pageable);
+}
@@ -0,0 +1,19 @@
+package io.github.opensabe.jdbc.common.test.count.repository;
+
+import io.github.opensabe.jdbc.common.test.vo.User;
+import io.github.opensabe.jdbc.core.lambda.Weekend;
+import io.github.opensabe.jdbc.core.repository.BaseRepository;
+import io.github.opensabe.jdbc.datasource.ReadOnly;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+
+/**
+ * 分页查询走只读库
+ * @author heng.ma
+ */
+public interface ReadOnlyUserRepository extends BaseRepository<User, String> {
+
+    @ReadOnly
+    @Override
+    Page<User> findAll(Weekend<User> weekend, Pageable pageable);
+}
@@ -0,0 +1,47 @@
+package io.github.opensabe.jdbc.common.test.vo;
+
+import io.github.opensabe.jdbc.converter.Converter;
+import io.github.opensabe.jdbc.converter.extension.JsonPropertyValueConverter;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.relational.core.mapping.Table;
+
+/**
+ * t_activity只映射一个@Converter属性
+ * @author heng.ma
+ */
+
+@Table("t_activity")
+public class ActivityConfig {
+
+    @Id
+    private String id;
+
+    @Converter(JsonPropertyValueConverter.class)
+    private Activity.Config config;
+
+    private Boolean online;
+
+    public String getId() {
+        return id;
+    }
+
+    public void setId(String id) {
+        this.id = id;
+    }
+
+    public Activity.Config getConfig() {
+        return config;
+    }
+
+    public void setConfig(Activity.Config config) {
+        this.config = config;
+    }
+
+    public Boolean getOnline() {
+        return online;
+    }
+
+    public void setOnline(Boolean online) {
+        this.online = online;
+    }
+}
@@ -0,0 +1,43 @@
+package io.github.opensabe.jdbc.common.test.vo;
+
+import io.github.opensabe.jdbc.core.cache.EntityCache;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.annotation.ReadOnlyProperty;
+import org.springframework.data.relational.core.mapping.Table;
+
+/**
+ * @author heng.ma
+ */
+@EntityCache(maxSize = 16, ttlSeconds = 60)
+@Table(name = "t_role")
+public class CachedRole {
+
+    @Id
+    @ReadOnlyProperty
+    private Integer id;
+
+    private String name;
+
+    public CachedRole(String name) {
+        this.name = name;
+    }
+
+    public CachedRole() {
+    }
+
+    public Integer getId() {
+        return id;
+    }
+
+    public void setId(Integer id) {
+        this.id = id;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public void setName(String name) {
+        this.name = name;
+    }
+}
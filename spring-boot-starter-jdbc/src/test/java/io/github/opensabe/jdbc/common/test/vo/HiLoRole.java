@@ -0,0 +1,43 @@
+package io.github.opensabe.jdbc.common.test.vo;
+
+import io.github.opensabe.jdbc.core.id.HiLoIdAllocator;
+import io.github.opensabe.jdbc.core.id.IdAllocation;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.relational.core.mapping.Table;
+
+/**
+ * @author heng.ma
+ */
+
+@IdAllocation(HiLoIdAllocator.class)
+@Table(name = "t_allocated_role")
+public class HiLoRole {
+
+    @Id
+    private Long id;
+
+    private String name;
+
+    public HiLoRole(String name) {
+        this.name = name;
+    }
+
+    public HiLoRole() {
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public void setName(String name) {
+        this.name = name;
+    }
+}
@@ -0,0 +1,59 @@
+package io.github.opensabe.jdbc.common.test.vo;
+
+import org.springframework.data.annotation.Id;
+import org.springframework.data.relational.core.mapping.Table;
+
+/**
+ * t_user的另一种映射，属性类型跟列的类型不一致：name为枚举，age为基本类型long
+ * @author heng.ma
+ */
+
+@Table(name = "t_user")
+public class TypedUser {
+
+    @Id
+    private String id;
+
+    private Level name;
+
+    private long age;
+
+    private String email;
+
+    public String getId() {
+        return id;
+    }
+
+    public void setId(String id) {
+        this.id = id;
+    }
+
+    public Level getName() {
+        return name;
+    }
+
+    public void setName(Level name) {
+        this.name = name;
+    }
+
+    public long getAge() {
+        return age;
+    }
+
+    public void setAge(long age) {
+        this.age = age;
+    }
+
+    public String getEmail() {
+        return email;
+    }
+
+    public void setEmail(String email) {
+        this.email = email;
+    }
+
+    public enum Level {
+        LOW,
+        HIGH
+    }
+}
@@ -38,4 +38,15 @@ create table sys.t_role (
     id int auto_increment,
     `name` varchar(12),
     primary key(id)
-);
\ No newline at end of file
+);
+create table sys.t_allocated_role (
+    id bigint,
+    `name` varchar(12),
+    primary key(id)
+);
+
+create table sys.id_sequence (
+    name varchar(64),
+    next_hi bigint not null,
+    primary key(name)
+);
@@ -0,0 +1,64 @@
+package io.github.opensabe.jdbc.benchmark;
+
+import org.springframework.data.annotation.Id;
+import org.springframework.data.annotation.ReadOnlyProperty;
+import org.springframework.data.relational.core.mapping.Table;
+
+/**
+ * 写入基准测试使用的自增主键实体
+ * @author heng.ma
+ */
+@Table("t_benchmark_account")
+public class Account {
+
+    @Id
+    @ReadOnlyProperty
+    private Long id;
+
+    private String name;
+
+    private String email;
+
+    private Integer age;
+
+    public Account() {
+    }
+
+    public Account(String name, String email, Integer age) {
+        this.name = name;
+        this.email = email;
+        this.age = age;
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public void setName(String name) {
+        this.name = name;
+    }
+
+    public String getEmail() {
+        return email;
+    }
+
+    public void setEmail(String email) {
+        this.email = email;
+    }
+
+    public Integer getAge() {
+        return age;
+    }
+
+    public void setAge(Integer age) {
+        this.age = age;
+    }
+}
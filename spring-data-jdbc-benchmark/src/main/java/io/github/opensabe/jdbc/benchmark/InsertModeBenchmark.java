@@ -0,0 +1,91 @@
+package io.github.opensabe.jdbc.benchmark;
+
+import io.github.opensabe.jdbc.core.InsertMode;
+import io.github.opensabe.jdbc.core.executor.CustomerJdbcOperation;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.boot.SpringBootConfiguration;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.autoconfigure.EnableAutoConfiguration;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * insertList在{@link InsertMode#VALUES}和{@link InsertMode#BATCH}下的写入耗时，BATCH分别在开启和关闭rewriteBatchedStatements时测量。
+ * 需要一个MySQL，通过系统属性指定：-Dbenchmark.url=jdbc:mysql://localhost:3306/sys -Dbenchmark.username=root -Dbenchmark.password=123456，
+ * 测试表t_benchmark_account在启动时创建，每次迭代前清空
+ * @author heng.ma
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class InsertModeBenchmark {
+
+    @Param({"VALUES", "BATCH"})
+    private InsertMode mode;
+
+    @Param({"true", "false"})
+    private boolean rewriteBatchedStatements;
+
+    @Param({"100", "1000", "5000"})
+    private int rows;
+
+    private ConfigurableApplicationContext applicationContext;
+
+    private CustomerJdbcOperation operation;
+
+    private JdbcTemplate jdbcTemplate;
+
+    @Setup
+    public void setup () {
+        String url = System.getProperty("benchmark.url", "jdbc:mysql://localhost:3306/sys");
+        applicationContext = new SpringApplicationBuilder(Config.class)
+                .web(WebApplicationType.NONE)
+                .properties(
+                        "spring.datasource.url=" + url + (url.contains("?") ? "&" : "?") + "rewriteBatchedStatements=" + rewriteBatchedStatements,
+                        "spring.datasource.username=" + System.getProperty("benchmark.username", "root"),
+                        "spring.datasource.password=" + System.getProperty("benchmark.password", "123456"))
+                .run();
+        operation = applicationContext.getBean(CustomerJdbcOperation.class);
+        jdbcTemplate = applicationContext.getBean(JdbcTemplate.class);
+        jdbcTemplate.execute("""
+                create table if not exists t_benchmark_account (
+                    id bigint auto_increment,
+                    `name` varchar(64),
+                    email varchar(64),
+                    age int,
+                    primary key (id)
+                )""");
+    }
+
+    @Setup(Level.Iteration)
+    public void truncate () {
+        jdbcTemplate.execute("truncate table t_benchmark_account");
+    }
+
+    @TearDown
+    public void tearDown () {
+        applicationContext.close();
+    }
+
+    @Benchmark
+    public long insertList () {
+        List<Account> list = new ArrayList<>(rows);
+        for (int i = 0; i < rows; i++) {
+            list.add(new Account("name" + i, "email" + i + "@example.com", i % 100));
+        }
+        return operation.insertList(list, Account.class, mode);
+    }
+
+    @SpringBootConfiguration
+    @EnableAutoConfiguration
+    static class Config {
+    }
+}
@@ -0,0 +1,106 @@
+package io.github.opensabe.jdbc.benchmark;
+
+import io.github.opensabe.jdbc.core.executor.ExtendSQLGeneratorSource;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import org.springframework.data.jdbc.core.convert.MappingJdbcConverter;
+import org.springframework.data.jdbc.core.dialect.JdbcMySqlDialect;
+import org.springframework.data.jdbc.core.mapping.JdbcMappingContext;
+import org.springframework.jdbc.core.RowMapper;
+
+import javax.sql.RowSetMetaData;
+import javax.sql.rowset.CachedRowSet;
+import javax.sql.rowset.RowSetMetaDataImpl;
+import javax.sql.rowset.RowSetProvider;
+import java.math.BigDecimal;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * DirectRowMapper跟Spring Data的EntityRowMapper读取同一个内存ResultSet的对比，每次调用映射{@link #rows}行。
+ * 用CachedRowSet代替驱动的ResultSet，排除网络和驱动解析的开销，只比较映射本身
+ * @author heng.ma
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class RowMapperBenchmark {
+
+    @Param({"1", "100", "1000"})
+    private int rows;
+
+    private CachedRowSet resultSet;
+
+    private RowMapper<User> direct;
+
+    private RowMapper<User> entity;
+
+    @Setup
+    public void setup () throws SQLException {
+        JdbcMappingContext context = new JdbcMappingContext();
+        MappingJdbcConverter converter = new MappingJdbcConverter(context, (identifier, path) -> List.of());
+
+        ExtendSQLGeneratorSource directSource = new ExtendSQLGeneratorSource(context, converter, JdbcMySqlDialect.INSTANCE);
+        directSource.setDirectRowMapper(true);
+        direct = directSource.entityRowMapper(User.class);
+        entity = new ExtendSQLGeneratorSource(context, converter, JdbcMySqlDialect.INSTANCE).entityRowMapper(User.class);
+
+        resultSet = resultSet(rows);
+    }
+
+    @Benchmark
+    public void directRowMapper (Blackhole blackhole) throws SQLException {
+        map(direct, blackhole);
+    }
+
+    @Benchmark
+    public void entityRowMapper (Blackhole blackhole) throws SQLException {
+        map(entity, blackhole);
+    }
+
+    private void map (RowMapper<User> mapper, Blackhole blackhole) throws SQLException {
+        resultSet.beforeFirst();
+        int rowNum = 0;
+        while (resultSet.next()) {
+            blackhole.consume(mapper.mapRow(resultSet, rowNum++));
+        }
+    }
+
+    private static CachedRowSet resultSet (int rows) throws SQLException {
+        RowSetMetaData metaData = new RowSetMetaDataImpl();
+        metaData.setColumnCount(6);
+        column(metaData, 1, "id", Types.BIGINT);
+        column(metaData, 2, "name", Types.VARCHAR);
+        column(metaData, 3, "age", Types.INTEGER);
+        column(metaData, 4, "email", Types.VARCHAR);
+        column(metaData, 5, "balance", Types.DECIMAL);
+        column(metaData, 6, "create_time", Types.TIMESTAMP);
+
+        CachedRowSet resultSet = RowSetProvider.newFactory().createCachedRowSet();
+        resultSet.setMetaData(metaData);
+        resultSet.moveToInsertRow();
+        for (int i = 1; i <= rows; i++) {
+            resultSet.updateLong(1, i);
+            resultSet.updateString(2, "user" + i);
+            resultSet.updateInt(3, 20 + i % 50);
+            resultSet.updateString(4, "user" + i + "@example.com");
+            resultSet.updateBigDecimal(5, BigDecimal.valueOf(i, 2));
+            resultSet.updateTimestamp(6, new Timestamp(1_700_000_000_000L + i * 1000L));
+            resultSet.insertRow();
+        }
+        resultSet.moveToCurrentRow();
+        return resultSet;
+    }
+
+    private static void column (RowSetMetaData metaData, int index, String name, int type) throws SQLException {
+        metaData.setColumnName(index, name);
+        metaData.setColumnLabel(index, name);
+        metaData.setColumnType(index, type);
+    }
+}
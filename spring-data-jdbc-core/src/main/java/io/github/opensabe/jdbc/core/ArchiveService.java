@@ -1,5 +1,6 @@
 package io.github.opensabe.jdbc.core;
 
+import io.github.opensabe.jdbc.core.aggregate.Aggregation;
 import io.github.opensabe.jdbc.core.lambda.Weekend;
 import io.github.opensabe.jdbc.core.repository.BaseRepository;
 import org.springframework.data.domain.*;
@@ -114,6 +115,11 @@ public class ArchiveService<T, ID> implements QueryService<T, ID> {
         return repository.count(weekend, table);
     }
 
+    @Override
+    public Aggregation<T> aggregate(Weekend<T> weekend) {
+        return repository.aggregate(weekend, table);
+    }
+
     @Override
     public long count() {
         return repository.count(table);
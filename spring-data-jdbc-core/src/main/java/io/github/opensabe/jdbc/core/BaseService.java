@@ -1,5 +1,6 @@
 package io.github.opensabe.jdbc.core;
 
+import io.github.opensabe.jdbc.core.aggregate.Aggregation;
 import io.github.opensabe.jdbc.core.lambda.Weekend;
 import io.github.opensabe.jdbc.core.repository.BaseRepository;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -10,6 +11,7 @@ import org.springframework.data.util.TypeInformation;
 
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 /**
  * @author heng.ma
@@ -154,6 +156,11 @@ public abstract class BaseService<T, ID> implements IService<T, ID> {
         return repository.count(weekend);
     }
 
+    @Override
+    public Aggregation<T> aggregate(Weekend<T> weekend) {
+        return repository.aggregate(weekend);
+    }
+
     @Override
     public boolean exists(T entity) {
         return repository.exists(getExample(entity));
@@ -174,6 +181,26 @@ public abstract class BaseService<T, ID> implements IService<T, ID> {
         return repository.insertList(entities);
     }
 
+    @Override
+    public long insertSelectiveList(List<T> entities) {
+        return repository.insertSelectiveList(entities);
+    }
+
+    @Override
+    public int upsert(T entity) {
+        return repository.upsert(entity);
+    }
+
+    @Override
+    public long upsertList(List<T> entities) {
+        return repository.upsertList(entities);
+    }
+
+    @Override
+    public long insertStream(Stream<T> entities) {
+        return repository.insertStream(entities);
+    }
+
     @Override
     public T updateById(T entity) {
         return repository.updateById(entity);
@@ -184,6 +211,11 @@ public abstract class BaseService<T, ID> implements IService<T, ID> {
         return repository.updateByIdSelective(entity);
     }
 
+    @Override
+    public int[] updateByIdSelective(List<T> entities) {
+        return repository.updateByIdSelective(entities);
+    }
+
     @Override
     public long updateSelective(T entity, T query) {
         return repository.updateSelective(entity, getExample(query));
@@ -194,6 +226,11 @@ public abstract class BaseService<T, ID> implements IService<T, ID> {
         return repository.updateSelective(entity, weekend);
     }
 
+    @Override
+    public long update(Weekend<T> weekend) {
+        return repository.update(weekend);
+    }
+
     @Override
     public int deleteById(ID id) {
         return repository.deleteById(id);
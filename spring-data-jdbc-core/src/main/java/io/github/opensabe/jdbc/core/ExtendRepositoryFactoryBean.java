@@ -1,5 +1,7 @@
 package io.github.opensabe.jdbc.core;
 
+import io.github.opensabe.jdbc.core.count.CountStrategies;
+import io.github.opensabe.jdbc.core.count.PageCountAdvice;
 import org.springframework.beans.factory.BeanFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.context.ApplicationEventPublisher;
@@ -45,6 +47,8 @@ public class ExtendRepositoryFactoryBean<T extends Repository<S, ID>, S, ID exte
 
     private RepositoryFactoryBeanCustomizer factoryBeanCustomizer;
 
+    private CountStrategies countStrategies;
+
 
     public ExtendRepositoryFactoryBean(Class<? extends T> repositoryInterface) {
         super(repositoryInterface);
@@ -79,6 +83,11 @@ public class ExtendRepositoryFactoryBean<T extends Repository<S, ID>, S, ID exte
         this.factoryBeanCustomizer = factoryBeanCustomizer;
     }
 
+    @Autowired(required = false)
+    public void setCountStrategies(CountStrategies countStrategies) {
+        this.countStrategies = countStrategies;
+    }
+
     /**
      * 自定义BeanFactory,在获取transaction时使用动态数据源
      * @param beanFactory owning BeanFactory (never {@code null}).
@@ -121,7 +130,7 @@ public class ExtendRepositoryFactoryBean<T extends Repository<S, ID>, S, ID exte
                     try {
                         return s.resolveQuery(method, metadata, factory, namedQueries);
                     }catch (UnsupportedOperationException e) {
-                        return new PagedJdbcQueryLookupStrategy(publisher, entityCallbacks, mappingContext, converter, dialect, queryMappingConfiguration, operations, new CachingValueExpressionDelegate(valueExpressionDelegate))
+                        return new PagedJdbcQueryLookupStrategy(publisher, entityCallbacks, mappingContext, converter, dialect, queryMappingConfiguration, operations, new CachingValueExpressionDelegate(valueExpressionDelegate), countStrategies)
                                 .resolveQuery(method, metadata, factory, namedQueries);
                     }
                 });
@@ -150,6 +159,7 @@ public class ExtendRepositoryFactoryBean<T extends Repository<S, ID>, S, ID exte
     @Override
     public void afterPropertiesSet() {
         addRepositoryFactoryCustomizer(new RepositoryFactoryCategoryCustomizer(getConfigSource()));
+        addRepositoryFactoryCustomizer(factory -> factory.addRepositoryProxyPostProcessor((proxy, repositoryInformation) -> proxy.addAdvice(new PageCountAdvice(repositoryInformation.getRepositoryInterface()))));
         if (factoryBeanCustomizer != null) {
             factoryBeanCustomizer.customize(this);
         }
@@ -3,6 +3,7 @@ package io.github.opensabe.jdbc.core;
 import io.github.opensabe.jdbc.core.lambda.Weekend;
 
 import java.util.List;
+import java.util.stream.Stream;
 
 /**
  * @author heng.ma
@@ -13,14 +14,26 @@ public interface IService<T, ID> extends QueryService<T, ID> {
 
     long insertList (List<T> entities);
 
+    long insertSelectiveList (List<T> entities);
+
+    int upsert (T entity);
+
+    long upsertList (List<T> entities);
+
+    long insertStream (Stream<T> entities);
+
     T updateById (T entity);
 
     int updateByIdSelective (T entity);
 
+    int[] updateByIdSelective (List<T> entities);
+
     long updateSelective (T entity, T query);
 
     long updateSelective (T entity, Weekend<T> weekend);
 
+    long update (Weekend<T> weekend);
+
     int deleteById (ID id);
 
     int deleteAllById (Iterable<ID> ids);
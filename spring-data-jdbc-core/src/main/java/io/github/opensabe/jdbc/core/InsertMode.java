@@ -0,0 +1,19 @@
+package io.github.opensabe.jdbc.core;
+
+/**
+ * insertList的执行方式
+ * @author heng.ma
+ */
+public enum InsertMode {
+
+    /**
+     * 拼成一条 insert into ... values (...),(...) 执行，超过上限时拆成多条
+     */
+    VALUES,
+
+    /**
+     * 预编译一条单行insert，通过addBatch/executeBatch执行。
+     * 配合MySQL的rewriteBatchedStatements=true使用，服务端只需要缓存一条sql
+     */
+    BATCH
+}
@@ -0,0 +1,16 @@
+package io.github.opensabe.jdbc.core;
+
+import java.lang.annotation.*;
+
+/**
+ * 在实体类上指定insertList的执行方式，不指定时使用全局配置
+ * @author heng.ma
+ */
+@Inherited
+@Documented
+@Retention(RetentionPolicy.RUNTIME)
+@Target(ElementType.TYPE)
+public @interface InsertStrategy {
+
+    InsertMode value();
+}
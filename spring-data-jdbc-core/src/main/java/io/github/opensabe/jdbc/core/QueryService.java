@@ -1,5 +1,6 @@
 package io.github.opensabe.jdbc.core;
 
+import io.github.opensabe.jdbc.core.aggregate.Aggregation;
 import io.github.opensabe.jdbc.core.lambda.Fn;
 import io.github.opensabe.jdbc.core.lambda.Weekend;
 import org.springframework.data.domain.Page;
@@ -206,6 +207,11 @@ public interface QueryService<T, ID> {
 
     long count (Weekend<T> weekend);
 
+    /**
+     * sum/avg/min/max/count以及group by在数据库中完成
+     */
+    Aggregation<T> aggregate (Weekend<T> weekend);
+
     boolean exists (T entity);
 
     boolean exists (Weekend<T> weekend);
@@ -0,0 +1,20 @@
+package io.github.opensabe.jdbc.core.aggregate;
+
+import org.springframework.lang.Nullable;
+
+/**
+ * 聚合函数
+ * @param type     函数
+ * @param property 属性名，为null时表示count(*)
+ * @author heng.ma
+ */
+public record AggregateFunction(Type type, @Nullable String property) {
+
+    public enum Type {
+        COUNT,
+        SUM,
+        AVG,
+        MIN,
+        MAX
+    }
+}
@@ -0,0 +1,143 @@
+package io.github.opensabe.jdbc.core.aggregate;
+
+import io.github.opensabe.jdbc.core.executor.CriteriaJdbcOperation;
+import io.github.opensabe.jdbc.core.lambda.Fn;
+import io.github.opensabe.jdbc.core.lambda.Reflections;
+import org.springframework.data.relational.core.query.Query;
+import org.springframework.lang.Nullable;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * 在数据库中完成的聚合查询，条件来自Weekend：
+ * <pre>
+ * List&lt;AgeSum&gt; list = userRepository.aggregate(weekend)
+ *         .sum(User::getAge)
+ *         .count()
+ *         .groupBy(User::getName)
+ *         .list(AgeSum.class);
+ * </pre>
+ * 结果的列依次是分组字段和聚合函数，按分组字段排序
+ * @author heng.ma
+ */
+public class Aggregation<T> {
+
+    private final CriteriaJdbcOperation operation;
+
+    private final Class<T> entityClass;
+
+    private final Query query;
+
+    private final String table;
+
+    private final List<AggregateFunction> functions = new ArrayList<>();
+
+    private final List<String> groupBy = new ArrayList<>();
+
+    /**
+     * @param table 为null时查询实体对应的表
+     */
+    public Aggregation(CriteriaJdbcOperation operation, Class<T> entityClass, Query query, @Nullable String table) {
+        this.operation = operation;
+        this.entityClass = entityClass;
+        this.query = query;
+        this.table = table;
+    }
+
+    /**
+     * count(*)
+     */
+    public Aggregation<T> count () {
+        functions.add(new AggregateFunction(AggregateFunction.Type.COUNT, null));
+        return this;
+    }
+
+    /**
+     * 字段非空的行数
+     */
+    public Aggregation<T> count (Fn<T, Object> fn) {
+        return function(AggregateFunction.Type.COUNT, fn);
+    }
+
+    public Aggregation<T> sum (Fn<T, Object> fn) {
+        return function(AggregateFunction.Type.SUM, fn);
+    }
+
+    public Aggregation<T> avg (Fn<T, Object> fn) {
+        return function(AggregateFunction.Type.AVG, fn);
+    }
+
+    public Aggregation<T> min (Fn<T, Object> fn) {
+        return function(AggregateFunction.Type.MIN, fn);
+    }
+
+    public Aggregation<T> max (Fn<T, Object> fn) {
+        return function(AggregateFunction.Type.MAX, fn);
+    }
+
+    private Aggregation<T> function (AggregateFunction.Type type, Fn<T, Object> fn) {
+        functions.add(new AggregateFunction(type, Reflections.fnToFieldName(fn)));
+        return this;
+    }
+
+    @SafeVarargs
+    public final Aggregation<T> groupBy (Fn<T, Object>... fns) {
+        for (Fn<T, Object> fn : fns) {
+            groupBy.add(Reflections.fnToFieldName(fn));
+        }
+        return this;
+    }
+
+    /**
+     * 每行转换成type：record按列的顺序对应构造方法的参数，只有一列时也可以是简单类型
+     */
+    public <R> List<R> list (Class<R> type) {
+        return operation.aggregate(this, type);
+    }
+
+    /**
+     * 没有分组时只有一行
+     */
+    public <R> Optional<R> one (Class<R> type) {
+        return list(type).stream().findFirst();
+    }
+
+    /**
+     * 只有一个聚合函数时，每个分组的结果直接读取成数组，不包括分组字段。
+     * 每个分组占一个位置，顺序跟{@link #list(Class)}一样按分组字段排序；聚合结果为null（比如分组内字段都是null，或者没有分组时没有匹配的行）时为0
+     */
+    public long[] longs () {
+        return operation.aggregateLongs(this);
+    }
+
+    /**
+     * 同{@link #longs()}，聚合结果为null时为{@link Double#NaN}
+     */
+    public double[] doubles () {
+        return operation.aggregateDoubles(this);
+    }
+
+    public Class<T> getEntityClass() {
+        return entityClass;
+    }
+
+    public Query getQuery() {
+        return query;
+    }
+
+    @Nullable
+    public String getTable() {
+        return table;
+    }
+
+    public List<AggregateFunction> getFunctions() {
+        return Collections.unmodifiableList(functions);
+    }
+
+    public List<String> getGroupBy() {
+        return Collections.unmodifiableList(groupBy);
+    }
+}
@@ -0,0 +1,28 @@
+package io.github.opensabe.jdbc.core.cache;
+
+import java.lang.annotation.*;
+
+/**
+ * 实体开启repository级别的本地缓存，缓存findById、findAll()以及按Example的findAll/findOne结果。
+ * 通过repository执行的写操作会失效对应的缓存：按主键的更新、删除失效该主键和所有条件查询结果，
+ * insert失效条件查询结果，按条件的更新、删除以及upsert清空整个实体的缓存。
+ * 只适合配置、字典这类读多写少的表：缓存只在本实例内失效，直接执行的sql也不会失效缓存，
+ * 返回的是缓存对象的浅拷贝（record直接返回），修改返回的对象不影响缓存，但嵌套的可变对象仍然共享
+ * @author heng.ma
+ */
+@Inherited
+@Documented
+@Retention(RetentionPolicy.RUNTIME)
+@Target(ElementType.TYPE)
+public @interface EntityCache {
+
+    /**
+     * 主键缓存和条件查询缓存各自的最大条数
+     */
+    int maxSize() default 1024;
+
+    /**
+     * 写入以后的过期时间（秒）
+     */
+    long ttlSeconds() default 300;
+}
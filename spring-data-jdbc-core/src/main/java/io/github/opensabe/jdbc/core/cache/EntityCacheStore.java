@@ -0,0 +1,32 @@
+package io.github.opensabe.jdbc.core.cache;
+
+/**
+ * 缓存的存储，默认为{@link LocalEntityCacheStore}，可以通过{@link EntityCacheStoreFactory}替换成其他实现
+ * @author heng.ma
+ */
+public interface EntityCacheStore {
+
+    /**
+     * @return 不存在或者已过期时返回null
+     */
+    Object get (Object key);
+
+    void put (Object key, Object value);
+
+    void evict (Object key);
+
+    void clear ();
+
+    Statistics statistics ();
+
+    /**
+     * @param evictions 因为容量或者过期被移除的条数，不包括主动失效
+     */
+    record Statistics(long hits, long misses, long evictions, long size) {
+
+        public double hitRate () {
+            long requests = hits + misses;
+            return requests == 0 ? 0 : (double) hits / requests;
+        }
+    }
+}
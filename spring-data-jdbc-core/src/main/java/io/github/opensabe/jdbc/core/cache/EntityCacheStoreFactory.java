@@ -0,0 +1,15 @@
+package io.github.opensabe.jdbc.core.cache;
+
+/**
+ * 为每个实体的每个区域（{@link #ID}、{@link #QUERY}）创建存储
+ * @author heng.ma
+ */
+@FunctionalInterface
+public interface EntityCacheStoreFactory {
+
+    String ID = "id";
+
+    String QUERY = "query";
+
+    EntityCacheStore create (Class<?> entityClass, String region, EntityCache config);
+}
@@ -0,0 +1,49 @@
+package io.github.opensabe.jdbc.core.cache;
+
+import org.springframework.core.annotation.AnnotatedElementUtils;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 带{@link EntityCache}的实体对应的{@link RepositoryCache}
+ * @author heng.ma
+ */
+public class EntityCaches {
+
+    private final Map<Class<?>, Optional<RepositoryCache>> caches = new ConcurrentHashMap<>();
+
+    private EntityCacheStoreFactory storeFactory = (entityClass, region, config) ->
+            new LocalEntityCacheStore(config.maxSize(), Duration.ofSeconds(config.ttlSeconds()));
+
+    /**
+     * @return 实体没有{@link EntityCache}时返回null
+     */
+    public RepositoryCache forEntity (Class<?> entityClass) {
+        return caches.computeIfAbsent(entityClass, c -> Optional
+                .ofNullable(AnnotatedElementUtils.findMergedAnnotation(c, EntityCache.class))
+                .map(config -> new RepositoryCache(
+                        storeFactory.create(c, EntityCacheStoreFactory.ID, config),
+                        storeFactory.create(c, EntityCacheStoreFactory.QUERY, config))))
+                .orElse(null);
+    }
+
+    /**
+     * 各实体的命中、未命中、淘汰统计，key为 实体类名.区域
+     */
+    public Map<String, EntityCacheStore.Statistics> statistics () {
+        Map<String, EntityCacheStore.Statistics> statistics = new LinkedHashMap<>();
+        caches.forEach((c, cache) -> cache.ifPresent(r -> {
+            statistics.put(c.getName() + "." + EntityCacheStoreFactory.ID, r.idStatistics());
+            statistics.put(c.getName() + "." + EntityCacheStoreFactory.QUERY, r.queryStatistics());
+        }));
+        return statistics;
+    }
+
+    public void setStoreFactory(EntityCacheStoreFactory storeFactory) {
+        this.storeFactory = storeFactory;
+    }
+}
@@ -0,0 +1,123 @@
+package io.github.opensabe.jdbc.core.cache;
+
+import org.springframework.util.Assert;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 按容量和过期时间淘汰的本地缓存。key按hash分到多个段，每段一个按访问顺序排列的LinkedHashMap，各自加锁，
+ * 段满时淘汰最久没有访问的条目，过期的条目在读取时移除
+ * @author heng.ma
+ */
+public class LocalEntityCacheStore implements EntityCacheStore {
+
+    private static final int MAX_SEGMENTS = 16;
+
+    private final Segment[] segments;
+
+    private final long ttl;
+
+    private final LongAdder hits = new LongAdder();
+
+    private final LongAdder misses = new LongAdder();
+
+    private final LongAdder evictions = new LongAdder();
+
+    public LocalEntityCacheStore(int maxSize, Duration ttl) {
+        Assert.isTrue(maxSize > 0, "maxSize must be positive");
+        Assert.isTrue(!ttl.isNegative() && !ttl.isZero(), "ttl must be positive");
+        this.ttl = ttl.toNanos();
+        int count = Math.min(MAX_SEGMENTS, Integer.highestOneBit(maxSize));
+        this.segments = new Segment[count];
+        for (int i = 0; i < count; i++) {
+            segments[i] = new Segment((maxSize + count - 1) / count);
+        }
+    }
+
+    private Segment segment (Object key) {
+        int h = key.hashCode();
+        return segments[(h ^ (h >>> 16)) & (segments.length - 1)];
+    }
+
+    @Override
+    public Object get(Object key) {
+        Segment segment = segment(key);
+        Object value;
+        synchronized (segment) {
+            Entry entry = segment.get(key);
+            if (entry != null && entry.expireAt - System.nanoTime() <= 0) {
+                segment.remove(key);
+                evictions.increment();
+                entry = null;
+            }
+            value = entry == null ? null : entry.value;
+        }
+        if (value == null) {
+            misses.increment();
+        }else {
+            hits.increment();
+        }
+        return value;
+    }
+
+    @Override
+    public void put(Object key, Object value) {
+        Segment segment = segment(key);
+        synchronized (segment) {
+            segment.put(key, new Entry(value, System.nanoTime() + ttl));
+        }
+    }
+
+    @Override
+    public void evict(Object key) {
+        Segment segment = segment(key);
+        synchronized (segment) {
+            segment.remove(key);
+        }
+    }
+
+    @Override
+    public void clear() {
+        for (Segment segment : segments) {
+            synchronized (segment) {
+                segment.clear();
+            }
+        }
+    }
+
+    @Override
+    public Statistics statistics() {
+        long size = 0;
+        for (Segment segment : segments) {
+            synchronized (segment) {
+                size += segment.size();
+            }
+        }
+        return new Statistics(hits.sum(), misses.sum(), evictions.sum(), size);
+    }
+
+    private record Entry(Object value, long expireAt) {
+    }
+
+    private class Segment extends LinkedHashMap<Object, Entry> {
+
+        private final int capacity;
+
+        private Segment(int capacity) {
+            super(16, 0.75f, true);
+            this.capacity = capacity;
+        }
+
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Object, Entry> eldest) {
+            if (size() > capacity) {
+                evictions.increment();
+                return true;
+            }
+            return false;
+        }
+    }
+}
@@ -0,0 +1,115 @@
+package io.github.opensabe.jdbc.core.cache;
+
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * 一个实体的主键缓存和条件查询缓存。
+ * 事务中不读也不写缓存，避免其他线程读到未提交的数据；事务中的写操作除了立即失效，事务结束以后再失效一次，
+ * 防止提交前其他线程把旧值重新放进缓存。
+ * 每次失效递增版本号，查询开始以后发生过失效的结果不放进缓存
+ * @author heng.ma
+ */
+public class RepositoryCache {
+
+    private final EntityCacheStore ids;
+
+    private final EntityCacheStore queries;
+
+    private final AtomicLong version = new AtomicLong();
+
+    public RepositoryCache(EntityCacheStore ids, EntityCacheStore queries) {
+        this.ids = ids;
+        this.queries = queries;
+    }
+
+    /**
+     * loader返回null时不缓存
+     */
+    @SuppressWarnings("unchecked")
+    public <V> V getById (Object id, Supplier<V> loader) {
+        return (V) get(ids, id, loader);
+    }
+
+    /**
+     * @param key 需要实现equals/hashCode，包含查询条件、排序、条数等所有影响结果的内容
+     */
+    @SuppressWarnings("unchecked")
+    public <V> V getByQuery (Object key, Supplier<V> loader) {
+        return (V) get(queries, key, loader);
+    }
+
+    private Object get (EntityCacheStore store, Object key, Supplier<?> loader) {
+        if (TransactionSynchronizationManager.isActualTransactionActive()) {
+            return loader.get();
+        }
+        Object value = store.get(key);
+        if (value == null) {
+            long stamp = version.get();
+            value = loader.get();
+            if (value != null && version.get() == stamp) {
+                store.put(key, value);
+                //检查和put之间发生了失效，失效的clear可能在put之前执行，这里补一次
+                if (version.get() != stamp) {
+                    store.evict(key);
+                }
+            }
+        }
+        return value;
+    }
+
+    /**
+     * insert以后，主键缓存不受影响（不缓存不存在的主键）
+     */
+    public void invalidateQueries () {
+        invalidate(queries::clear);
+    }
+
+    /**
+     * 按主键更新、删除以后
+     */
+    public void invalidate (Iterable<?> keys) {
+        invalidate(() -> {
+            keys.forEach(ids::evict);
+            queries.clear();
+        });
+    }
+
+    /**
+     * 按条件更新、删除以后，不知道影响了哪些主键
+     */
+    public void invalidateAll () {
+        invalidate(() -> {
+            ids.clear();
+            queries.clear();
+        });
+    }
+
+    private void invalidate (Runnable invalidation) {
+        Runnable stamped = () -> {
+            //先递增版本再清除，进行中的查询要么看到新版本不放入，要么放入以后被清除
+            version.incrementAndGet();
+            invalidation.run();
+        };
+        stamped.run();
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    stamped.run();
+                }
+            });
+        }
+    }
+
+    public EntityCacheStore.Statistics idStatistics () {
+        return ids.statistics();
+    }
+
+    public EntityCacheStore.Statistics queryStatistics () {
+        return queries.statistics();
+    }
+}
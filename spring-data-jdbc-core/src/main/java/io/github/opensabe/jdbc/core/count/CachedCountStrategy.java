@@ -0,0 +1,79 @@
+package io.github.opensabe.jdbc.core.count;
+
+import org.springframework.jdbc.core.namedparam.SqlParameterSource;
+import org.springframework.util.Assert;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 按数据源、sql和参数缓存count结果，过期后重新执行count(*)。
+ * 缓存满时先清理过期的结果，仍然满则全部清空
+ * @author heng.ma
+ */
+public class CachedCountStrategy implements CountStrategy {
+
+    private final long ttl;
+
+    private final int maxSize;
+
+    private final Map<Key, Entry> cache = new ConcurrentHashMap<>();
+
+    public CachedCountStrategy(Duration ttl, int maxSize) {
+        Assert.isTrue(!ttl.isNegative() && !ttl.isZero(), "ttl must be positive");
+        Assert.isTrue(maxSize > 0, "maxSize must be positive");
+        this.ttl = ttl.toNanos();
+        this.maxSize = maxSize;
+    }
+
+    @Override
+    public long count(CountQuery query) {
+        Key key = new Key(query.operations(), query.sql(), values(query.parameters()));
+        long now = System.nanoTime();
+        Entry entry = cache.get(key);
+        if (entry != null && entry.expireAt - now > 0) {
+            return entry.count;
+        }
+        long count = query.exact();
+        if (cache.size() >= maxSize) {
+            cache.values().removeIf(e -> e.expireAt - now <= 0);
+            if (cache.size() >= maxSize) {
+                cache.clear();
+            }
+        }
+        cache.put(key, new Entry(count, now + ttl));
+        return count;
+    }
+
+    /**
+     * 清空缓存，数据大量变化后可以主动调用
+     */
+    public void clear () {
+        cache.clear();
+    }
+
+    /**
+     * 数组参数转换成List，保证相同的参数得到相同的key
+     */
+    private static Map<String, Object> values (SqlParameterSource parameters) {
+        String[] names = parameters.getParameterNames();
+        if (names == null) {
+            return Map.of();
+        }
+        Map<String, Object> values = new HashMap<>(names.length);
+        for (String name : names) {
+            Object value = parameters.getValue(name);
+            values.put(name, value instanceof Object[] array ? Arrays.asList(array) : value);
+        }
+        return values;
+    }
+
+    private record Key(Object operations, String sql, Map<String, Object> values) {
+    }
+
+    private record Entry(long count, long expireAt) {
+    }
+}
@@ -0,0 +1,24 @@
+package io.github.opensabe.jdbc.core.count;
+
+/**
+ * 分页查询总数的计算方式
+ * @author heng.ma
+ */
+public enum CountMode {
+    /**
+     * 使用全局配置
+     */
+    DEFAULT,
+    /**
+     * 每次执行count(*)
+     */
+    EXACT,
+    /**
+     * 相同sql和参数的count结果缓存一段时间
+     */
+    CACHED,
+    /**
+     * 预估行数超过阈值时直接使用预估值，否则执行count(*)
+     */
+    ESTIMATED
+}
@@ -0,0 +1,25 @@
+package io.github.opensabe.jdbc.core.count;
+
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcOperations;
+import org.springframework.jdbc.core.namedparam.SqlParameterSource;
+import org.springframework.lang.Nullable;
+
+import java.util.Optional;
+
+/**
+ * 一次分页查询的count
+ * @param operations 执行count的数据源
+ * @param sql        count语句
+ * @param parameters count语句的参数
+ * @param table      查询的表，无法确定时为null
+ * @author heng.ma
+ */
+public record CountQuery(NamedParameterJdbcOperations operations, String sql, SqlParameterSource parameters, @Nullable String table) {
+
+    /**
+     * 执行count语句
+     */
+    public long exact () {
+        return Optional.ofNullable(operations.queryForObject(sql, parameters, Long.class)).orElse(0L);
+    }
+}
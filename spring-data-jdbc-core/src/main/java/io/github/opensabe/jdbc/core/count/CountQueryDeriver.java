@@ -0,0 +1,358 @@
+package io.github.opensabe.jdbc.core.count;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.function.BiPredicate;
+
+/**
+ * 由分页查询的sql推导count语句。先把sql切分成token（字符串、注释、括号内的子查询不会被误判），只分析最外层的子句：
+ * <ul>
+ *     <li>去掉ORDER BY</li>
+ *     <li>包含DISTINCT、GROUP BY、HAVING、UNION、LIMIT、WITH时，整体作为子查询再count。
+ *     DISTINCT不改写成count(distinct ...)，因为后者会跳过含有NULL的行，多个字段时H2、Postgres也不支持</li>
+ *     <li>去掉其他地方没有引用、并且ON条件是被关联表唯一键等值连接的LEFT JOIN，这种关联不会改变行数。
+ *     WHERE以及其他关联的ON条件中有不带表名的字段时，无法判断是否属于被关联表，不去掉</li>
+ * </ul>
+ * 其余情况把select列表替换为count(*)
+ * @author heng.ma
+ */
+public class CountQueryDeriver {
+
+    private static final Set<String> JOIN_KEYWORDS = Set.of("join", "left", "right", "inner", "cross", "straight_join", "natural", "full");
+
+    private static final Set<String> JOIN_MODIFIERS = Set.of("left", "right", "inner", "cross", "natural", "full", "outer");
+
+    /**
+     * 条件中可能出现的关键字，其他不带表名的单词都当作字段
+     */
+    private static final Set<String> KEYWORDS = Set.of("and", "or", "not", "xor", "in", "is", "null", "like", "between", "exists",
+            "select", "from", "where", "on", "as", "case", "when", "then", "else", "end", "true", "false", "unknown",
+            "asc", "desc", "distinct", "all", "any", "some", "escape", "interval", "regexp", "rlike", "div", "mod", "binary",
+            "collate", "current_date", "current_time", "current_timestamp", "join", "left", "right", "inner", "outer",
+            "cross", "natural", "full", "straight_join", "using", "order", "by", "for", "update", "share", "group", "having",
+            "limit", "offset", "union", "except", "intersect", "with", "window");
+
+    private static final Set<String> WRAP_KEYWORDS = Set.of("group", "having", "union", "except", "intersect", "limit", "window");
+
+    /**
+     * 判断表的某个字段是否唯一，参数为表名和字段名（都不带引号）
+     */
+    private final BiPredicate<String, String> uniqueKey;
+
+    public CountQueryDeriver(BiPredicate<String, String> uniqueKey) {
+        this.uniqueKey = uniqueKey;
+    }
+
+    public String derive (String sql) {
+        String query = sql.trim();
+        while (query.endsWith(";")) {
+            query = query.substring(0, query.length() - 1).trim();
+        }
+        List<Token> tokens = tokenize(query);
+        List<Token> top = tokens.stream().filter(t -> t.depth == 0 && t.type != Type.COMMENT).toList();
+        if (top.isEmpty() || !top.get(0).is("select")) {
+            return wrap(query);
+        }
+        Token select = top.get(0);
+        Token from = null, orderBy = null, forUpdate = null;
+        boolean distinct = top.size() > 1 && top.get(1).is("distinct");
+        boolean wrap = false;
+        for (int i = 1; i < top.size(); i++) {
+            Token token = top.get(i);
+            if (from == null && token.is("from")) {
+                from = token;
+            }else if (token.is("order") && next(top, i).is("by")) {
+                orderBy = token;
+            }else if (token.is("for") && (next(top, i).is("update") || next(top, i).is("share"))) {
+                forUpdate = token;
+            }else if (WRAP_KEYWORDS.contains(token.lower())) {
+                wrap = true;
+            }
+        }
+        int end = query.length();
+        if (orderBy != null && orderBy.start < end) {
+            end = orderBy.start;
+        }
+        if (forUpdate != null && forUpdate.start < end) {
+            end = forUpdate.start;
+        }
+        if (from == null) {
+            return wrap(query);
+        }
+        if (wrap) {
+            //LIMIT依赖ORDER BY，不能去掉
+            return top.stream().anyMatch(t -> t.is("limit")) ? wrap(query) : wrap(query.substring(0, end).trim());
+        }
+        if (distinct) {
+            return wrap(query.substring(0, end).trim());
+        }
+        String prefix = query.substring(0, select.start);
+        return prefix + "select count(*) " + pruneLeftJoins(query, tokens, from, end).trim();
+    }
+
+    private static String wrap (String query) {
+        return "select count(*) from (" + query + ") count_query_";
+    }
+
+    /**
+     * 去掉FROM子句中可以去掉的LEFT JOIN
+     */
+    private String pruneLeftJoins (String query, List<Token> tokens, Token from, int end) {
+        List<Token> region = new ArrayList<>();
+        for (Token token : tokens) {
+            if (token.start < from.start || token.start >= end) {
+                continue;
+            }
+            if (token.depth == 0 && token != from && !region.isEmpty() && (token.is("where") || token.is("group"))) {
+                break;
+            }
+            region.add(token);
+        }
+        int regionEnd = region.isEmpty() ? end : region.get(region.size() - 1).end;
+        StringBuilder builder = new StringBuilder();
+        int position = from.start;
+        for (int i = 0; i < region.size(); i++) {
+            Token token = region.get(i);
+            if (token.depth != 0 || !token.is("left")) {
+                continue;
+            }
+            int segmentEnd = segmentEnd(region, i);
+            List<Token> segment = region.subList(i, segmentEnd);
+            int start = token.start;
+            while (start > position && Character.isWhitespace(query.charAt(start - 1))) {
+                start--;
+            }
+            int stop = segmentEnd < region.size() ? region.get(segmentEnd).start : regionEnd;
+            if (removable(segment, tokens, from.start, start, stop) && qualified(query, tokens, region, start, stop, end)) {
+                builder.append(query, position, start);
+                position = stop;
+            }
+            i = segmentEnd - 1;
+        }
+        builder.append(query, position, end);
+        return builder.toString();
+    }
+
+    private static int segmentEnd (List<Token> region, int start) {
+        Token previous = region.get(start);
+        for (int i = start + 1; i < region.size(); i++) {
+            Token token = region.get(i);
+            if (token.depth != 0 || token.type == Type.COMMENT) {
+                continue;
+            }
+            if (token.is(",") || (JOIN_KEYWORDS.contains(token.lower()) && !JOIN_MODIFIERS.contains(previous.lower()))) {
+                return i;
+            }
+            previous = token;
+        }
+        return region.size();
+    }
+
+    /**
+     * 形如 LEFT [OUTER] JOIN table [AS] alias ON alias.key = x.col，并且alias在其他地方没有出现
+     */
+    private boolean removable (List<Token> segment, List<Token> tokens, int from, int start, int stop) {
+        List<Token> top = segment.stream().filter(t -> t.depth == 0 && t.type != Type.COMMENT).toList();
+        int i = 1;
+        if (i < top.size() && top.get(i).is("outer")) {
+            i++;
+        }
+        if (i >= top.size() || !top.get(i).is("join")) {
+            return false;
+        }
+        i++;
+        if (i >= top.size() || top.get(i).type != Type.WORD) {
+            return false;
+        }
+        String table = unquote(top.get(i).text);
+        int dot = table.lastIndexOf('.');
+        table = dot < 0 ? table : table.substring(dot + 1);
+        String alias = table;
+        i++;
+        if (i < top.size() && top.get(i).is("as")) {
+            i++;
+        }
+        if (i < top.size() && top.get(i).type == Type.WORD && !top.get(i).is("on")) {
+            alias = unquote(top.get(i).text);
+            i++;
+        }
+        if (top.size() != i + 4 || !top.get(i).is("on") || !top.get(i + 2).is("=")) {
+            return false;
+        }
+        String left = unquote(top.get(i + 1).text), right = unquote(top.get(i + 3).text);
+        String prefix = alias.toLowerCase(Locale.ROOT) + ".";
+        String column;
+        //另一边也必须带表名，不带表名时可能是被关联表自己的字段
+        if (left.indexOf('.') < 0 || right.indexOf('.') < 0) {
+            return false;
+        }
+        if (left.toLowerCase(Locale.ROOT).startsWith(prefix) && !right.toLowerCase(Locale.ROOT).startsWith(prefix)) {
+            column = left.substring(prefix.length());
+        }else if (right.toLowerCase(Locale.ROOT).startsWith(prefix) && !left.toLowerCase(Locale.ROOT).startsWith(prefix)) {
+            column = right.substring(prefix.length());
+        }else {
+            return false;
+        }
+        if (!uniqueKey.test(table, column)) {
+            return false;
+        }
+        for (Token token : tokens) {
+            //select列表会被替换成count(*)
+            if (token.start < from || token.start >= start && token.start < stop) {
+                continue;
+            }
+            if (token.type == Type.WORD && unquote(token.text).toLowerCase(Locale.ROOT).startsWith(prefix)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * 除了要去掉的关联以外，WHERE及之后的部分、其他关联的ON条件中的字段都带有表名或者别名。
+     * 不带表名的字段可能属于被关联表，这时不能去掉
+     */
+    private static boolean qualified (String query, List<Token> tokens, List<Token> region, int start, int stop, int end) {
+        int regionEnd = region.isEmpty() ? -1 : region.get(region.size() - 1).end;
+        boolean on = false;
+        for (int i = 0; i < tokens.size(); i++) {
+            Token token = tokens.get(i);
+            if (token.start < region.get(0).start || token.start >= end || token.start >= start && token.start < stop) {
+                continue;
+            }
+            if (token.start < regionEnd) {
+                //FROM子句中只检查ON条件，表名和别名不算字段
+                if (token.depth == 0 && (token.is(",") || JOIN_KEYWORDS.contains(token.lower()))) {
+                    on = false;
+                }else if (token.depth == 0 && token.is("on")) {
+                    on = true;
+                    continue;
+                }
+                if (!on) {
+                    continue;
+                }
+            }
+            if (unqualifiedColumn(token, next(tokens, i))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean unqualifiedColumn (Token token, Token next) {
+        if (token.type != Type.WORD || token.text.startsWith(":") || next.is("(")) {
+            return false;
+        }
+        String text = unquote(token.text);
+        if (text.indexOf('.') >= 0 || Character.isDigit(text.charAt(0))) {
+            return false;
+        }
+        return token.text.startsWith("`") || token.text.startsWith("\"") || !KEYWORDS.contains(token.lower());
+    }
+
+    private static String unquote (String text) {
+        return text.replace("`", "").replace("\"", "");
+    }
+
+    private static Token next (List<Token> tokens, int i) {
+        return i + 1 < tokens.size() ? tokens.get(i + 1) : Token.NONE;
+    }
+
+    static List<Token> tokenize (String sql) {
+        List<Token> tokens = new ArrayList<>();
+        int depth = 0;
+        int length = sql.length();
+        int i = 0;
+        while (i < length) {
+            char c = sql.charAt(i);
+            int start = i;
+            if (Character.isWhitespace(c)) {
+                i++;
+                continue;
+            }
+            if (c == '-' && i + 1 < length && sql.charAt(i + 1) == '-' || c == '#') {
+                while (i < length && sql.charAt(i) != '\n') {
+                    i++;
+                }
+                tokens.add(new Token(sql.substring(start, i), start, i, depth, Type.COMMENT));
+            }else if (c == '/' && i + 1 < length && sql.charAt(i + 1) == '*') {
+                int close = sql.indexOf("*/", i + 2);
+                i = close < 0 ? length : close + 2;
+                tokens.add(new Token(sql.substring(start, i), start, i, depth, Type.COMMENT));
+            }else if (c == '\'' || c == '"') {
+                i = skipQuoted(sql, i, c);
+                tokens.add(new Token(sql.substring(start, i), start, i, depth, c == '"' ? Type.WORD : Type.STRING));
+            }else if (c == '(') {
+                tokens.add(new Token("(", start, ++i, depth++, Type.OPEN));
+            }else if (c == ')') {
+                depth = Math.max(0, depth - 1);
+                tokens.add(new Token(")", start, ++i, depth, Type.CLOSE));
+            }else if (isWordPart(c) || c == '`' || (c == ':' && i + 1 < length && isWordPart(sql.charAt(i + 1)))) {
+                i++;
+                while (i < length) {
+                    char n = sql.charAt(i);
+                    if (n == '`') {
+                        i = skipQuoted(sql, i, '`');
+                    }else if (isWordPart(n) || n == '.' || (n == '*' && sql.charAt(i - 1) == '.')) {
+                        i++;
+                    }else {
+                        break;
+                    }
+                }
+                if (c == '`' && start + 1 == i) {
+                    i = skipQuoted(sql, start, '`');
+                }
+                tokens.add(new Token(sql.substring(start, i), start, i, depth, Type.WORD));
+            }else {
+                tokens.add(new Token(String.valueOf(c), start, ++i, depth, Type.PUNCT));
+            }
+        }
+        return tokens;
+    }
+
+    private static boolean isWordPart (char c) {
+        return Character.isLetterOrDigit(c) || c == '_' || c == '$';
+    }
+
+    /**
+     * 跳过引号包围的内容，支持连续两个引号和反斜杠转义
+     * @return 结束引号之后的位置
+     */
+    private static int skipQuoted (String sql, int start, char quote) {
+        int i = start + 1;
+        while (i < sql.length()) {
+            char c = sql.charAt(i);
+            if (c == '\\' && quote != '`') {
+                i += 2;
+            }else if (c == quote) {
+                if (i + 1 < sql.length() && sql.charAt(i + 1) == quote) {
+                    i += 2;
+                }else {
+                    return i + 1;
+                }
+            }else {
+                i++;
+            }
+        }
+        return sql.length();
+    }
+
+    enum Type {
+        WORD, STRING, COMMENT, OPEN, CLOSE, PUNCT
+    }
+
+    record Token(String text, int start, int end, int depth, Type type) {
+
+        static final Token NONE = new Token("", -1, -1, -1, Type.PUNCT);
+
+        boolean is (String keyword) {
+            return text.equalsIgnoreCase(keyword);
+        }
+
+        String lower () {
+            return text.toLowerCase(Locale.ROOT);
+        }
+    }
+}
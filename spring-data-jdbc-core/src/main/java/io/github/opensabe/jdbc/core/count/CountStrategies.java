@@ -0,0 +1,85 @@
+package io.github.opensabe.jdbc.core.count;
+
+import org.springframework.util.Assert;
+
+import java.time.Duration;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.function.Supplier;
+
+/**
+ * 各个{@link CountMode}对应的策略，以及当前调用使用的模式。
+ * 优先级：{@link #with(CountMode, Supplier)} &gt; 方法上的{@link PageCount} &gt; 接口上的{@link PageCount} &gt; 全局配置
+ * @author heng.ma
+ */
+public class CountStrategies {
+
+    private static final ThreadLocal<CountMode> MODE_HOLDER = new ThreadLocal<>();
+
+    private final Map<CountMode, CountStrategy> strategies = new EnumMap<>(CountMode.class);
+
+    private CountMode defaultMode = CountMode.EXACT;
+
+    /**
+     * 默认的ESTIMATED不知道数据库方言，总是执行count(*)，需要预估时通过{@link #setStrategy(CountMode, CountStrategy)}指定方言
+     */
+    public CountStrategies() {
+        strategies.put(CountMode.EXACT, new ExactCountStrategy());
+        strategies.put(CountMode.CACHED, new CachedCountStrategy(Duration.ofMinutes(1), 1024));
+        strategies.put(CountMode.ESTIMATED, new EstimatedCountStrategy(100_000, null));
+    }
+
+    /**
+     * 在supplier中执行的分页查询使用指定的count方式
+     */
+    public static <R> R with (CountMode mode, Supplier<R> supplier) {
+        CountMode previous = MODE_HOLDER.get();
+        MODE_HOLDER.set(mode);
+        try {
+            return supplier.get();
+        }finally {
+            restore(previous);
+        }
+    }
+
+    static CountMode getMode () {
+        return MODE_HOLDER.get();
+    }
+
+    static void setMode (CountMode mode) {
+        MODE_HOLDER.set(mode);
+    }
+
+    static void restore (CountMode previous) {
+        if (previous == null) {
+            MODE_HOLDER.remove();
+        }else {
+            MODE_HOLDER.set(previous);
+        }
+    }
+
+    /**
+     * 当前调用的count方式
+     */
+    public CountMode currentMode () {
+        CountMode mode = MODE_HOLDER.get();
+        return mode == null || mode == CountMode.DEFAULT ? defaultMode : mode;
+    }
+
+    /**
+     * 当前调用的count策略
+     */
+    public CountStrategy current () {
+        return strategies.get(currentMode());
+    }
+
+    public void setStrategy (CountMode mode, CountStrategy strategy) {
+        Assert.isTrue(mode != CountMode.DEFAULT, "DEFAULT is not a strategy");
+        strategies.put(mode, strategy);
+    }
+
+    public void setDefaultMode(CountMode defaultMode) {
+        Assert.isTrue(defaultMode != CountMode.DEFAULT, "default mode can not be DEFAULT");
+        this.defaultMode = defaultMode;
+    }
+}
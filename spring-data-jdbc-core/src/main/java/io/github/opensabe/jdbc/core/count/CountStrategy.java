@@ -0,0 +1,11 @@
+package io.github.opensabe.jdbc.core.count;
+
+/**
+ * 分页查询总数的计算策略
+ * @author heng.ma
+ */
+@FunctionalInterface
+public interface CountStrategy {
+
+    long count (CountQuery query);
+}
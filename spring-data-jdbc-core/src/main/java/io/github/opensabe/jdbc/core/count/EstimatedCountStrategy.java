@@ -0,0 +1,72 @@
+package io.github.opensabe.jdbc.core.count;
+
+import org.springframework.dao.DataAccessException;
+import org.springframework.data.relational.core.dialect.Dialect;
+import org.springframework.data.relational.core.dialect.MySqlDialect;
+import org.springframework.lang.Nullable;
+import org.springframework.util.StringUtils;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 通过MySQL的执行计划预估行数：有过滤条件时取EXPLAIN的rows * filtered，
+ * 没有过滤条件（执行计划中没有rows）时取information_schema.TABLES.TABLE_ROWS。
+ * 预估值不小于阈值时直接返回预估值，否则或者无法预估时执行count(*)，小结果集的总数总是准确的。
+ * 只在MySQL/MariaDB上预估，其他数据库直接执行count(*)：预估的sql在调用方的事务中执行，
+ * 像PostgreSQL这样语句失败后整个事务都不可用的数据库不能先试再回退
+ * @author heng.ma
+ */
+public class EstimatedCountStrategy implements CountStrategy {
+
+    private static final String TABLE_ROWS = "select table_rows from information_schema.tables where table_schema = database() and table_name = :table";
+
+    private final long threshold;
+
+    private final boolean supported;
+
+    /**
+     * @param dialect 数据源的方言，为null或者不是MySQL/MariaDB时总是执行count(*)
+     */
+    public EstimatedCountStrategy(long threshold, @Nullable Dialect dialect) {
+        this.threshold = threshold;
+        this.supported = dialect instanceof MySqlDialect;
+    }
+
+    @Override
+    public long count(CountQuery query) {
+        if (!supported) {
+            return query.exact();
+        }
+        long estimate = estimate(query);
+        return estimate >= threshold ? estimate : query.exact();
+    }
+
+    /**
+     * @return 预估的行数，无法预估时返回-1
+     */
+    protected long estimate (CountQuery query) {
+        try {
+            List<Map<String, Object>> plan = query.operations().queryForList("explain " + query.sql(), query.parameters());
+            double rows = 1;
+            boolean estimated = false;
+            for (Map<String, Object> step : plan) {
+                if (step.get("rows") instanceof Number r) {
+                    double filtered = step.get("filtered") instanceof Number f ? f.doubleValue() : 100;
+                    rows *= r.doubleValue() * filtered / 100;
+                    estimated = true;
+                }
+            }
+            if (estimated) {
+                return (long) rows;
+            }
+            if (StringUtils.hasText(query.table())) {
+                Long tableRows = query.operations().queryForObject(TABLE_ROWS, Map.of("table", query.table()), Long.class);
+                return tableRows == null ? -1 : tableRows;
+            }
+        } catch (DataAccessException e) {
+            //没有权限，执行count(*)
+        }
+        return -1;
+    }
+}
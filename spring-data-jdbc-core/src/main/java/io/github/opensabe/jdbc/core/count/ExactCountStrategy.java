@@ -0,0 +1,13 @@
+package io.github.opensabe.jdbc.core.count;
+
+/**
+ * 每次执行count(*)
+ * @author heng.ma
+ */
+public class ExactCountStrategy implements CountStrategy {
+
+    @Override
+    public long count(CountQuery query) {
+        return query.exact();
+    }
+}
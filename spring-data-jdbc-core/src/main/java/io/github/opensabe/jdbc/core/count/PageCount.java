@@ -0,0 +1,23 @@
+package io.github.opensabe.jdbc.core.count;
+
+import java.lang.annotation.*;
+
+/**
+ * 在repository接口或者方法上指定分页查询总数的计算方式，方法上的优先，
+ * 单次调用可以通过{@link CountStrategies#with(CountMode, java.util.function.Supplier)}覆盖。
+ * 返回Page的@Query方法可以通过{@link #query()}指定count语句，不指定时由{@link CountQueryDeriver}推导
+ * @author heng.ma
+ */
+@Inherited
+@Documented
+@Retention(RetentionPolicy.RUNTIME)
+@Target({ElementType.TYPE, ElementType.METHOD})
+public @interface PageCount {
+
+    CountMode value() default CountMode.DEFAULT;
+
+    /**
+     * count语句，参数跟@Query的相同，只对返回Page的@Query方法有效
+     */
+    String query() default "";
+}
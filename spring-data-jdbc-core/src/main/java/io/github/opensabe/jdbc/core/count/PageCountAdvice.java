@@ -0,0 +1,49 @@
+package io.github.opensabe.jdbc.core.count;
+
+import org.aopalliance.intercept.MethodInterceptor;
+import org.aopalliance.intercept.MethodInvocation;
+import org.springframework.core.annotation.AnnotatedElementUtils;
+
+import java.lang.reflect.AnnotatedElement;
+import java.lang.reflect.Method;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Repository的切面，按方法或者接口上的{@link PageCount}设置当前调用的count方式，已经通过{@link CountStrategies#with}指定时不覆盖
+ * @author heng.ma
+ */
+public class PageCountAdvice implements MethodInterceptor {
+
+    private final Class<?> repositoryInterface;
+
+    private final Map<Method, Optional<CountMode>> cache = new ConcurrentHashMap<>();
+
+    public PageCountAdvice(Class<?> repositoryInterface) {
+        this.repositoryInterface = repositoryInterface;
+    }
+
+    @Override
+    public Object invoke(MethodInvocation invocation) throws Throwable {
+        if (CountStrategies.getMode() != null) {
+            return invocation.proceed();
+        }
+        Optional<CountMode> mode = cache.computeIfAbsent(invocation.getMethod(), method -> mode(method).or(() -> mode(repositoryInterface)));
+        if (mode.isEmpty()) {
+            return invocation.proceed();
+        }
+        CountStrategies.setMode(mode.get());
+        try {
+            return invocation.proceed();
+        }finally {
+            CountStrategies.restore(null);
+        }
+    }
+
+    private static Optional<CountMode> mode (AnnotatedElement element) {
+        return Optional.ofNullable(AnnotatedElementUtils.findMergedAnnotation(element, PageCount.class))
+                .map(PageCount::value)
+                .filter(m -> m != CountMode.DEFAULT);
+    }
+}
@@ -2,10 +2,14 @@ package io.github.opensabe.jdbc.core.executor;
 
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.ScrollPosition;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.domain.Window;
 import org.springframework.data.relational.core.query.Query;
 
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 public interface AssignmentJdbcOperation {
 
@@ -14,8 +18,21 @@ public interface AssignmentJdbcOperation {
 
     <T> List<T> findAll (Query query, Class<T> entityClass, String table);
 
+    <T> Stream<T> streamAll (Query query, Class<T> entityClass, String table);
+
+    <T> Window<T> findAfter (Query query, Sort sort, ScrollPosition position, int limit, Class<T> entityClass, String table);
+
     <T> Page<T> findAll (Query query, Pageable pageable, Class<T> entityClass, String table);
 
+    /**
+     * @see CriteriaJdbcOperation#findAll(Query, Class, Class)
+     */
+    <T, P> Optional<P> findOne (Query query, Class<T> entityClass, Class<P> projection, String table);
+
+    <T, P> List<P> findAll (Query query, Class<T> entityClass, Class<P> projection, String table);
+
+    <T, P> Page<P> findAll (Query query, Pageable pageable, Class<T> entityClass, Class<P> projection, String table);
+
     <T> long count (Query query, Class<T> entityClass, String table);
 
     <T>  boolean exists (Query query, Class<T> entityClass, String table);
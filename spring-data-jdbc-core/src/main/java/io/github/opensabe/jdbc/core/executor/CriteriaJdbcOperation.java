@@ -1,11 +1,21 @@
 package io.github.opensabe.jdbc.core.executor;
 
+import io.github.opensabe.jdbc.core.InsertMode;
+import io.github.opensabe.jdbc.core.aggregate.Aggregation;
+import io.github.opensabe.jdbc.core.lambda.QueryTemplate;
+import io.github.opensabe.jdbc.core.lambda.UpdateAssignment;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.ScrollPosition;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.domain.Window;
 import org.springframework.data.relational.core.query.Query;
 
 import java.util.List;
 import java.util.Optional;
+import java.util.function.Consumer;
+import java.util.function.LongConsumer;
+import java.util.stream.Stream;
 
 /**
  * @author heng.ma
@@ -14,14 +24,49 @@ public interface CriteriaJdbcOperation {
 
     <T> int insertSelective (T entity, Class<T> entityClass);
 
+    /**
+     * 按实体上的{@link io.github.opensabe.jdbc.core.InsertStrategy}或者全局配置选择执行方式
+     */
     <T> long insertList (Iterable<T> entities, Class<T> entityClass);
 
+    <T> long insertList (Iterable<T> entities, Class<T> entityClass, InsertMode mode);
+
+    /**
+     * 每个实体只插入非空字段，非空字段相同的实体作为一组，每组预编译一次，通过addBatch/executeBatch执行
+     */
+    <T> long insertSelectiveList (Iterable<T> entities, Class<T> entityClass);
+
     <T> int updateByIdSelective (T entity, Class<T> entityClass);
 
+    /**
+     * 非空字段相同的实体作为一组，每组渲染一次sql，通过addBatch/executeBatch执行
+     * @return 每个实体对应的影响行数，分组执行以后按原来的下标写回，顺序跟参数一致，没有非空字段的实体为0。
+     * 驱动不返回单条的影响行数时对应位置为{@link java.sql.Statement#SUCCESS_NO_INFO}（-2），只表示执行成功，不能区分是否更新到了数据；
+     * MySQL的rewriteBatchedStatements只对insert这样返回，update改写成多语句以后仍然返回每条的影响行数
+     */
+    <T> int[] updateByIdSelective (Iterable<T> entities, Class<T> entityClass);
+
     <T> long updateSelective (T updater, Query query, Class<T> entityClass);
 
+    /**
+     * updater的非空字段直接赋值，assignments基于字段当前值赋值（自增、取较大/较小值、引用其他字段），在一条update中原子完成
+     * @param updater 可以为null，只执行assignments
+     */
+    <T> long updateSelective (T updater, Query query, List<UpdateAssignment> assignments, Class<T> entityClass);
+
     <T> long deleteAll (Query query, Class<T> entityClass);
 
+    /**
+     * 使用游标逐批读取，内存占用跟总行数无关，stream需要在连接可用的范围内消费完，建议try-with-resources
+     */
+    <T> Stream<T> streamAll (Query query, Class<T> entityClass);
+
+    /**
+     * keyset分页，按排序字段加主键的值定位下一页，不需要扫描跳过的行，只支持向后翻页
+     * @param position {@link ScrollPosition#keyset()}表示第一页，之后使用上一页返回的{@link Window#positionAt(int)}
+     */
+    <T> Window<T> findAfter (Query query, Sort sort, ScrollPosition position, int limit, Class<T> entityClass);
+
     /**
      * select limit 1
      */
@@ -31,7 +76,71 @@ public interface CriteriaJdbcOperation {
 
     <T> Page<T> findAll (Query query, Pageable pageable, Class<T> entityClass);
 
+    /**
+     * 查询结果转换为投影类型（接口或者DTO/record），只查询投影需要的字段，字段直接映射到投影，不创建完整的实体
+     */
+    <T, P> Optional<P> findOne (Query query, Class<T> entityClass, Class<P> projection);
+
+    <T, P> List<P> findAll (Query query, Class<T> entityClass, Class<P> projection);
+
+    <T, P> Page<P> findAll (Query query, Pageable pageable, Class<T> entityClass, Class<P> projection);
+
+    /**
+     * 只查询主键，按long读取成数组，主键必须是数字类型
+     */
+    <T> long[] findIds (Query query, Class<T> entityClass);
+
+    <T> void scanIds (Query query, Class<T> entityClass, LongConsumer consumer);
+
+    /**
+     * 只查询一个字段，按字段类型读取以后转换成type，null值保留
+     * @param column 属性名或者字段名
+     */
+    <T, V> List<V> findColumn (Query query, String column, Class<T> entityClass, Class<V> type);
+
+    /**
+     * 只查询一个字段，直接读取成基本类型数组，null值跳过
+     */
+    <T> int[] findIntColumn (Query query, String column, Class<T> entityClass);
+
+    <T> long[] findLongColumn (Query query, String column, Class<T> entityClass);
+
+    <T> double[] findDoubleColumn (Query query, String column, Class<T> entityClass);
+
+    /**
+     * 使用游标逐行读取一个字段交给consumer，不保存结果，适合不限行数的扫描，null值跳过
+     */
+    <T> void scanLongColumn (Query query, String column, Class<T> entityClass, LongConsumer consumer);
+
+    <T, V> void scanColumn (Query query, String column, Class<T> entityClass, Class<V> type, Consumer<? super V> consumer);
+
     <T> long count (Query query, Class<T> entityClass);
 
     <T>  boolean exists (Query query, Class<T> entityClass);
+
+    /**
+     * 执行预编译的查询模板，values按占位符第一次出现的顺序传入
+     */
+    <T> List<T> findAll (QueryTemplate<T> template, Object... values);
+
+    <T> Optional<T> findOne (QueryTemplate<T> template, Object... values);
+
+    <T> long count (QueryTemplate<T> template, Object... values);
+
+    <T> boolean exists (QueryTemplate<T> template, Object... values);
+
+    /**
+     * 执行聚合查询，每行转换成type
+     */
+    <T, R> List<R> aggregate (Aggregation<T> aggregation, Class<R> type);
+
+    /**
+     * 只有一个聚合函数时直接读取成基本类型数组，每行一个值，null写成0
+     */
+    <T> long[] aggregateLongs (Aggregation<T> aggregation);
+
+    /**
+     * 同{@link #aggregateLongs(Aggregation)}，null写成{@link Double#NaN}
+     */
+    <T> double[] aggregateDoubles (Aggregation<T> aggregation);
 }
@@ -1,5 +1,10 @@
 package io.github.opensabe.jdbc.core.executor;
 
+import java.util.Collection;
+import java.util.List;
+import java.util.function.LongConsumer;
+import java.util.stream.Stream;
+
 public interface CustomerJdbcOperation extends CriteriaJdbcOperation, AssignmentJdbcOperation {
 
     int deleteById (Object id, Class<?> entityClass);
@@ -10,4 +15,39 @@ public interface CustomerJdbcOperation extends CriteriaJdbcOperation, Assignment
 
     int deleteAllById (Object[] ids, Class<?> entityClass);
 
+    /**
+     * 查询实体对应的表，in的参数按档位补齐
+     */
+    <T> List<T> findAllById (Iterable<?> ids, Class<T> entityClass);
+
+    /**
+     * 插入，主键冲突时更新，sql由{@link ExtendSQLGeneratorSource}根据数据库方言生成。
+     * 冲突按insert的字段判断，自增主键（不可写的@Id）的实体不支持，抛出UnsupportedOperationException
+     * @param updateProperties 冲突时需要覆盖的属性名，为空时覆盖所有可更新的非主键字段
+     * @return 数据库返回的影响行数，MySQL插入为1，更新为2，没有变化为0
+     */
+    <T> int upsert (T entity, Class<T> entityClass, Collection<String> updateProperties);
+
+    /**
+     * 批量upsert，跟insertList一样按占位符上限拆分成多条。
+     * 主键由调用方提供或者由{@link io.github.opensabe.jdbc.core.id.IdAllocation}分配，不回填数据库生成的key
+     * @see #upsert(Object, Class, Collection)
+     */
+    <T> long upsertList (Iterable<T> entities, Class<T> entityClass, Collection<String> updateProperties);
+
+    /**
+     * 流式插入，每次从stream中取chunkSize条写入，适合从文件导入大量数据，写完后会关闭stream
+     * @param chunkSize      每批的行数，小于等于0时使用{@link ExtendSQLGeneratorSource.Generator#insertListChunkSize()}
+     * @param commitPerChunk true每批单独提交（失败时之前的批次已经提交，可以根据progress续传），false整体一个事务
+     * @param progress       每批写完以后回调已经写入的总行数，可以为null
+     * @return 写入的总行数
+     */
+    <T> long insertStream (Stream<T> entities, Class<T> entityClass, int chunkSize, boolean commitPerChunk, LongConsumer progress);
+
+    /**
+     * 批量导入，MySQL使用LOAD DATA LOCAL INFILE，数据直接从内存流式写给驱动，不生成临时文件，写完后会关闭stream
+     * @return 导入的行数
+     */
+    <T> long loadData (Stream<T> entities, Class<T> entityClass);
+
 }
@@ -1,25 +1,65 @@
 package io.github.opensabe.jdbc.core.executor;
 
+import io.github.opensabe.jdbc.core.count.CountMode;
+import io.github.opensabe.jdbc.core.count.CountQuery;
+import io.github.opensabe.jdbc.core.count.CountStrategies;
+import io.github.opensabe.jdbc.core.count.CountStrategy;
+import io.github.opensabe.jdbc.core.InsertMode;
+import io.github.opensabe.jdbc.core.aggregate.Aggregation;
+import io.github.opensabe.jdbc.core.lambda.QueryTemplate;
+import io.github.opensabe.jdbc.core.lambda.Subquery;
+import io.github.opensabe.jdbc.core.lambda.UpdateAssignment;
 import org.springframework.dao.DataRetrievalFailureException;
 import org.springframework.dao.InvalidDataAccessApiUsageException;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.KeysetScrollPosition;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.ScrollPosition;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.domain.Window;
 import org.springframework.data.jdbc.core.JdbcAggregateTemplate;
 import org.springframework.data.mapping.PersistentPropertyAccessor;
 import org.springframework.data.relational.core.conversion.IdValueSource;
 import org.springframework.data.relational.core.dialect.Dialect;
 import org.springframework.data.relational.core.dialect.IdGeneration;
+import org.springframework.data.relational.core.dialect.MySqlDialect;
 import org.springframework.data.relational.core.mapping.RelationalPersistentProperty;
 import org.springframework.data.relational.core.query.Query;
+import org.springframework.data.relational.core.sql.SqlIdentifier;
 import org.springframework.data.relational.core.sql.IdentifierProcessing;
 import org.springframework.data.support.PageableExecutionUtils;
+import org.springframework.data.util.Lazy;
 import org.springframework.data.util.Pair;
+import org.springframework.jdbc.core.ArgumentPreparedStatementSetter;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.jdbc.core.RowMapper;
 import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
 import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
 import org.springframework.jdbc.support.GeneratedKeyHolder;
 import org.springframework.jdbc.support.KeyHolder;
-
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionOperations;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Consumer;
+import java.util.function.LongConsumer;
+import java.util.function.LongSupplier;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 /**
  * @author heng.ma
@@ -36,12 +76,84 @@ public class CustomerJdbcOperationImpl implements CustomerJdbcOperation {
 
     private final IdentifierProcessing identifierProcessing;
 
+    /**
+     * insertStream整体一个事务时使用，已有事务则加入
+     */
+    private final TransactionOperations streamTransaction;
+
+    /**
+     * insertStream每批单独提交时使用，外层有事务也单独开启新事务
+     */
+    private final TransactionOperations chunkTransaction;
+
+    private final boolean mysql;
+
+    /**
+     * 分页查询并行执行count的线程池，为null时串行
+     */
+    private Executor countExecutor;
+
+    /**
+     * 分页查询的count策略，为null时总是执行count(*)
+     */
+    private CountStrategies countStrategies;
+
+    /**
+     * streamAll使用的fetchSize，0表示按数据库选择：MySQL为Integer.MIN_VALUE（逐行读取），其他为1000
+     */
+    private int streamFetchSize;
+
+    /**
+     * streamAll单独使用一个设置了fetchSize的JdbcTemplate，不影响其他查询
+     */
+    private final Lazy<NamedParameterJdbcTemplate> streamJdbcTemplate = Lazy.of(this::createStreamJdbcTemplate);
+
     public CustomerJdbcOperationImpl(JdbcAggregateTemplate jdbcAggregateTemplate, ExtendSQLGeneratorSource extendSQLGeneratorSource, NamedParameterJdbcTemplate namedParameterJdbcTemplate, Dialect dialect) {
+        this(jdbcAggregateTemplate, extendSQLGeneratorSource, namedParameterJdbcTemplate, dialect, null);
+    }
+
+    public CustomerJdbcOperationImpl(JdbcAggregateTemplate jdbcAggregateTemplate, ExtendSQLGeneratorSource extendSQLGeneratorSource, NamedParameterJdbcTemplate namedParameterJdbcTemplate, Dialect dialect, PlatformTransactionManager transactionManager) {
         this.jdbcAggregateTemplate = jdbcAggregateTemplate;
         this.extendSQLGeneratorSource = extendSQLGeneratorSource;
         this.namedParameterJdbcTemplate = namedParameterJdbcTemplate;
         this.idGeneration = dialect.getIdGeneration();
          identifierProcessing = dialect.getIdentifierProcessing();
+        this.streamTransaction = transactionOperations(transactionManager, TransactionDefinition.PROPAGATION_REQUIRED);
+        this.chunkTransaction = transactionOperations(transactionManager, TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.mysql = dialect instanceof MySqlDialect;
+    }
+
+    /**
+     * 设置以后分页查询的count跟内容并行执行，为null时串行
+     */
+    public void setCountExecutor(Executor countExecutor) {
+        this.countExecutor = countExecutor;
+    }
+
+    public void setCountStrategies(CountStrategies countStrategies) {
+        this.countStrategies = countStrategies;
+    }
+
+    public void setStreamFetchSize(int streamFetchSize) {
+        this.streamFetchSize = streamFetchSize;
+    }
+
+    private NamedParameterJdbcTemplate createStreamJdbcTemplate () {
+        JdbcTemplate source = namedParameterJdbcTemplate.getJdbcTemplate();
+        JdbcTemplate jdbcTemplate = new JdbcTemplate(Objects.requireNonNull(source.getDataSource()));
+        jdbcTemplate.setExceptionTranslator(source.getExceptionTranslator());
+        jdbcTemplate.setQueryTimeout(source.getQueryTimeout());
+        jdbcTemplate.setFetchSize(streamFetchSize != 0 ? streamFetchSize : mysql ? Integer.MIN_VALUE : 1000);
+        return new NamedParameterJdbcTemplate(jdbcTemplate);
+    }
+
+    private static TransactionOperations transactionOperations (PlatformTransactionManager transactionManager, int propagation) {
+        if (transactionManager == null) {
+            return TransactionOperations.withoutTransaction();
+        }
+        TransactionTemplate template = new TransactionTemplate(transactionManager);
+        template.setPropagationBehavior(propagation);
+        return template;
     }
 
 
@@ -76,33 +188,211 @@ public class CustomerJdbcOperationImpl implements CustomerJdbcOperation {
     @Override
     public <T> long insertList(Iterable<T> entities, Class<T> entityClass) {
         var generator = extendSQLGeneratorSource.simpleSqlGenerator(entityClass);
-        Collection<T> collection;
-        if (entities instanceof Collection<T> c) {
-            collection = c;
-        }else {
-            collection = new ArrayList<>();
-            entities.forEach(collection::add);
+        return insertList(entities, entityClass, generator.getInsertMode());
+    }
+
+    /**
+     * VALUES模式按{@link ExtendSQLGeneratorSource.Generator#insertListChunkSize()}拆分成多条insert，避免超过占位符上限和max_allowed_packet；
+     * BATCH模式预编译一条单行insert，按{@link ExtendSQLGeneratorSource.Generator#batchSize()}分批executeBatch
+     * @return 所有批次影响的行数之和
+     */
+    @Override
+    public <T> long insertList(Iterable<T> entities, Class<T> entityClass, InsertMode mode) {
+        var generator = extendSQLGeneratorSource.simpleSqlGenerator(entityClass);
+        List<T> list = toList(entities);
+        if (InsertMode.BATCH.equals(mode)) {
+            List<Object[]> rows = new ArrayList<>(list.size());
+            List<PersistentPropertyAccessor<T>> accessors = new ArrayList<>(list.size());
+            for (T entity : list) {
+                PersistentPropertyAccessor<T> accessor = generator.persistentPropertyAccessor(entity);
+                accessors.add(accessor);
+                rows.add(generator.insertValues(accessor));
+            }
+            return insertBatch(generator, generator.insertOne(), rows, accessors);
+        }
+        int size = list.size();
+        int chunk = generator.insertListChunkSize();
+        long i = 0;
+        for (int from = 0; from < size; from += chunk) {
+            i += insertChunk(generator, list.subList(from, Math.min(from + chunk, size)));
         }
-        Triple<String, Object[], Map<T, PersistentPropertyAccessor<T>>> triple = generator.insertList(collection);
+        return i;
+    }
+
+    @Override
+    public <T> long insertSelectiveList(Iterable<T> entities, Class<T> entityClass) {
+        var generator = extendSQLGeneratorSource.simpleSqlGenerator(entityClass);
+        Map<BitSet, List<Triple<BitSet, Object[], PersistentPropertyAccessor<T>>>> groups = new LinkedHashMap<>();
+        for (T entity : entities) {
+            Triple<BitSet, Object[], PersistentPropertyAccessor<T>> triple = generator.selectiveValues(entity);
+            groups.computeIfAbsent(triple.first(), k -> new ArrayList<>()).add(triple);
+        }
+        long i = 0;
+        for (Map.Entry<BitSet, List<Triple<BitSet, Object[], PersistentPropertyAccessor<T>>>> group : groups.entrySet()) {
+            List<Object[]> rows = group.getValue().stream().map(Triple::second).toList();
+            List<PersistentPropertyAccessor<T>> accessors = group.getValue().stream().map(Triple::third).toList();
+            i += insertBatch(generator, generator.insertSelective(group.getKey()), rows, accessors);
+        }
+        return i;
+    }
+
+    /**
+     * 从stream中每次取chunkSize条，按实体的{@link InsertMode}写入后释放，内存占用只跟chunkSize有关。
+     * 没有事务管理器时每条sql自动提交
+     */
+    @Override
+    public <T> long insertStream(Stream<T> entities, Class<T> entityClass, int chunkSize, boolean commitPerChunk, LongConsumer progress) {
+        var generator = extendSQLGeneratorSource.simpleSqlGenerator(entityClass);
+        int chunk = chunkSize > 0 ? chunkSize : generator.insertListChunkSize();
+        InsertMode mode = generator.getInsertMode();
+        TransactionOperations outer = commitPerChunk ? TransactionOperations.withoutTransaction() : streamTransaction;
+        TransactionOperations inner = commitPerChunk ? chunkTransaction : TransactionOperations.withoutTransaction();
+        Long total = outer.execute(status -> {
+            long i = 0;
+            try (entities) {
+                Iterator<T> iterator = entities.iterator();
+                List<T> buffer = new ArrayList<>(Math.min(chunk, 1024));
+                while (iterator.hasNext()) {
+                    buffer.add(iterator.next());
+                    if (buffer.size() >= chunk || !iterator.hasNext()) {
+                        Long rows = inner.execute(s -> insertList(buffer, entityClass, mode));
+                        i += Objects.requireNonNullElse(rows, 0L);
+                        buffer.clear();
+                        if (progress != null) {
+                            progress.accept(i);
+                        }
+                    }
+                }
+            }
+            return i;
+        });
+        return Objects.requireNonNullElse(total, 0L);
+    }
+
+    /**
+     * MySQL通过LOAD DATA LOCAL INFILE导入，数据边读边编码，连接需要开启allowLoadLocalInfile，服务端需要开启local_infile；
+     * 其他数据库、驱动不是Connector/J或者客户端/服务端任一方没有开启时降级为{@link #insertStream(Stream, Class, int, boolean, LongConsumer)}，整体一个事务。
+     * 自增主键不会回填
+     */
+    @Override
+    public <T> long loadData(Stream<T> entities, Class<T> entityClass) {
+        var generator = extendSQLGeneratorSource.simpleSqlGenerator(entityClass);
+        Long rows = null;
+        if (generator.loadDataSupported()) {
+            rows = namedParameterJdbcTemplate.getJdbcTemplate().execute((ConnectionCallback<Long>) con -> {
+                try (Statement statement = con.createStatement()) {
+                    Statement target = LoadDataInputStream.localInfileStatement(statement);
+                    if (target == null) {
+                        return null;
+                    }
+                    Iterator<T> iterator = entities.iterator();
+                    Iterator<Object[]> values = new Iterator<>() {
+                        @Override
+                        public boolean hasNext() {
+                            return iterator.hasNext();
+                        }
+
+                        @Override
+                        public Object[] next() {
+                            return generator.insertValues(generator.persistentPropertyAccessor(iterator.next()));
+                        }
+                    };
+                    try (entities) {
+                        new LoadDataInputStream(values).bindTo(target);
+                        return (long) statement.executeUpdate(generator.loadData());
+                    }
+                }
+            });
+        }
+        return rows != null ? rows : insertStream(entities, entityClass, 0, false, null);
+    }
+
+    private <T> List<T> toList (Iterable<T> entities) {
+        if (entities instanceof List<T> l) {
+            return l;
+        }
+        List<T> list = new ArrayList<>();
+        entities.forEach(list::add);
+        return list;
+    }
+
+    /**
+     * 同一条sql，分批addBatch/executeBatch，自增主键时按顺序回填
+     */
+    private <T> long insertBatch (ExtendSQLGeneratorSource.Generator<T> generator, String sql, List<Object[]> rows, List<PersistentPropertyAccessor<T>> accessors) {
+        int size = rows.size();
+        int batch = generator.batchSize();
+        boolean generated = IdValueSource.GENERATED.equals(generator.getIdValueSource());
+        long i = 0;
+        for (int from = 0; from < size; from += batch) {
+            int to = (int) Math.min((long) from + batch, size);
+            BatchPreparedStatementSetter setter = new RowsBatchSetter(rows.subList(from, to));
+            int[] counts;
+            if (generated) {
+                KeyHolder keyHolder = new GeneratedKeyHolder();
+                RelationalPersistentProperty id = generator.getId();
+                String reference = id.getColumnName().toSql(identifierProcessing);
+                String[] keyNames = idGeneration.driverRequiresKeyColumnNames() ? new String[]{reference} : null;
+                counts = namedParameterJdbcTemplate.getJdbcTemplate().batchUpdate(new ArgumentPreparedStatementCreator(sql, null, keyNames), setter, keyHolder);
+                List<Map<String, Object>> keys = keyHolder.getKeyList();
+                for (int l = 0; l < to - from && l < keys.size(); l++) {
+                    Object value = generatedKey(keys.get(l), reference);
+                    if (Objects.nonNull(value)) {
+                        accessors.get(from + l).setProperty(id, value);
+                    }
+                }
+            }else {
+                counts = namedParameterJdbcTemplate.getJdbcTemplate().batchUpdate(sql, setter);
+            }
+            i += affectedRows(counts);
+        }
+        return i;
+    }
+
+    /**
+     * rewriteBatchedStatements改写以后，驱动对每行返回SUCCESS_NO_INFO，按成功一行计算
+     */
+    private long affectedRows (int[] counts) {
+        long i = 0;
+        for (int count : counts) {
+            if (count == Statement.SUCCESS_NO_INFO) {
+                i ++;
+            }else if (count > 0) {
+                i += count;
+            }
+        }
+        return i;
+    }
+
+    private record RowsBatchSetter(List<Object[]> rows) implements BatchPreparedStatementSetter {
+
+        @Override
+        public void setValues(PreparedStatement ps, int i) throws SQLException {
+            new ArgumentPreparedStatementSetter(rows.get(i)).setValues(ps);
+        }
+
+        @Override
+        public int getBatchSize() {
+            return rows.size();
+        }
+    }
+
+    private <T> int insertChunk (ExtendSQLGeneratorSource.Generator<T> generator, List<T> chunk) {
+        Triple<String, Object[], List<PersistentPropertyAccessor<T>>> triple = generator.insertList(chunk);
         int i;
         if (IdValueSource.GENERATED.equals(generator.getIdValueSource())) {
             KeyHolder keyHolder = new GeneratedKeyHolder();
             RelationalPersistentProperty id = generator.getId();
             String reference = id.getColumnName().toSql(identifierProcessing);
-            Map<T, PersistentPropertyAccessor<T>> accessors = triple.third();
-            if (idGeneration.driverRequiresKeyColumnNames()) {
-                i = namedParameterJdbcTemplate.getJdbcTemplate().update(new ArgumentPreparedStatementCreator(triple.first(), triple.second(), new String[]{reference}), keyHolder);
-            }else {
-                i = namedParameterJdbcTemplate.getJdbcTemplate().update(new ArgumentPreparedStatementCreator(triple.first(), triple.second(), null), keyHolder);
-            }
+            String[] keyNames = idGeneration.driverRequiresKeyColumnNames() ? new String[]{reference} : null;
+            i = namedParameterJdbcTemplate.getJdbcTemplate().update(new ArgumentPreparedStatementCreator(triple.first(), triple.second(), keyNames), keyHolder);
             List<Map<String, Object>> keys = keyHolder.getKeyList();
-            int l = 0;
-            for (T entity : entities) {
-                Object value = keys.get(l).get(reference);
+            List<PersistentPropertyAccessor<T>> accessors = triple.third();
+            for (int l = 0; l < accessors.size() && l < keys.size(); l++) {
+                Object value = generatedKey(keys.get(l), reference);
                 if (Objects.nonNull(value)) {
-                    accessors.get(entity).setProperty(id, value);
+                    accessors.get(l).setProperty(id, value);
                 }
-                l ++;
             }
         }else {
             i = namedParameterJdbcTemplate.getJdbcTemplate().update(triple.first(), triple.second());
@@ -110,6 +400,38 @@ public class CustomerJdbcOperationImpl implements CustomerJdbcOperation {
         return i;
     }
 
+    /**
+     * 有的驱动（比如MySQL）返回的key名字不是主键列名，而是GENERATED_KEY，只有一列时直接取这一列
+     */
+    private Object generatedKey (Map<String, Object> key, String reference) {
+        if (key.containsKey(reference)) {
+            return key.get(reference);
+        }
+        return key.size() == 1 ? key.values().iterator().next() : null;
+    }
+
+    @Override
+    public <T> int upsert(T entity, Class<T> entityClass, Collection<String> updateProperties) {
+        return Long.valueOf(upsertList(List.of(entity), entityClass, updateProperties)).intValue();
+    }
+
+    @Override
+    public <T> long upsertList(Iterable<T> entities, Class<T> entityClass, Collection<String> updateProperties) {
+        var generator = extendSQLGeneratorSource.simpleSqlGenerator(entityClass);
+        List<T> list = toList(entities);
+        int size = list.size();
+        int chunk = generator.insertListChunkSize();
+        long i = 0;
+        for (int from = 0; from < size; from += chunk) {
+            List<PersistentPropertyAccessor<T>> accessors = list.subList(from, Math.min(from + chunk, size)).stream()
+                    .map(generator::persistentPropertyAccessor)
+                    .toList();
+            String sql = generator.upsert(accessors.size(), updateProperties);
+            i += namedParameterJdbcTemplate.getJdbcTemplate().update(sql, generator.insertListValues(accessors));
+        }
+        return i;
+    }
+
     @Override
     public <T> int updateByIdSelective(T entity, Class<T> entityClass) {
         ExtendSQLGeneratorSource.Generator<T> generator = extendSQLGeneratorSource.simpleSqlGenerator(entityClass);
@@ -117,10 +439,44 @@ public class CustomerJdbcOperationImpl implements CustomerJdbcOperation {
         return namedParameterJdbcTemplate.update(pair.getFirst(), pair.getSecond());
     }
 
+    @Override
+    public <T> int[] updateByIdSelective(Iterable<T> entities, Class<T> entityClass) {
+        ExtendSQLGeneratorSource.Generator<T> generator = extendSQLGeneratorSource.simpleSqlGenerator(entityClass);
+        List<T> list = toList(entities);
+        int[] result = new int[list.size()];
+        Map<BitSet, List<Integer>> groups = new LinkedHashMap<>();
+        List<Object[]> rows = new ArrayList<>(list.size());
+        for (int i = 0; i < list.size(); i++) {
+            Pair<BitSet, Object[]> pair = generator.updateByIdSelectiveValues(list.get(i));
+            rows.add(pair.getSecond());
+            if (!pair.getFirst().isEmpty()) {
+                groups.computeIfAbsent(pair.getFirst(), k -> new ArrayList<>()).add(i);
+            }
+        }
+        int batch = generator.batchSize();
+        for (Map.Entry<BitSet, List<Integer>> group : groups.entrySet()) {
+            String sql = generator.updateByIdSelective(group.getKey());
+            List<Integer> indexes = group.getValue();
+            for (int from = 0; from < indexes.size(); from += batch) {
+                List<Integer> chunk = indexes.subList(from, (int) Math.min((long) from + batch, indexes.size()));
+                int[] counts = namedParameterJdbcTemplate.getJdbcTemplate().batchUpdate(sql, new RowsBatchSetter(chunk.stream().map(rows::get).toList()));
+                for (int i = 0; i < counts.length; i++) {
+                    result[chunk.get(i)] = counts[i];
+                }
+            }
+        }
+        return result;
+    }
+
     @Override
     public <T> long updateSelective(T updater, Query query, Class<T> entityClass) {
+        return updateSelective(updater, query, List.of(), entityClass);
+    }
+
+    @Override
+    public <T> long updateSelective(T updater, Query query, List<UpdateAssignment> assignments, Class<T> entityClass) {
         ExtendSQLGeneratorSource.Generator<T> generator = extendSQLGeneratorSource.simpleSqlGenerator(entityClass);
-        Pair<String, MapSqlParameterSource> pair = generator.update(updater, query);
+        Pair<String, MapSqlParameterSource> pair = generator.update(updater, query, assignments);
         return namedParameterJdbcTemplate.update(pair.getFirst(), pair.getSecond());
     }
 
@@ -133,29 +489,170 @@ public class CustomerJdbcOperationImpl implements CustomerJdbcOperation {
 
     @Override
     public <T> Optional<T> findOne(Query query, Class<T> entityClass) {
+        if (!query.getColumns().isEmpty()) {
+            return findOne(query, entityClass, entityClass);
+        }
+        if (Subquery.present(query)) {
+            return findAll(query.limit(1), entityClass, tableName(entityClass)).stream().findFirst();
+        }
         return jdbcAggregateTemplate.findOne(query.limit(1), entityClass);
     }
 
     @Override
     public <T> List<T> findAll(Query query, Class<T> entityClass) {
+        if (!query.getColumns().isEmpty()) {
+            return findAll(query, entityClass, entityClass);
+        }
+        if (Subquery.present(query)) {
+            return findAll(query, entityClass, tableName(entityClass));
+        }
         return new ArrayList<>(jdbcAggregateTemplate.findAll(query, entityClass));
     }
 
+    @Override
+    public <T, P> Optional<P> findOne(Query query, Class<T> entityClass, Class<P> projection) {
+        return findOne(query, entityClass, projection, tableName(entityClass));
+    }
+
+    @Override
+    public <T, P> List<P> findAll(Query query, Class<T> entityClass, Class<P> projection) {
+        return findAll(query, entityClass, projection, tableName(entityClass));
+    }
+
+    @Override
+    public <T, P> Page<P> findAll(Query query, Pageable pageable, Class<T> entityClass, Class<P> projection) {
+        return findAll(query, pageable, entityClass, projection, tableName(entityClass));
+    }
+
+    @Override
+    public <T, P> Optional<P> findOne(Query query, Class<T> entityClass, Class<P> projection, String table) {
+        return findAll(query.limit(1), entityClass, projection, table).stream().findFirst();
+    }
+
+    @Override
+    public <T, P> List<P> findAll(Query query, Class<T> entityClass, Class<P> projection, String table) {
+        ExtendSQLGeneratorSource.Generator<T> generator = extendSQLGeneratorSource.simpleSqlGenerator(entityClass);
+        ExtendSQLGeneratorSource.Projection<P> p = generator.projection(projection);
+        Pair<String, MapSqlParameterSource> pair = generator.findAllTable(project(query, p), table);
+        return namedParameterJdbcTemplate.query(pair.getFirst(), pair.getSecond(), p.rowMapper());
+    }
+
+    @Override
+    public <T, P> Page<P> findAll(Query query, Pageable pageable, Class<T> entityClass, Class<P> projection, String table) {
+        ExtendSQLGeneratorSource.Generator<T> generator = extendSQLGeneratorSource.simpleSqlGenerator(entityClass);
+        ExtendSQLGeneratorSource.Projection<P> p = generator.projection(projection);
+        Pair<String, MapSqlParameterSource> pair = generator.findPageTable(project(query, p), pageable, table);
+        Supplier<List<P>> content = () -> namedParameterJdbcTemplate.query(pair.getFirst(), pair.getSecond(), p.rowMapper());
+        LongSupplier count = Optional.ofNullable(pageCount(query, entityClass, table)).orElse(() -> count(query, entityClass, table));
+        if (concurrentCount(pageable)) {
+            return concurrentPage(content, pageable, count);
+        }
+        return PageableExecutionUtils.getPage(content.get(), pageable, count);
+    }
+
+    /**
+     * 在query已有的字段上加上投影需要的字段
+     */
+    private static Query project (Query query, ExtendSQLGeneratorSource.Projection<?> projection) {
+        return projection.columns().isEmpty() ? query : query.columns(projection.columns().toArray(SqlIdentifier[]::new));
+    }
+
     @Override
     public <T> Page<T> findAll(Query query, Pageable pageable, Class<T> entityClass) {
-        return jdbcAggregateTemplate.findAll(query, entityClass, pageable);
+        if (!query.getColumns().isEmpty()) {
+            return findAll(query, pageable, entityClass, entityClass);
+        }
+        if (Subquery.present(query)) {
+            return findAll(query, pageable, entityClass, tableName(entityClass));
+        }
+        LongSupplier count = pageCount(query, entityClass, null);
+        boolean concurrent = concurrentCount(pageable);
+        if (count == null && !concurrent) {
+            return jdbcAggregateTemplate.findAll(query, entityClass, pageable);
+        }
+        LongSupplier total = count == null ? () -> count(query, entityClass) : count;
+        Supplier<List<T>> content = () -> new ArrayList<>(jdbcAggregateTemplate.findAll(query.with(pageable), entityClass));
+        return concurrent ? concurrentPage(content, pageable, total) : PageableExecutionUtils.getPage(content.get(), pageable, total);
+    }
+
+    /**
+     * 当前调用不是精确count时，按count策略计算总数，策略在调用线程确定。
+     * 精确count返回null，由调用方执行原来的count
+     */
+    private <T> LongSupplier pageCount (Query query, Class<T> entityClass, String table) {
+        if (countStrategies == null || countStrategies.currentMode() == CountMode.EXACT) {
+            return null;
+        }
+        CountStrategy strategy = countStrategies.current();
+        return () -> {
+            ExtendSQLGeneratorSource.Generator<T> generator = extendSQLGeneratorSource.simpleSqlGenerator(entityClass);
+            String t = table == null ? generator.getTableName() : table;
+            Pair<String, MapSqlParameterSource> pair = generator.count(query, t);
+            return strategy.count(new CountQuery(namedParameterJdbcTemplate, pair.getFirst(), pair.getSecond(), t));
+        };
+    }
+
+    /**
+     * 配置了countExecutor并且不在事务中时，count在另一个连接上并行执行。
+     * 事务中的查询要用同一个连接，只能串行
+     */
+    private boolean concurrentCount (Pageable pageable) {
+        return countExecutor != null && pageable.isPaged() && !TransactionSynchronizationManager.isActualTransactionActive();
+    }
+
+    /**
+     * 先把count提交到countExecutor，再在当前线程查询内容，两条sql分别占用一个连接同时执行，
+     * 整页时的耗时约为两者中较慢的一个，而不是两者之和。
+     * 内容不满一页时总数可以直接算出来，不再等待count：count还在队列中时取消，不会执行；已经开始执行的count不会被中断，
+     * 仍然会执行完，结果丢弃。countExecutor的队列满时count在调用线程执行，此时count先于内容串行执行，不满一页也会执行count
+     */
+    private <T> Page<T> concurrentPage (Supplier<List<T>> content, Pageable pageable, LongSupplier count) {
+        CompletableFuture<Long> total = CompletableFuture.supplyAsync(count::getAsLong, countExecutor);
+        List<T> list;
+        try {
+            list = content.get();
+        } catch (RuntimeException e) {
+            total.cancel(false);
+            throw e;
+        }
+        AtomicBoolean counted = new AtomicBoolean();
+        Page<T> page = PageableExecutionUtils.getPage(list, pageable, () -> {
+            counted.set(true);
+            try {
+                return total.join();
+            } catch (CompletionException e) {
+                throw e.getCause() instanceof RuntimeException r ? r : e;
+            }
+        });
+        if (!counted.get()) {
+            total.cancel(false);
+        }
+        return page;
     }
 
     @Override
     public <T> long count(Query query, Class<T> entityClass) {
+        if (Subquery.present(query)) {
+            return count(query, entityClass, tableName(entityClass));
+        }
         return jdbcAggregateTemplate.count(query, entityClass);
     }
 
     @Override
     public <T> boolean exists(Query query, Class<T> entityClass) {
+        if (Subquery.present(query)) {
+            return exists(query, entityClass, tableName(entityClass));
+        }
         return jdbcAggregateTemplate.exists(query, entityClass);
     }
 
+    /**
+     * 包含子查询的条件JdbcAggregateTemplate无法映射，按实体对应的表交给ExtendSQLGeneratorSource执行
+     */
+    private String tableName (Class<?> entityClass) {
+        return extendSQLGeneratorSource.simpleSqlGenerator(entityClass).getTableName();
+    }
+
 
     @Override
     public int deleteById(Object id, Class<?> entityClass) {
@@ -175,8 +672,18 @@ public class CustomerJdbcOperationImpl implements CustomerJdbcOperation {
             collection = new ArrayList<>();
             ids.forEach(collection::add);
         }
-        String sql = generator.deleteByIds(collection.size());
-        return namedParameterJdbcTemplate.getJdbcTemplate().update(sql, collection.toArray());
+        return deleteAllById(collection, generator);
+    }
+
+    /**
+     * in的参数按档位补齐，超过上限时拆成多条执行
+     */
+    private int deleteAllById (Collection<?> ids, ExtendSQLGeneratorSource.Generator<?> generator) {
+        int i = 0;
+        for (Object[] chunk : extendSQLGeneratorSource.inListChunks(ids)) {
+            i += namedParameterJdbcTemplate.getJdbcTemplate().update(generator.deleteByIds(chunk.length), chunk);
+        }
+        return i;
     }
 
     @Override
@@ -188,7 +695,7 @@ public class CustomerJdbcOperationImpl implements CustomerJdbcOperation {
     @Override
     public int deleteAllById(Object[] ids, Class<?> entityClass) {
         ExtendSQLGeneratorSource.Generator<?> generator = extendSQLGeneratorSource.simpleSqlGenerator(entityClass);
-        return namedParameterJdbcTemplate.getJdbcTemplate().update(generator.deleteByIds(ids.length), ids);
+        return deleteAllById(Arrays.asList(ids), generator);
     }
 
     @Override
@@ -209,8 +716,23 @@ public class CustomerJdbcOperationImpl implements CustomerJdbcOperation {
             collection = new ArrayList<>();
             ids.forEach(collection::add);
         }
-        String sql = generator.findAllByIdTable(table, collection.size());
-        return namedParameterJdbcTemplate.getJdbcTemplate().query(sql, generator.getEntityRowMapper(),collection.toArray());
+        List<T> list = new ArrayList<>(collection.size());
+        for (Object[] chunk : extendSQLGeneratorSource.inListChunks(collection)) {
+            String sql = generator.findAllByIdTable(table, chunk.length);
+            list.addAll(namedParameterJdbcTemplate.getJdbcTemplate().query(sql, generator.getEntityRowMapper(), chunk));
+        }
+        return list;
+    }
+
+    @Override
+    public <T> List<T> findAllById(Iterable<?> ids, Class<T> entityClass) {
+        ExtendSQLGeneratorSource.Generator<T> generator = extendSQLGeneratorSource.simpleSqlGenerator(entityClass);
+        List<?> collection = toList(ids);
+        List<T> list = new ArrayList<>(collection.size());
+        for (Object[] chunk : extendSQLGeneratorSource.inListChunks(collection)) {
+            list.addAll(namedParameterJdbcTemplate.getJdbcTemplate().query(generator.findAllById(chunk.length), generator.getEntityRowMapper(), chunk));
+        }
+        return list;
     }
 
     @Override
@@ -220,11 +742,134 @@ public class CustomerJdbcOperationImpl implements CustomerJdbcOperation {
         return namedParameterJdbcTemplate.query(pair.getFirst(), pair.getSecond(), generator.getEntityRowMapper());
     }
 
+    @Override
+    public <T> long[] findIds(Query query, Class<T> entityClass) {
+        return findLongColumn(query, extendSQLGeneratorSource.simpleSqlGenerator(entityClass).idName(), entityClass);
+    }
+
+    @Override
+    public <T> void scanIds(Query query, Class<T> entityClass, LongConsumer consumer) {
+        scanLongColumn(query, extendSQLGeneratorSource.simpleSqlGenerator(entityClass).idName(), entityClass, consumer);
+    }
+
+    @Override
+    public <T, V> List<V> findColumn(Query query, String column, Class<T> entityClass, Class<V> type) {
+        ExtendSQLGeneratorSource.Generator<T> generator = extendSQLGeneratorSource.simpleSqlGenerator(entityClass);
+        Pair<String, MapSqlParameterSource> pair = generator.findColumnTable(query, column, generator.getTableName());
+        return namedParameterJdbcTemplate.query(pair.getFirst(), pair.getSecond(), generator.columnRowMapper(type));
+    }
+
+    @Override
+    public <T> int[] findIntColumn(Query query, String column, Class<T> entityClass) {
+        PrimitiveColumns.Ints ints = new PrimitiveColumns.Ints(PrimitiveColumns.capacity(query.getLimit()));
+        queryColumn(query, column, entityClass, ints);
+        return ints.toArray();
+    }
+
+    @Override
+    public <T> long[] findLongColumn(Query query, String column, Class<T> entityClass) {
+        PrimitiveColumns.Longs longs = new PrimitiveColumns.Longs(PrimitiveColumns.capacity(query.getLimit()));
+        queryColumn(query, column, entityClass, longs);
+        return longs.toArray();
+    }
+
+    @Override
+    public <T> double[] findDoubleColumn(Query query, String column, Class<T> entityClass) {
+        PrimitiveColumns.Doubles doubles = new PrimitiveColumns.Doubles(PrimitiveColumns.capacity(query.getLimit()));
+        queryColumn(query, column, entityClass, doubles);
+        return doubles.toArray();
+    }
+
+    private <T> void queryColumn (Query query, String column, Class<T> entityClass, RowCallbackHandler handler) {
+        ExtendSQLGeneratorSource.Generator<T> generator = extendSQLGeneratorSource.simpleSqlGenerator(entityClass);
+        Pair<String, MapSqlParameterSource> pair = generator.findColumnTable(query, column, generator.getTableName());
+        namedParameterJdbcTemplate.query(pair.getFirst(), pair.getSecond(), handler);
+    }
+
+    @Override
+    public <T> void scanLongColumn(Query query, String column, Class<T> entityClass, LongConsumer consumer) {
+        ExtendSQLGeneratorSource.Generator<T> generator = extendSQLGeneratorSource.simpleSqlGenerator(entityClass);
+        Pair<String, MapSqlParameterSource> pair = generator.findColumnTable(query, column, generator.getTableName());
+        streamJdbcTemplate.get().query(pair.getFirst(), pair.getSecond(), PrimitiveColumns.longs(consumer));
+    }
+
+    @Override
+    public <T, V> void scanColumn(Query query, String column, Class<T> entityClass, Class<V> type, Consumer<? super V> consumer) {
+        ExtendSQLGeneratorSource.Generator<T> generator = extendSQLGeneratorSource.simpleSqlGenerator(entityClass);
+        Pair<String, MapSqlParameterSource> pair = generator.findColumnTable(query, column, generator.getTableName());
+        RowMapper<V> rowMapper = generator.columnRowMapper(type);
+        streamJdbcTemplate.get().query(pair.getFirst(), pair.getSecond(), (RowCallbackHandler) rs -> consumer.accept(rowMapper.mapRow(rs, 0)));
+    }
+
+    @Override
+    public <T> Stream<T> streamAll(Query query, Class<T> entityClass) {
+        var generator = extendSQLGeneratorSource.simpleSqlGenerator(entityClass);
+        return streamAll(query, entityClass, generator.getTableName());
+    }
+
+    /**
+     * 连接在stream读完（或者抛异常）时自动释放，提前结束（findFirst、limit等）时需要调用方close
+     */
+    @Override
+    public <T> Stream<T> streamAll(Query query, Class<T> entityClass, String table) {
+        ExtendSQLGeneratorSource.Generator<T> generator = extendSQLGeneratorSource.simpleSqlGenerator(entityClass);
+        Pair<String, MapSqlParameterSource> pair = generator.findAllTable(query, table);
+        return closeOnTerminal(streamJdbcTemplate.get().queryForStream(pair.getFirst(), pair.getSecond(), generator.getEntityRowMapper()));
+    }
+
+    @Override
+    public <T> Window<T> findAfter(Query query, Sort sort, ScrollPosition position, int limit, Class<T> entityClass) {
+        var generator = extendSQLGeneratorSource.simpleSqlGenerator(entityClass);
+        return findAfter(query, sort, position, limit, entityClass, generator.getTableName());
+    }
+
+    /**
+     * 多查一行判断是否还有下一页，每一行的位置都是该行排序字段的值
+     */
+    @Override
+    public <T> Window<T> findAfter(Query query, Sort sort, ScrollPosition position, int limit, Class<T> entityClass, String table) {
+        if (!(position instanceof KeysetScrollPosition keyset) || keyset.scrollsBackward()) {
+            throw new IllegalArgumentException("only forward keyset scroll position is supported");
+        }
+        ExtendSQLGeneratorSource.Generator<T> generator = extendSQLGeneratorSource.simpleSqlGenerator(entityClass);
+        List<Sort.Order> orders = generator.keysetOrders(sort);
+        Pair<String, MapSqlParameterSource> pair = generator.findAfterTable(query, orders, keyset.getKeys(), limit + 1, table);
+        List<T> list = namedParameterJdbcTemplate.query(pair.getFirst(), pair.getSecond(), generator.getEntityRowMapper());
+        boolean hasNext = list.size() > limit;
+        List<T> content = hasNext ? list.subList(0, limit) : list;
+        return Window.from(content, i -> ScrollPosition.forward(generator.keyset(content.get(i), orders)), hasNext);
+    }
+
+    private static <T> Stream<T> closeOnTerminal (Stream<T> stream) {
+        Spliterator<T> spliterator = stream.spliterator();
+        return StreamSupport.stream(new Spliterators.AbstractSpliterator<T>(Long.MAX_VALUE, Spliterator.ORDERED | Spliterator.NONNULL) {
+            @Override
+            public boolean tryAdvance(Consumer<? super T> action) {
+                boolean advanced;
+                try {
+                    advanced = spliterator.tryAdvance(action);
+                } catch (RuntimeException e) {
+                    stream.close();
+                    throw e;
+                }
+                if (!advanced) {
+                    stream.close();
+                }
+                return advanced;
+            }
+        }, false).onClose(stream::close);
+    }
+
     @Override
     public <T> Page<T> findAll(Query query, Pageable pageable, Class<T> entityClass, String table) {
         ExtendSQLGeneratorSource.Generator<T> generator = extendSQLGeneratorSource.simpleSqlGenerator(entityClass);
         Pair<String, MapSqlParameterSource> pair = generator.findPageTable(query, pageable, table);
-        return PageableExecutionUtils.getPage(namedParameterJdbcTemplate.query(pair.getFirst(), pair.getSecond(), generator.getEntityRowMapper()), pageable, () -> count(query, entityClass, table));
+        Supplier<List<T>> content = () -> namedParameterJdbcTemplate.query(pair.getFirst(), pair.getSecond(), generator.getEntityRowMapper());
+        LongSupplier count = Optional.ofNullable(pageCount(query, entityClass, table)).orElse(() -> count(query, entityClass, table));
+        if (concurrentCount(pageable)) {
+            return concurrentPage(content, pageable, count);
+        }
+        return PageableExecutionUtils.getPage(content.get(), pageable, count);
     }
 
     @Override
@@ -248,4 +893,65 @@ public class CustomerJdbcOperationImpl implements CustomerJdbcOperation {
         String sql = generator.existsById(table);
         return Boolean.TRUE.equals(namedParameterJdbcTemplate.queryForObject(sql, Map.of("id", id), Boolean.class));
     }
+
+    @Override
+    public <T> List<T> findAll(QueryTemplate<T> template, Object... values) {
+        ExtendSQLGeneratorSource.Generator<T> generator = extendSQLGeneratorSource.simpleSqlGenerator(template.getEntityClass());
+        Pair<String, MapSqlParameterSource> pair = generator.findAll(template, values);
+        return namedParameterJdbcTemplate.query(pair.getFirst(), pair.getSecond(), generator.getEntityRowMapper());
+    }
+
+    @Override
+    public <T> Optional<T> findOne(QueryTemplate<T> template, Object... values) {
+        ExtendSQLGeneratorSource.Generator<T> generator = extendSQLGeneratorSource.simpleSqlGenerator(template.getEntityClass());
+        Pair<String, MapSqlParameterSource> pair = generator.findOne(template, values);
+        return namedParameterJdbcTemplate.query(pair.getFirst(), pair.getSecond(), generator.getEntityRowMapper())
+                .stream().findFirst();
+    }
+
+    @Override
+    public <T> long count(QueryTemplate<T> template, Object... values) {
+        ExtendSQLGeneratorSource.Generator<T> generator = extendSQLGeneratorSource.simpleSqlGenerator(template.getEntityClass());
+        Pair<String, MapSqlParameterSource> pair = generator.count(template, values);
+        return Optional.ofNullable(namedParameterJdbcTemplate.queryForObject(pair.getFirst(), pair.getSecond(), Long.class))
+                .orElse(0L);
+    }
+
+    @Override
+    public <T> boolean exists(QueryTemplate<T> template, Object... values) {
+        ExtendSQLGeneratorSource.Generator<T> generator = extendSQLGeneratorSource.simpleSqlGenerator(template.getEntityClass());
+        Pair<String, MapSqlParameterSource> pair = generator.exists(template, values);
+        return Boolean.TRUE.equals(namedParameterJdbcTemplate.queryForObject(pair.getFirst(), pair.getSecond(), Boolean.class));
+    }
+
+    @Override
+    public <T, R> List<R> aggregate(Aggregation<T> aggregation, Class<R> type) {
+        ExtendSQLGeneratorSource.Generator<T> generator = extendSQLGeneratorSource.simpleSqlGenerator(aggregation.getEntityClass());
+        Pair<String, MapSqlParameterSource> pair = generator.aggregate(aggregation, true);
+        return namedParameterJdbcTemplate.query(pair.getFirst(), pair.getSecond(),
+                generator.aggregateRowMapper(type, aggregation.getGroupBy().size() + aggregation.getFunctions().size()));
+    }
+
+    @Override
+    public <T> long[] aggregateLongs(Aggregation<T> aggregation) {
+        PrimitiveColumns.Longs longs = new PrimitiveColumns.Longs(PrimitiveColumns.capacity(-1), 0L);
+        queryAggregate(aggregation, longs);
+        return longs.toArray();
+    }
+
+    @Override
+    public <T> double[] aggregateDoubles(Aggregation<T> aggregation) {
+        PrimitiveColumns.Doubles doubles = new PrimitiveColumns.Doubles(PrimitiveColumns.capacity(-1), Double.NaN);
+        queryAggregate(aggregation, doubles);
+        return doubles.toArray();
+    }
+
+    private <T> void queryAggregate (Aggregation<T> aggregation, RowCallbackHandler handler) {
+        if (aggregation.getFunctions().size() != 1) {
+            throw new IllegalArgumentException("primitive aggregation result needs exactly one aggregate function");
+        }
+        ExtendSQLGeneratorSource.Generator<T> generator = extendSQLGeneratorSource.simpleSqlGenerator(aggregation.getEntityClass());
+        Pair<String, MapSqlParameterSource> pair = generator.aggregate(aggregation, false);
+        namedParameterJdbcTemplate.query(pair.getFirst(), pair.getSecond(), handler);
+    }
 }
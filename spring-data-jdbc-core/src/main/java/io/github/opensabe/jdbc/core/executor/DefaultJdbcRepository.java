@@ -1,20 +1,36 @@
 package io.github.opensabe.jdbc.core.executor;
 
 import io.github.opensabe.jdbc.core.ApplicationContextHolder;
+import io.github.opensabe.jdbc.core.cache.EntityCaches;
+import io.github.opensabe.jdbc.core.cache.RepositoryCache;
+import io.github.opensabe.jdbc.core.aggregate.Aggregation;
+import io.github.opensabe.jdbc.core.lambda.Fn;
+import io.github.opensabe.jdbc.core.lambda.QueryTemplate;
+import io.github.opensabe.jdbc.core.lambda.Reflections;
 import io.github.opensabe.jdbc.core.lambda.Weekend;
+import io.github.opensabe.jdbc.core.loader.CoalescingLoaders;
 import io.github.opensabe.jdbc.core.repository.BaseRepository;
 import org.springframework.beans.BeanUtils;
+import org.springframework.data.convert.DtoInstantiatingConverter;
 import org.springframework.data.domain.*;
 import org.springframework.data.jdbc.core.JdbcAggregateOperations;
 import org.springframework.data.jdbc.core.convert.JdbcConverter;
 import org.springframework.data.mapping.PersistentEntity;
+import org.springframework.data.mapping.model.EntityInstantiators;
 import org.springframework.data.relational.core.query.Query;
 import org.springframework.data.relational.repository.query.RelationalExampleMapper;
 import org.springframework.data.util.Lazy;
 
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.function.Consumer;
+import java.util.function.LongConsumer;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
 
 /**
  * @author heng.mai
@@ -23,18 +39,31 @@ public class DefaultJdbcRepository<T, ID>  implements BaseRepository<T, ID> {
 
     private final Lazy<CustomerJdbcOperation> criteriaJdbcOperation;
     private final Lazy<RelationalExampleMapper> exampleMapper;
+    private final Lazy<CoalescingLoaders> coalescingLoaders;
+    private final Lazy<RepositoryCache> cache;
+
+    /**
+     * 缓存中的实体是共享的，返回给调用方的是浅拷贝，record不可变，不需要拷贝
+     */
+    private final Lazy<DtoInstantiatingConverter> copier;
 
     private final JdbcAggregateOperations operations;
 
     private final Class<T> clazz;
 
+    private final PersistentEntity<T, ?> entity;
+
     private final boolean unionkey;
 
     public DefaultJdbcRepository(JdbcAggregateOperations entityOperations, PersistentEntity<T, ?> entity,
                                  //代理创建对象时参数定死了，参数个数、类型、顺序都不能变
-                                 @SuppressWarnings("unused") JdbcConverter converter) {
+                                 JdbcConverter converter) {
         this.operations = entityOperations;
         this.clazz = entity.getType();
+        this.entity = entity;
+        this.coalescingLoaders = Lazy.of(() -> ApplicationContextHolder.getBean(CoalescingLoaders.class));
+        this.cache = Lazy.of(() -> ApplicationContextHolder.getBean(EntityCaches.class).forEntity(clazz));
+        this.copier = Lazy.of(() -> clazz.isRecord() ? null : new DtoInstantiatingConverter(clazz, converter.getMappingContext(), new EntityInstantiators()));
         this.exampleMapper = Lazy.of(() -> ApplicationContextHolder.getBean(RelationalExampleMapper.class));
         this.criteriaJdbcOperation = Lazy.of(() -> ApplicationContextHolder.getBean(CustomerJdbcOperation.class));
         this.unionkey = !entity.hasIdProperty() || entity.getRequiredIdProperty().getType().isAssignableFrom(clazz);
@@ -55,12 +84,98 @@ public class DefaultJdbcRepository<T, ID>  implements BaseRepository<T, ID> {
     }
 
     private <S extends T> List<S> toList (Iterable<S> iterable) {
+        if (iterable instanceof List<S> l) {
+            return l;
+        }
         List<S> list = new ArrayList<>();
         iterable.forEach(list::add);
         return list;
     }
 
 
+    /**
+     * 条件查询缓存的key，Example转换成的查询条件已经包含了probe的值和匹配方式
+     */
+    private record QueryKey(String method, String criteria, Sort sort) {
+
+        private QueryKey(String method, Query query, Sort sort) {
+            this(method, query.getCriteria().map(Object::toString).orElse(""), sort);
+        }
+    }
+
+    private List<T> cachedList (QueryKey key, Supplier<List<T>> loader) {
+        RepositoryCache repositoryCache = cache.getNullable();
+        if (repositoryCache == null) {
+            return loader.get();
+        }
+        //缓存不可变的list，每次返回新的list和新的元素，调用方修改不影响缓存
+        List<T> cached = repositoryCache.getByQuery(key, () -> List.copyOf(loader.get()));
+        List<T> list = new ArrayList<>(cached.size());
+        for (T t : cached) {
+            list.add(copy(t));
+        }
+        return list;
+    }
+
+    private Optional<T> cachedOne (QueryKey key, Supplier<Optional<T>> loader) {
+        RepositoryCache repositoryCache = cache.getNullable();
+        if (repositoryCache == null) {
+            return loader.get();
+        }
+        return Optional.ofNullable(copy(repositoryCache.getByQuery(key, () -> loader.get().orElse(null))));
+    }
+
+    @SuppressWarnings("unchecked")
+    private T copy (T value) {
+        DtoInstantiatingConverter converter = copier.getNullable();
+        return value == null || converter == null ? value : (T) converter.convert(value);
+    }
+
+    private <R> R inserted (R result) {
+        RepositoryCache repositoryCache = cache.getNullable();
+        if (repositoryCache != null) {
+            repositoryCache.invalidateQueries();
+        }
+        return result;
+    }
+
+    private <R> R updatedIds (R result, Iterable<?> ids) {
+        RepositoryCache repositoryCache = cache.getNullable();
+        if (repositoryCache != null) {
+            if (unionkey) {
+                repositoryCache.invalidateAll();
+            }else {
+                repositoryCache.invalidate(ids);
+            }
+        }
+        return result;
+    }
+
+    private <R> R updatedEntities (R result, Iterable<T> entities) {
+        RepositoryCache repositoryCache = cache.getNullable();
+        if (repositoryCache != null) {
+            List<Object> ids = new ArrayList<>();
+            if (!unionkey) {
+                entities.forEach(e -> {
+                    Object id = entity.getIdentifierAccessor(e).getIdentifier();
+                    if (id != null) {
+                        ids.add(id);
+                    }
+                });
+            }
+            updatedIds(result, ids);
+        }
+        return result;
+    }
+
+    private <R> R updatedAll (R result) {
+        RepositoryCache repositoryCache = cache.getNullable();
+        if (repositoryCache != null) {
+            repositoryCache.invalidateAll();
+        }
+        return result;
+    }
+
     @Override
     public long count(Example<T> example) {
         return operations.count(toQuery(example), example.getProbeType());
@@ -73,32 +188,78 @@ public class DefaultJdbcRepository<T, ID>  implements BaseRepository<T, ID> {
 
     @Override
     public long deleteAll(Example<T> example) {
-        return criteriaJdbcOperation.get().deleteAll(toQuery(example), example.getProbeType());
+        return updatedAll(criteriaJdbcOperation.get().deleteAll(toQuery(example), example.getProbeType()));
     }
 
     @Override
     public long deleteAll(Example<T> example, int limit) {
-        return criteriaJdbcOperation.get().deleteAll(toQuery(example).limit(limit),example.getProbeType());
+        return updatedAll(criteriaJdbcOperation.get().deleteAll(toQuery(example).limit(limit),example.getProbeType()));
     }
 
     @Override
     public long deleteAll(Weekend<T> weekend) {
-        return criteriaJdbcOperation.get().deleteAll(toQuery(weekend), weekend.getEntityClass());
+        return updatedAll(criteriaJdbcOperation.get().deleteAll(toQuery(weekend), weekend.getEntityClass()));
     }
 
     @Override
     public long deleteAll(Weekend<T> weekend, int limit) {
-        return criteriaJdbcOperation.get().deleteAll(toQuery(weekend).limit(limit), weekend.getEntityClass());
+        return updatedAll(criteriaJdbcOperation.get().deleteAll(toQuery(weekend).limit(limit), weekend.getEntityClass()));
     }
 
     @Override
     public int insertSelective(T entity) {
-        return criteriaJdbcOperation.get().insertSelective(entity, clazz);
+        return inserted(criteriaJdbcOperation.get().insertSelective(entity, clazz));
     }
 
     @Override
     public long insertList(Iterable<T> entities) {
-        return criteriaJdbcOperation.get().insertList(entities, clazz);
+        return inserted(criteriaJdbcOperation.get().insertList(entities, clazz));
+    }
+
+    @Override
+    public long insertSelectiveList(Iterable<T> entities) {
+        return inserted(criteriaJdbcOperation.get().insertSelectiveList(entities, clazz));
+    }
+
+    @Override
+    public int upsert(T entity) {
+        return updatedAll(criteriaJdbcOperation.get().upsert(entity, clazz, List.of()));
+    }
+
+    @Override
+    @SafeVarargs
+    public final int upsert(T entity, Fn<T, Object>... updateColumns) {
+        return updatedAll(criteriaJdbcOperation.get().upsert(entity, clazz, toProperties(updateColumns)));
+    }
+
+    @Override
+    public long upsertList(Iterable<T> entities) {
+        return updatedAll(criteriaJdbcOperation.get().upsertList(entities, clazz, List.of()));
+    }
+
+    @Override
+    @SafeVarargs
+    public final long upsertList(Iterable<T> entities, Fn<T, Object>... updateColumns) {
+        return updatedAll(criteriaJdbcOperation.get().upsertList(entities, clazz, toProperties(updateColumns)));
+    }
+
+    @Override
+    public long insertStream(Stream<T> entities) {
+        return inserted(criteriaJdbcOperation.get().insertStream(entities, clazz, 0, true, null));
+    }
+
+    @Override
+    public long insertStream(Stream<T> entities, int chunkSize, boolean commitPerChunk, LongConsumer progress) {
+        return inserted(criteriaJdbcOperation.get().insertStream(entities, clazz, chunkSize, commitPerChunk, progress));
+    }
+
+    @Override
+    public long loadData(Stream<T> entities) {
+        return inserted(criteriaJdbcOperation.get().loadData(entities, clazz));
+    }
+
+    private List<String> toProperties (Fn<T, Object>[] fns) {
+        return Arrays.stream(fns).map(Reflections::fnToFieldName).toList();
     }
 
     @Override
@@ -133,24 +294,108 @@ public class DefaultJdbcRepository<T, ID>  implements BaseRepository<T, ID> {
         return criteriaJdbcOperation.get().findAll(toQuery(weekend).sort(sort), weekend.getEntityClass());
     }
 
+    @Override
+    public <P> List<P> findAll(Weekend<T> weekend, Class<P> projection) {
+        return criteriaJdbcOperation.get().findAll(toQuery(weekend), weekend.getEntityClass(), projection);
+    }
+
+    @Override
+    public <P> List<P> findAll(Weekend<T> weekend, Sort sort, Class<P> projection) {
+        return criteriaJdbcOperation.get().findAll(toQuery(weekend).sort(sort), weekend.getEntityClass(), projection);
+    }
+
+    @Override
+    public Aggregation<T> aggregate(Weekend<T> weekend) {
+        return new Aggregation<>(criteriaJdbcOperation.get(), weekend.getEntityClass(), toQuery(weekend), null);
+    }
+
+    @Override
+    public Aggregation<T> aggregate(Weekend<T> weekend, String table) {
+        return new Aggregation<>(criteriaJdbcOperation.get(), weekend.getEntityClass(), toQuery(weekend), table);
+    }
+
+    @Override
+    public List<T> findAll(QueryTemplate<T> template, Object... values) {
+        return criteriaJdbcOperation.get().findAll(template, values);
+    }
+
+    @Override
+    public Optional<T> findOne(QueryTemplate<T> template, Object... values) {
+        return criteriaJdbcOperation.get().findOne(template, values);
+    }
+
+    @Override
+    public long count(QueryTemplate<T> template, Object... values) {
+        return criteriaJdbcOperation.get().count(template, values);
+    }
+
+    @Override
+    public boolean exists(QueryTemplate<T> template, Object... values) {
+        return criteriaJdbcOperation.get().exists(template, values);
+    }
+
+    @Override
+    public long[] findIds(Weekend<T> weekend) {
+        return criteriaJdbcOperation.get().findIds(toQuery(weekend), weekend.getEntityClass());
+    }
+
+    @Override
+    public void scanIds(Weekend<T> weekend, LongConsumer consumer) {
+        criteriaJdbcOperation.get().scanIds(toQuery(weekend), weekend.getEntityClass(), consumer);
+    }
+
+    @Override
+    public <V> List<V> findColumn(Weekend<T> weekend, Fn<T, Object> fn, Class<V> type) {
+        return criteriaJdbcOperation.get().findColumn(toQuery(weekend), Reflections.fnToFieldName(fn), weekend.getEntityClass(), type);
+    }
+
+    @Override
+    public int[] findIntColumn(Weekend<T> weekend, Fn<T, Object> fn) {
+        return criteriaJdbcOperation.get().findIntColumn(toQuery(weekend), Reflections.fnToFieldName(fn), weekend.getEntityClass());
+    }
+
+    @Override
+    public long[] findLongColumn(Weekend<T> weekend, Fn<T, Object> fn) {
+        return criteriaJdbcOperation.get().findLongColumn(toQuery(weekend), Reflections.fnToFieldName(fn), weekend.getEntityClass());
+    }
+
+    @Override
+    public double[] findDoubleColumn(Weekend<T> weekend, Fn<T, Object> fn) {
+        return criteriaJdbcOperation.get().findDoubleColumn(toQuery(weekend), Reflections.fnToFieldName(fn), weekend.getEntityClass());
+    }
+
+    @Override
+    public void scanLongColumn(Weekend<T> weekend, Fn<T, Object> fn, LongConsumer consumer) {
+        criteriaJdbcOperation.get().scanLongColumn(toQuery(weekend), Reflections.fnToFieldName(fn), weekend.getEntityClass(), consumer);
+    }
+
+    @Override
+    public <V> void scanColumn(Weekend<T> weekend, Fn<T, Object> fn, Class<V> type, Consumer<? super V> consumer) {
+        criteriaJdbcOperation.get().scanColumn(toQuery(weekend), Reflections.fnToFieldName(fn), weekend.getEntityClass(), type, consumer);
+    }
+
     @Override
     public List<T> findAll(Example<T> example) {
-        return criteriaJdbcOperation.get().findAll(toQuery(example), example.getProbeType());
+        Query query = toQuery(example);
+        return cachedList(new QueryKey("findAll", query, Sort.unsorted()), () -> criteriaJdbcOperation.get().findAll(query, example.getProbeType()));
     }
 
     @Override
     public List<T> findAll(Example<T> example, Sort sort) {
-        return criteriaJdbcOperation.get().findAll(toQuery(example).sort(sort), example.getProbeType());
+        Query query = toQuery(example);
+        return cachedList(new QueryKey("findAll", query, sort), () -> criteriaJdbcOperation.get().findAll(query.sort(sort), example.getProbeType()));
     }
 
     @Override
     public Optional<T> findOne(Example<T> example) {
-        return criteriaJdbcOperation.get().findOne(toQuery(example), example.getProbeType());
+        Query query = toQuery(example);
+        return cachedOne(new QueryKey("findOne", query, Sort.unsorted()), () -> criteriaJdbcOperation.get().findOne(query, example.getProbeType()));
     }
 
     @Override
     public Optional<T> findOne(Example<T> example, Sort sort) {
-        return criteriaJdbcOperation.get().findOne(toQuery(example).sort(sort), example.getProbeType());
+        Query query = toQuery(example);
+        return cachedOne(new QueryKey("findOne", query, sort), () -> criteriaJdbcOperation.get().findOne(query.sort(sort), example.getProbeType()));
     }
 
     @Override
@@ -163,9 +408,14 @@ public class DefaultJdbcRepository<T, ID>  implements BaseRepository<T, ID> {
         return criteriaJdbcOperation.get().findOne(toQuery(weekend).sort(sort), weekend.getEntityClass());
     }
 
+    @Override
+    public <P> Optional<P> findOne(Weekend<T> weekend, Class<P> projection) {
+        return criteriaJdbcOperation.get().findOne(toQuery(weekend), weekend.getEntityClass(), projection);
+    }
+
     @Override
     public Page<T> findAll(Pageable pageable) {
-        return operations.findAll(Query.empty(), clazz, pageable);
+        return criteriaJdbcOperation.get().findAll(Query.empty(), pageable, clazz);
     }
 
     @Override
@@ -173,6 +423,11 @@ public class DefaultJdbcRepository<T, ID>  implements BaseRepository<T, ID> {
         return criteriaJdbcOperation.get().findAll(toQuery(weekend), pageable, weekend.getEntityClass());
     }
 
+    @Override
+    public <P> Page<P> findAll(Weekend<T> weekend, Pageable pageable, Class<P> projection) {
+        return criteriaJdbcOperation.get().findAll(toQuery(weekend), pageable, weekend.getEntityClass(), projection);
+    }
+
     @Override
     public Page<T> findAll(Example<T> example, Pageable pageable) {
         return criteriaJdbcOperation.get().findAll(toQuery(example), pageable, example.getProbeType());
@@ -181,7 +436,7 @@ public class DefaultJdbcRepository<T, ID>  implements BaseRepository<T, ID> {
 
     @Override
     public T updateById(T entity) {
-        return operations.update(entity);
+        return updatedEntities(operations.update(entity), List.of(entity));
     }
 
     @Override
@@ -193,33 +448,46 @@ public class DefaultJdbcRepository<T, ID>  implements BaseRepository<T, ID> {
                     Object id = superclass.getConstructor().newInstance();
                     BeanUtils.copyProperties(entity, id);
                     var example = Example.of(id, ExampleMatcher.matching().withIgnoreNullValues());
-                    return Long.valueOf(criteriaJdbcOperation.get().updateSelective(entity, toObjectQuery(example), clazz)).intValue();
+                    return updatedAll(Long.valueOf(criteriaJdbcOperation.get().updateSelective(entity, toObjectQuery(example), clazz)).intValue());
                 } catch (Throwable e) {
                     throw new RuntimeException(e);
                 }
             }
         }
-        return criteriaJdbcOperation.get().updateByIdSelective(entity, clazz);
+        return updatedEntities(criteriaJdbcOperation.get().updateByIdSelective(entity, clazz), List.of(entity));
+    }
+
+    @Override
+    public int[] updateByIdSelective(Iterable<T> entities) {
+        if (unionkey) {
+            throw new UnsupportedOperationException("batch update by ids not supported for union key");
+        }
+        return updatedEntities(criteriaJdbcOperation.get().updateByIdSelective(entities, clazz), entities);
     }
 
     @Override
     public long updateSelective(T entity, Weekend<T> weekend) {
-        return criteriaJdbcOperation.get().updateSelective(entity, toQuery(weekend), weekend.getEntityClass());
+        return updatedAll(criteriaJdbcOperation.get().updateSelective(entity, toQuery(weekend), weekend.getAssignments(), weekend.getEntityClass()));
     }
 
     @Override
     public long updateSelective(T entity, Weekend<T> weekend, int limit) {
-        return criteriaJdbcOperation.get().updateSelective(entity, toQuery(weekend).limit(limit), weekend.getEntityClass());
+        return updatedAll(criteriaJdbcOperation.get().updateSelective(entity, toQuery(weekend).limit(limit), weekend.getAssignments(), weekend.getEntityClass()));
+    }
+
+    @Override
+    public long update(Weekend<T> weekend) {
+        return updatedAll(criteriaJdbcOperation.get().updateSelective(null, toQuery(weekend), weekend.getAssignments(), weekend.getEntityClass()));
     }
 
     @Override
     public long updateSelective(T entity, Example<T> example) {
-        return criteriaJdbcOperation.get().updateSelective(entity, toQuery(example), example.getProbeType());
+        return updatedAll(criteriaJdbcOperation.get().updateSelective(entity, toQuery(example), example.getProbeType()));
     }
 
     @Override
     public long updateSelective(T entity, Example<T> example, int limit) {
-        return criteriaJdbcOperation.get().updateSelective(entity, toQuery(example).limit(limit), example.getProbeType());
+        return updatedAll(criteriaJdbcOperation.get().updateSelective(entity, toQuery(example).limit(limit), example.getProbeType()));
     }
 
 
@@ -230,7 +498,29 @@ public class DefaultJdbcRepository<T, ID>  implements BaseRepository<T, ID> {
             var example = Example.of(id, ExampleMatcher.matching().withIgnoreNullValues());
             return criteriaJdbcOperation.get().findOne(toObjectQuery(example), clazz);
         }
-        return Optional.ofNullable(operations.findById(id, clazz));
+        RepositoryCache repositoryCache = cache.getNullable();
+        if (repositoryCache != null) {
+            return Optional.ofNullable(copy(repositoryCache.getById(id, () -> loadById(id))));
+        }
+        return Optional.ofNullable(loadById(id));
+    }
+
+    private T loadById (ID id) {
+        CoalescingLoaders loaders = coalescingLoaders.get();
+        if (loaders.isActive()) {
+            return loaders.<ID, T>loader(clazz, this::findAllByIdAsMap).load(id);
+        }
+        return operations.findById(id, clazz);
+    }
+
+    @SuppressWarnings("unchecked")
+    private Map<ID, T> findAllByIdAsMap (List<ID> ids) {
+        List<T> list = criteriaJdbcOperation.get().findAllById(ids, clazz);
+        Map<ID, T> map = new HashMap<>(list.size() * 2);
+        for (T t : list) {
+            map.put((ID) entity.getIdentifierAccessor(t).getRequiredIdentifier(), t);
+        }
+        return map;
     }
 
     @Override
@@ -259,7 +549,37 @@ public class DefaultJdbcRepository<T, ID>  implements BaseRepository<T, ID> {
 
     @Override
     public List<T> findAll() {
-        return toList(operations.findAll(clazz));
+        return cachedList(new QueryKey("findAll", "", Sort.unsorted()), () -> toList(operations.findAll(clazz)));
+    }
+
+    @Override
+    public Window<T> findAfter(Sort sort, ScrollPosition position, int limit) {
+        return criteriaJdbcOperation.get().findAfter(Query.empty(), sort, position, limit, clazz);
+    }
+
+    @Override
+    public Window<T> findAfter(Weekend<T> weekend, Sort sort, ScrollPosition position, int limit) {
+        return criteriaJdbcOperation.get().findAfter(toQuery(weekend), sort, position, limit, weekend.getEntityClass());
+    }
+
+    @Override
+    public Window<T> findAfter(Example<T> example, Sort sort, ScrollPosition position, int limit) {
+        return criteriaJdbcOperation.get().findAfter(toQuery(example), sort, position, limit, example.getProbeType());
+    }
+
+    @Override
+    public Stream<T> streamAll() {
+        return criteriaJdbcOperation.get().streamAll(Query.empty(), clazz);
+    }
+
+    @Override
+    public Stream<T> streamAll(Weekend<T> weekend) {
+        return criteriaJdbcOperation.get().streamAll(toQuery(weekend), weekend.getEntityClass());
+    }
+
+    @Override
+    public Stream<T> streamAll(Example<T> example) {
+        return criteriaJdbcOperation.get().streamAll(toQuery(example), example.getProbeType());
     }
 
     @Override
@@ -267,7 +587,7 @@ public class DefaultJdbcRepository<T, ID>  implements BaseRepository<T, ID> {
         if (unionkey) {
             throw new UnsupportedOperationException("find by ids not supported for union key");
         }
-        return toList(operations.findAllById(ids, clazz));
+        return criteriaJdbcOperation.get().findAllById(ids, clazz);
     }
 
     @Override
@@ -287,7 +607,7 @@ public class DefaultJdbcRepository<T, ID>  implements BaseRepository<T, ID> {
                 throw new RuntimeException(e);
             }
         }
-        return criteriaJdbcOperation.get().deleteById(id, clazz);
+        return updatedIds(criteriaJdbcOperation.get().deleteById(id, clazz), List.of(id));
     }
 
 
@@ -296,7 +616,7 @@ public class DefaultJdbcRepository<T, ID>  implements BaseRepository<T, ID> {
         if (unionkey) {
             throw new UnsupportedOperationException("delete by ids not supported for union key");
         }
-        return criteriaJdbcOperation.get().deleteAllById(ids, clazz);
+        return updatedIds(criteriaJdbcOperation.get().deleteAllById(ids, clazz), ids);
     }
 
     @Override
@@ -305,13 +625,13 @@ public class DefaultJdbcRepository<T, ID>  implements BaseRepository<T, ID> {
         if (unionkey) {
             throw new UnsupportedOperationException("delete by ids not supported for union key");
         }
-        return criteriaJdbcOperation.get().deleteAllById(ids, clazz);
+        return updatedIds(criteriaJdbcOperation.get().deleteAllById(ids, clazz), Arrays.asList(ids));
     }
 
 
     @Override
     public long deleteAll() {
-        return criteriaJdbcOperation.get().deleteAll(clazz);
+        return updatedAll(criteriaJdbcOperation.get().deleteAll(clazz));
     }
 
     @Override
@@ -352,6 +672,36 @@ public class DefaultJdbcRepository<T, ID>  implements BaseRepository<T, ID> {
         return criteriaJdbcOperation.get().findAll(toQuery(weekend), weekend.getEntityClass(), table);
     }
 
+    @Override
+    public Window<T> findAfter(Sort sort, ScrollPosition position, int limit, String table) {
+        return criteriaJdbcOperation.get().findAfter(Query.empty(), sort, position, limit, clazz, table);
+    }
+
+    @Override
+    public Window<T> findAfter(Weekend<T> weekend, Sort sort, ScrollPosition position, int limit, String table) {
+        return criteriaJdbcOperation.get().findAfter(toQuery(weekend), sort, position, limit, weekend.getEntityClass(), table);
+    }
+
+    @Override
+    public Window<T> findAfter(Example<T> example, Sort sort, ScrollPosition position, int limit, String table) {
+        return criteriaJdbcOperation.get().findAfter(toQuery(example), sort, position, limit, example.getProbeType(), table);
+    }
+
+    @Override
+    public Stream<T> streamAll(String table) {
+        return criteriaJdbcOperation.get().streamAll(Query.empty(), clazz, table);
+    }
+
+    @Override
+    public Stream<T> streamAll(Weekend<T> weekend, String table) {
+        return criteriaJdbcOperation.get().streamAll(toQuery(weekend), weekend.getEntityClass(), table);
+    }
+
+    @Override
+    public Stream<T> streamAll(Example<T> example, String table) {
+        return criteriaJdbcOperation.get().streamAll(toQuery(example), example.getProbeType(), table);
+    }
+
     @Override
     public List<T> findAll(Weekend<T> weekend, Sort sort, String table) {
         return criteriaJdbcOperation.get().findAll(toQuery(weekend).sort(sort), weekend.getEntityClass(), table);
@@ -372,6 +722,26 @@ public class DefaultJdbcRepository<T, ID>  implements BaseRepository<T, ID> {
         return criteriaJdbcOperation.get().findAll(toQuery(example), pageable, example.getProbeType(), table);
     }
 
+    @Override
+    public <P> Optional<P> findOne(Weekend<T> weekend, Class<P> projection, String table) {
+        return criteriaJdbcOperation.get().findOne(toQuery(weekend), weekend.getEntityClass(), projection, table);
+    }
+
+    @Override
+    public <P> List<P> findAll(Weekend<T> weekend, Class<P> projection, String table) {
+        return criteriaJdbcOperation.get().findAll(toQuery(weekend), weekend.getEntityClass(), projection, table);
+    }
+
+    @Override
+    public <P> List<P> findAll(Weekend<T> weekend, Sort sort, Class<P> projection, String table) {
+        return criteriaJdbcOperation.get().findAll(toQuery(weekend).sort(sort), weekend.getEntityClass(), projection, table);
+    }
+
+    @Override
+    public <P> Page<P> findAll(Weekend<T> weekend, Pageable pageable, Class<P> projection, String table) {
+        return criteriaJdbcOperation.get().findAll(toQuery(weekend), pageable, weekend.getEntityClass(), projection, table);
+    }
+
     @Override
     public List<T> findLimit(int limit, Sort sort, String table) {
         return criteriaJdbcOperation.get().findAll(Query.empty().limit(limit).sort(sort), clazz, table);
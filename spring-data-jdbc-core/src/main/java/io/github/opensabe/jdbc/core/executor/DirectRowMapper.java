@@ -0,0 +1,164 @@
+package io.github.opensabe.jdbc.core.executor;
+
+import org.springframework.data.convert.CustomConversions;
+import org.springframework.data.convert.ValueConverter;
+import org.springframework.data.jdbc.core.convert.JdbcConverter;
+import org.springframework.data.mapping.InstanceCreatorMetadata;
+import org.springframework.data.relational.core.conversion.AbstractRelationalConverter;
+import org.springframework.data.relational.core.mapping.RelationalPersistentEntity;
+import org.springframework.data.relational.core.mapping.RelationalPersistentProperty;
+import org.springframework.data.util.TypeInformation;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.jdbc.support.JdbcUtils;
+import org.springframework.util.ClassUtils;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.ref.WeakReference;
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 扁平实体（没有嵌入、关联、集合属性，有无参构造方法）直接从ResultSet按列号读取并通过MethodHandle赋值，
+ * 不经过RowDocument和PersistentPropertyAccessor。值的类型跟属性不一致或者注册了读取转换器时仍然交给{@link JdbcConverter#readValue}，
+ * 因此自定义的@ReadingConverter依然生效。
+ * 列的顺序按第一行的ResultSetMetaData解析，每种列组合只解析一次
+ * @author heng.ma
+ */
+class DirectRowMapper<T> implements RowMapper<T> {
+
+    private final JdbcConverter converter;
+
+    private final CustomConversions conversions;
+
+    private final MethodHandle constructor;
+
+    /**
+     * key为小写的字段名
+     */
+    private final Map<String, Setter> setters;
+
+    private final Map<List<String>, Setter[]> bindings = new ConcurrentHashMap<>();
+
+    private final ThreadLocal<Binding> current = new ThreadLocal<>();
+
+    private DirectRowMapper(JdbcConverter converter, MethodHandle constructor, Map<String, Setter> setters) {
+        this.converter = converter;
+        this.conversions = converter instanceof AbstractRelationalConverter c ? c.getConversions() : null;
+        this.constructor = constructor;
+        this.setters = setters;
+    }
+
+    /**
+     * 实体不是扁平结构时返回empty，调用方使用通用的EntityRowMapper
+     */
+    static <T> Optional<RowMapper<T>> create (RelationalPersistentEntity<T> entity, JdbcConverter converter) {
+        Class<T> type = entity.getType();
+        InstanceCreatorMetadata<RelationalPersistentProperty> creator = entity.getInstanceCreatorMetadata();
+        if (creator != null && creator.hasParameters() || type.isRecord() || Modifier.isAbstract(type.getModifiers())) {
+            return Optional.empty();
+        }
+        try {
+            MethodHandles.Lookup lookup = MethodHandles.privateLookupIn(type, MethodHandles.lookup());
+            MethodHandle constructor = lookup.findConstructor(type, MethodType.methodType(void.class))
+                    .asType(MethodType.methodType(Object.class));
+            CustomConversions conversions = converter instanceof AbstractRelationalConverter c ? c.getConversions() : null;
+            Map<String, Setter> setters = new HashMap<>();
+            for (RelationalPersistentProperty property : entity) {
+                Field field = property.getField();
+                if (field == null || Modifier.isFinal(field.getModifiers()) || !flat(property, conversions)) {
+                    return Optional.empty();
+                }
+                MethodHandle setter = lookup.unreflectSetter(field)
+                        .asType(MethodType.methodType(void.class, Object.class, Object.class));
+                setters.put(property.getColumnName().getReference().toLowerCase(Locale.ROOT),
+                        new Setter(0, setter, property.getTypeInformation(), ClassUtils.resolvePrimitiveIfNecessary(property.getType())));
+            }
+            return Optional.of(new DirectRowMapper<>(converter, constructor, setters));
+        } catch (ReflectiveOperationException | IllegalArgumentException | SecurityException e) {
+            return Optional.empty();
+        }
+    }
+
+    /**
+     * 带有属性级转换器（@ValueConverter、@Converter或者通过PropertyValueConverterRegistrar注册）的属性只能通过EntityRowMapper读取
+     */
+    static boolean flat (RelationalPersistentProperty property, CustomConversions conversions) {
+        return !property.isEntity()
+                && !property.isEmbedded()
+                && !property.isAssociation()
+                && !property.isCollectionLike()
+                && !property.isMap()
+                && !property.isAnnotationPresent(ValueConverter.class)
+                && (conversions == null || !conversions.hasValueConverter(property));
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public T mapRow(ResultSet rs, int rowNum) throws SQLException {
+        Setter[] columns = columns(rs);
+        T instance;
+        try {
+            instance = (T) constructor.invokeExact();
+            for (Setter column : columns) {
+                Object value = JdbcUtils.getResultSetValue(rs, column.index);
+                if (value == null) {
+                    continue;
+                }
+                if (!column.type.isInstance(value) || conversions == null || conversions.hasCustomReadTarget(value.getClass(), column.type)) {
+                    value = converter.readValue(value, column.typeInformation);
+                }
+                column.setter.invokeExact((Object) instance, value);
+            }
+        } catch (SQLException | RuntimeException | Error e) {
+            throw e;
+        } catch (Throwable e) {
+            throw new IllegalStateException(e);
+        }
+        return instance;
+    }
+
+    /**
+     * 同一个ResultSet只在第一次读取时解析列，不同的列组合分别缓存
+     */
+    private Setter[] columns (ResultSet rs) throws SQLException {
+        Binding binding = current.get();
+        if (binding != null && binding.resultSet.get() == rs) {
+            return binding.columns;
+        }
+        ResultSetMetaData metaData = rs.getMetaData();
+        int count = metaData.getColumnCount();
+        List<String> names = new ArrayList<>(count);
+        for (int i = 1; i <= count; i++) {
+            names.add(JdbcUtils.lookupColumnName(metaData, i).toLowerCase(Locale.ROOT));
+        }
+        Setter[] columns = bindings.computeIfAbsent(names, k -> {
+            List<Setter> list = new ArrayList<>(count);
+            for (int i = 0; i < k.size(); i++) {
+                Setter setter = setters.get(k.get(i));
+                if (setter != null) {
+                    list.add(setter.at(i + 1));
+                }
+            }
+            return list.toArray(Setter[]::new);
+        });
+        current.set(new Binding(new WeakReference<>(rs), columns));
+        return columns;
+    }
+
+    private record Setter(int index, MethodHandle setter, TypeInformation<?> typeInformation, Class<?> type) {
+
+        Setter at (int index) {
+            return new Setter(index, setter, typeInformation, type);
+        }
+    }
+
+    private record Binding(WeakReference<ResultSet> resultSet, Setter[] columns) {
+    }
+}
@@ -1,12 +1,31 @@
 package io.github.opensabe.jdbc.core.executor;
 
+import io.github.opensabe.jdbc.core.InsertMode;
+import io.github.opensabe.jdbc.core.InsertStrategy;
+import io.github.opensabe.jdbc.core.aggregate.AggregateFunction;
+import io.github.opensabe.jdbc.core.aggregate.Aggregation;
+import io.github.opensabe.jdbc.core.id.IdAllocation;
+import io.github.opensabe.jdbc.core.id.IdAllocator;
+import io.github.opensabe.jdbc.core.lambda.QueryTemplate;
+import io.github.opensabe.jdbc.core.lambda.Subquery;
+import io.github.opensabe.jdbc.core.lambda.UpdateAssignment;
+import org.springframework.beans.BeanUtils;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.convert.DtoInstantiatingConverter;
+import org.springframework.data.domain.Sort;
 import org.springframework.data.jdbc.core.convert.EntityRowMapper;
 import org.springframework.data.jdbc.core.convert.JdbcConverter;
 import org.springframework.data.jdbc.core.convert.QueryMapper;
+import org.springframework.data.jdbc.core.mapping.JdbcValue;
 import org.springframework.data.mapping.PersistentPropertyAccessor;
+import org.springframework.data.mapping.model.EntityInstantiators;
+import org.springframework.data.projection.ProjectionFactory;
+import org.springframework.data.projection.SpelAwareProxyProjectionFactory;
 import org.springframework.data.relational.core.conversion.IdValueSource;
 import org.springframework.data.relational.core.dialect.Dialect;
+import org.springframework.data.relational.core.dialect.H2Dialect;
+import org.springframework.data.relational.core.dialect.MySqlDialect;
+import org.springframework.data.relational.core.dialect.PostgresDialect;
 import org.springframework.data.relational.core.dialect.RenderContextFactory;
 import org.springframework.data.relational.core.mapping.RelationalMappingContext;
 import org.springframework.data.relational.core.mapping.RelationalPersistentEntity;
@@ -15,15 +34,22 @@ import org.springframework.data.relational.core.query.CriteriaDefinition;
 import org.springframework.data.relational.core.query.Query;
 import org.springframework.data.relational.core.sql.*;
 import org.springframework.data.relational.core.sql.render.SqlRenderer;
+import org.springframework.data.repository.query.ReturnedType;
 import org.springframework.data.util.Lazy;
 import org.springframework.data.util.Pair;
+import org.springframework.data.util.TypeInformation;
 import org.springframework.jdbc.core.RowMapper;
 import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.support.JdbcUtils;
 import org.springframework.lang.Nullable;
 import org.springframework.util.Assert;
 
+import java.lang.reflect.Constructor;
+import java.lang.reflect.RecordComponent;
+import java.sql.SQLType;
 import java.util.*;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 import java.util.stream.IntStream;
 import java.util.stream.Stream;
@@ -39,27 +65,331 @@ public class ExtendSQLGeneratorSource {
     private final JdbcConverter converter;
     private final Expression exsitsExpression;
     private final IdentifierProcessing identifierProcessing;
+    private final Dialect dialect;
     @SuppressWarnings("rawtypes")
     private final Map<Class<?>, Generator> generators = new ConcurrentHashMap<>();
+
+    /**
+     * 每个实体insertSelective缓存的sql条数上限，key为非空字段组合
+     */
+    private int insertSelectiveCacheSize = 64;
+
+    /**
+     * 每个实体批量updateByIdSelective缓存的sql条数上限，key为非空字段组合
+     */
+    private int updateSelectiveCacheSize = 64;
+
+    /**
+     * 每个实体deleteByIds缓存的sql条数上限，key为in参数个数
+     */
+    private int deleteByIdsCacheSize = 64;
+
+    /**
+     * 每个实体findAllById缓存的sql条数上限，key为表名和in参数个数
+     */
+    private int findAllByIdCacheSize = 64;
+
+    /**
+     * insertList每条sql最多插入的行数，小于等于0表示不按行数拆分
+     */
+    private int insertListBatchSize = 1000;
+
+    /**
+     * 单条sql最多的占位符个数，MySQL的上限是65535
+     */
+    private int maxPlaceholders = 65535;
+
+    /**
+     * 实体上没有{@link InsertStrategy}时insertList的执行方式
+     */
+    private InsertMode defaultInsertMode = InsertMode.VALUES;
+
+    /**
+     * in (?,?...)的参数个数是否补齐到固定的档位，补齐时重复最后一个id，避免每种个数都产生一条新sql
+     */
+    private boolean inListPadding = true;
+
+    /**
+     * 自定义的档位，为空时按2的幂次补齐
+     */
+    private int[] inListBuckets;
+
+    /**
+     * 单条sql中in的最大参数个数，超过时拆成多条
+     */
+    private int maxInListSize = 1024;
+
+    /**
+     * {@link IdAllocation}指定的分配器，key为注解上的类型
+     */
+    private final Map<Class<?>, IdAllocator> idAllocators = new ConcurrentHashMap<>();
+
+    private List<IdAllocator> registeredIdAllocators = List.of();
+
+    /**
+     * 每个实体按条件结构缓存的查询、更新、删除sql条数上限
+     */
+    private int criteriaCacheSize = 256;
+
+    /**
+     * 每个实体缓存的upsert sql条数上限，key为行数和冲突时覆盖的字段
+     */
+    private int upsertCacheSize = 64;
+
+    /**
+     * MySQL的upsert是否使用行别名：insert ... values (...) as new on duplicate key update c=new.c。
+     * MySQL 8.0.20开始values(c)的写法已经不推荐使用，MariaDB和更早的MySQL不支持行别名
+     */
+    private boolean upsertRowAlias;
+
+    /**
+     * 扁平实体是否使用{@link DirectRowMapper}直接读取ResultSet
+     */
+    private boolean directRowMapper;
+
+    /**
+     * limit/offset渲染时先写入这两个值，再替换成参数，分页查询的每一页共用一条sql
+     */
+    static final long LIMIT_MARK = 1_987_654_321L;
+
+    static final long OFFSET_MARK = 1_876_543_219L;
+
+    static final String LIMIT_PARAMETER = "__limit";
+
+    static final String OFFSET_PARAMETER = "__offset";
+
+    /**
+     * 方言的limit子句是否原样写入limit/offset的值，是的话可以替换成参数，否则按值缓存
+     */
+    private final boolean limitBindable;
+
+    /**
+     * 方言渲染出的limit子句（limit和offset、只有limit、只有offset），以及替换成参数以后的子句，按顺序匹配
+     */
+    private final List<Pair<String, String>> limitClauses;
+
+    private final ProjectionFactory projectionFactory = new SpelAwareProxyProjectionFactory();
+
+    private final EntityInstantiators instantiators = new EntityInstantiators();
+
     public ExtendSQLGeneratorSource(RelationalMappingContext context,
                               JdbcConverter converter,
                               Dialect dialect) {
         this.context = context;
         this.converter = converter;
         this.exsitsExpression = dialect.getExistsFunction();
-        this.queryMapper = new QueryMapper(converter);
+        this.queryMapper = new TemplateQueryMapper(converter);
         this.sqlRenderer = SqlRenderer.create(new RenderContextFactory(dialect).createRenderContext());
         this.identifierProcessing = dialect.getIdentifierProcessing();
+        this.dialect = dialect;
+        this.limitBindable = limitBindable(dialect);
+        this.limitClauses = limitBindable ? Stream.of(
+                        dialect.limit().getLimitOffset(LIMIT_MARK, OFFSET_MARK),
+                        dialect.limit().getLimit(LIMIT_MARK),
+                        dialect.limit().getOffset(OFFSET_MARK))
+                .map(clause -> Pair.of(clause, clause
+                        .replace(String.valueOf(LIMIT_MARK), ":" + LIMIT_PARAMETER)
+                        .replace(String.valueOf(OFFSET_MARK), ":" + OFFSET_PARAMETER)))
+                .toList() : List.of();
+    }
+
+    private static boolean limitBindable (Dialect dialect) {
+        String limit = String.valueOf(LIMIT_MARK);
+        String offset = String.valueOf(OFFSET_MARK);
+        return occurrences(dialect.limit().getLimitOffset(LIMIT_MARK, OFFSET_MARK), limit) == 1
+                && occurrences(dialect.limit().getLimitOffset(LIMIT_MARK, OFFSET_MARK), offset) == 1
+                && occurrences(dialect.limit().getLimit(LIMIT_MARK), limit) == 1
+                && occurrences(dialect.limit().getOffset(OFFSET_MARK), offset) == 1;
+    }
+
+    /**
+     * 只替换sql中最后一个limit子句，其他位置（字符串、注释、子查询中的数字）出现相同的值时保持原样
+     */
+    String bindLimit (String sql) {
+        for (Pair<String, String> clause : limitClauses) {
+            int index = sql.lastIndexOf(clause.getFirst());
+            if (index >= 0) {
+                return sql.substring(0, index) + clause.getSecond() + sql.substring(index + clause.getFirst().length());
+            }
+        }
+        return sql;
+    }
+
+    private static int occurrences (String text, String part) {
+        int count = 0;
+        for (int i = text.indexOf(part); i >= 0; i = text.indexOf(part, i + part.length())) {
+            count++;
+        }
+        return count;
+    }
+
+    public void setDirectRowMapper(boolean directRowMapper) {
+        this.directRowMapper = directRowMapper;
+    }
+
+    public void setInsertSelectiveCacheSize(int insertSelectiveCacheSize) {
+        this.insertSelectiveCacheSize = insertSelectiveCacheSize;
+    }
+
+    public void setUpdateSelectiveCacheSize(int updateSelectiveCacheSize) {
+        this.updateSelectiveCacheSize = updateSelectiveCacheSize;
+    }
+
+    public void setDeleteByIdsCacheSize(int deleteByIdsCacheSize) {
+        this.deleteByIdsCacheSize = deleteByIdsCacheSize;
+    }
+
+    public void setFindAllByIdCacheSize(int findAllByIdCacheSize) {
+        this.findAllByIdCacheSize = findAllByIdCacheSize;
+    }
+
+    public void setInsertListBatchSize(int insertListBatchSize) {
+        this.insertListBatchSize = insertListBatchSize;
+    }
+
+    public void setMaxPlaceholders(int maxPlaceholders) {
+        this.maxPlaceholders = maxPlaceholders;
+    }
+
+    public void setDefaultInsertMode(InsertMode defaultInsertMode) {
+        this.defaultInsertMode = defaultInsertMode;
+    }
+
+    public void setInListPadding(boolean inListPadding) {
+        this.inListPadding = inListPadding;
+    }
+
+    public void setInListBuckets(int[] inListBuckets) {
+        this.inListBuckets = inListBuckets == null || inListBuckets.length == 0 ? null : IntStream.of(inListBuckets).sorted().toArray();
+    }
+
+    public void setMaxInListSize(int maxInListSize) {
+        this.maxInListSize = maxInListSize;
+    }
+
+    public void setCriteriaCacheSize(int criteriaCacheSize) {
+        this.criteriaCacheSize = criteriaCacheSize;
+    }
+
+    public void setUpsertCacheSize(int upsertCacheSize) {
+        this.upsertCacheSize = upsertCacheSize;
+    }
+
+    public void setUpsertRowAlias(boolean upsertRowAlias) {
+        this.upsertRowAlias = upsertRowAlias;
+    }
+
+    /**
+     * 容器中的分配器，{@link IdAllocation}优先使用这里的实例
+     */
+    public void setIdAllocators(List<IdAllocator> idAllocators) {
+        this.registeredIdAllocators = idAllocators == null ? List.of() : List.copyOf(idAllocators);
+    }
+
+    private IdAllocator idAllocator (Class<? extends IdAllocator> type) {
+        return idAllocators.computeIfAbsent(type, t -> registeredIdAllocators.stream()
+                .filter(type::isInstance)
+                .findFirst()
+                .orElseGet(() -> BeanUtils.instantiateClass(type)));
+    }
+
+    /**
+     * 实体上有{@link IdAllocation}并且主键为空时分配主键
+     * @return 赋值以后的实体，不可变实体会返回新的对象
+     */
+    @SuppressWarnings("unchecked")
+    public <T> T allocateId (T entity) {
+        Class<T> type = (Class<T>) entity.getClass();
+        if (!type.isAnnotationPresent(IdAllocation.class)) {
+            return entity;
+        }
+        Generator<T> generator = simpleSqlGenerator(type);
+        PersistentPropertyAccessor<T> accessor = generator.persistentPropertyAccessor(entity);
+        generator.allocateId(accessor);
+        return accessor.getBean();
+    }
+
+    /**
+     * in参数个数对应的档位，不超过{@link #maxInListSize}
+     */
+    int inListBucket (int size) {
+        if (!inListPadding) {
+            return size;
+        }
+        int bucket;
+        if (inListBuckets != null) {
+            bucket = IntStream.of(inListBuckets).filter(b -> b >= size).findFirst().orElse(size);
+        }else {
+            bucket = size <= 1 ? 1 : Integer.highestOneBit(size - 1) << 1;
+        }
+        return Math.max(size, Math.min(bucket, maxInListSize));
+    }
+
+    /**
+     * 按{@link #maxInListSize}拆分，每批补齐到对应的档位
+     */
+    List<Object[]> inListChunks (Collection<?> ids) {
+        Object[] all = ids.toArray();
+        int max = maxInListSize > 0 ? maxInListSize : Math.max(1, all.length);
+        List<Object[]> chunks = new ArrayList<>(all.length / max + 1);
+        for (int from = 0; from < all.length; from += max) {
+            int size = Math.min(max, all.length - from);
+            Object[] chunk = Arrays.copyOfRange(all, from, from + inListBucket(size));
+            Arrays.fill(chunk, size, chunk.length, all[from + size - 1]);
+            chunks.add(chunk);
+        }
+        return chunks;
+    }
+
+    /**
+     * insertSelective sql缓存的统计信息
+     * @param entityClass 实体类
+     */
+    public SqlCache.Statistics insertSelectiveStatistics (Class<?> entityClass) {
+        return simpleSqlGenerator(entityClass).insertSelectiveCache.statistics();
+    }
+
+    /**
+     * 所有已加载实体的insertSelective sql缓存统计信息
+     */
+    @SuppressWarnings("unchecked")
+    public Map<Class<?>, SqlCache.Statistics> insertSelectiveStatistics () {
+        Map<Class<?>, SqlCache.Statistics> statistics = new HashMap<>(generators.size());
+        generators.forEach((clazz, generator) -> statistics.put(clazz, ((Generator<?>) generator).insertSelectiveCache.statistics()));
+        return statistics;
+    }
+
+    /**
+     * 按条件结构缓存的sql的统计信息，用于评估{@link #setCriteriaCacheSize(int)}
+     * @param entityClass 实体类
+     */
+    public SqlCache.Statistics criteriaStatistics (Class<?> entityClass) {
+        return simpleSqlGenerator(entityClass).criteriaCache.statistics();
+    }
+
+    @SuppressWarnings("unchecked")
+    public Map<Class<?>, SqlCache.Statistics> criteriaStatistics () {
+        Map<Class<?>, SqlCache.Statistics> statistics = new HashMap<>(generators.size());
+        generators.forEach((clazz, generator) -> statistics.put(clazz, ((Generator<?>) generator).criteriaCache.statistics()));
+        return statistics;
     }
 
     @SuppressWarnings("unchecked")
     <T> Generator<T> simpleSqlGenerator (Class<T> clazz) {
         return generators.computeIfAbsent(clazz, c -> {
             RelationalPersistentEntity<T> entity = (RelationalPersistentEntity<T>) context.getRequiredPersistentEntity(c);
-            return new Generator<>(entity, new EntityRowMapper<>(entity, converter));
+            RowMapper<T> rowMapper = directRowMapper ? DirectRowMapper.create(entity, converter).orElse(null) : null;
+            return new Generator<>(entity, rowMapper == null ? new EntityRowMapper<>(entity, converter) : rowMapper);
         });
     }
 
+    /**
+     * 实体的RowMapper，开启directRowMapper并且实体是扁平结构时为{@link DirectRowMapper}，否则为{@link EntityRowMapper}
+     */
+    public <T> RowMapper<T> entityRowMapper (Class<T> entityClass) {
+        return simpleSqlGenerator(entityClass).getEntityRowMapper();
+    }
+
     class Generator<T> {
 
         private final RelationalPersistentEntity<T> entity;
@@ -72,6 +402,10 @@ public class ExtendSQLGeneratorSource {
         private final List<RelationalPersistentProperty> updateColumns;
         private final List<RelationalPersistentProperty> selectColumns;
 
+        private final List<Expression> allSelectExpressions;
+
+        private final Map<Class<?>, Projection<?>> projections = new ConcurrentHashMap<>();
+
         private final RelationalPersistentProperty id;
 
         private final String insertPrefix;
@@ -83,6 +417,57 @@ public class ExtendSQLGeneratorSource {
         private final Lazy<String> deleteById = Lazy.of(this::getDeleteById);
         private final Lazy<String> deleteAll = Lazy.of(this::getDeleteAll);
 
+        /**
+         * insertSelective的sql只由哪些字段非空决定，key为insertColumns上的非空位图
+         */
+        private final SqlCache<BitSet, String> insertSelectiveCache = new SqlCache<>(insertSelectiveCacheSize);
+
+        /**
+         * 基于Query的sql，key为条件结构（字段、操作符、in的参数个数，不含值）以及排序、分页、表名
+         */
+        private final SqlCache<CriteriaShape, String> criteriaCache = new SqlCache<>(criteriaCacheSize);
+
+        /**
+         * insertList拆分后每批的行数，同时受行数配置和占位符上限约束
+         */
+        private final int insertListChunkSize;
+
+        /**
+         * 满批的sql是固定的，只渲染一次
+         */
+        private final Lazy<String> insertListChunk;
+
+        private final Lazy<String> insertOne;
+
+        private final InsertMode insertMode;
+
+        private final Lazy<String> loadData = Lazy.of(this::renderLoadData);
+
+        /**
+         * 没有{@link IdAllocation}时为null
+         */
+        private final IdAllocator idAllocator;
+
+        /**
+         * key为行数和需要覆盖的字段
+         */
+        private final SqlCache<UpsertShape, String> upsertCache = new SqlCache<>(upsertCacheSize);
+
+        /**
+         * 批量updateByIdSelective按非空字段组合缓存sql，key为updateColumns上的非空位图
+         */
+        private final SqlCache<BitSet, String> updateByIdSelectiveCache = new SqlCache<>(updateSelectiveCacheSize);
+
+        /**
+         * key为in参数个数，补齐以后只有少数几种
+         */
+        private final SqlCache<Integer, String> deleteByIdsCache = new SqlCache<>(deleteByIdsCacheSize);
+
+        /**
+         * key为表名和in参数个数
+         */
+        private final SqlCache<Pair<String, Integer>, String> findAllByIdCache = new SqlCache<>(findAllByIdCacheSize);
+
 
 
 
@@ -123,6 +508,10 @@ public class ExtendSQLGeneratorSource {
             });
 
 
+            this.allSelectExpressions = selectColumns.stream()
+                    .map(property -> (Expression) Expressions.just(property.getColumnName().toSql(identifierProcessing)))
+                    .toList();
+
             String inserts = insertColumns.stream().map(p -> p.getColumnName().toSql(identifierProcessing)).collect(Collectors.joining(","));
 
             insert.append("(").append(inserts).append(")").append(" values ");
@@ -131,6 +520,19 @@ public class ExtendSQLGeneratorSource {
             this.selectPrefix = select.deleteCharAt(select.length()-1)
                     .append(" from ").toString();
 
+            int chunk = Math.max(1, maxPlaceholders / Math.max(1, insertColumns.size()));
+            this.insertListChunkSize = insertListBatchSize > 0 ? Math.min(insertListBatchSize, chunk) : chunk;
+            this.insertListChunk = Lazy.of(() -> renderInsertList(insertListChunkSize));
+            this.insertOne = Lazy.of(() -> renderInsertList(1));
+            this.insertMode = Optional.ofNullable(entity.findAnnotation(InsertStrategy.class))
+                    .map(InsertStrategy::value)
+                    .orElse(defaultInsertMode);
+            this.idAllocator = Optional.ofNullable(entity.findAnnotation(IdAllocation.class))
+                    .map(allocation -> {
+                        Assert.state(id != null && id.isWritable(), () -> entity.getName() + " with @IdAllocation must have a writable @Id property");
+                        return idAllocator(allocation.value());
+                    })
+                    .orElse(null);
         }
 
         public IdValueSource getIdValueSource() {
@@ -142,6 +544,17 @@ public class ExtendSQLGeneratorSource {
             return id;
         }
 
+        /**
+         * 实体对应的表名，不带引号
+         */
+        String getTableName () {
+            return entity.getTableName().getReference();
+        }
+
+        public InsertMode getInsertMode() {
+            return insertMode;
+        }
+
 
         public String deleteById () {
             return deleteById.get();
@@ -152,14 +565,15 @@ public class ExtendSQLGeneratorSource {
         }
 
         public String deleteByIds (int count) {
-            StringBuilder sql = new StringBuilder("delete from ")
-                    .append(table.getReferenceName().toSql(identifierProcessing))
-                    .append(" where ")
-                    .append(id.getColumnName().toSql(identifierProcessing))
-                    .append(" in (");
-            String params = Stream.generate(() -> "?").limit(count).collect(Collectors.joining(","));
-            sql.append(params).append(")");
-            return sql.toString();
+            return deleteByIdsCache.get(count, c -> "delete from "
+                    + table.getReferenceName().toSql(identifierProcessing)
+                    + " where "
+                    + id.getColumnName().toSql(identifierProcessing)
+                    + " in (" + placeholders(c) + ")");
+        }
+
+        private String placeholders (int count) {
+            return Stream.generate(() -> "?").limit(count).collect(Collectors.joining(","));
         }
 
 
@@ -168,57 +582,227 @@ public class ExtendSQLGeneratorSource {
             return converter.getPropertyAccessor(entity, instance);
         }
 
+        /**
+         * 插入前给为空的主键赋值，取插入参数的地方都要先调用
+         */
+        void allocateId (PersistentPropertyAccessor<T> accessor) {
+            if (idAllocator != null && accessor.getProperty(id) == null) {
+                accessor.setProperty(id, idAllocator.next(entity));
+            }
+        }
+
         public RowMapper<T> getEntityRowMapper() {
             return rowMapper;
         }
-
         Triple<String, Object[], PersistentPropertyAccessor<T>> insertSelective (T instance) {
-            StringBuilder sql = new StringBuilder("insert into ");
-            sql.append(table.getName().toSql(identifierProcessing));
-            sql.append(" (");
-            List<Object> args = new ArrayList<>(insertColumns.size());
-            List<String> properties = new ArrayList<>(insertColumns.size());
+            Triple<BitSet, Object[], PersistentPropertyAccessor<T>> triple = selectiveValues(instance);
+            return Triple.of(insertSelective(triple.first()), triple.second(), triple.third());
+        }
+
+        /**
+         * 取出非空字段的值
+         * @return 非空字段在insertColumns上的位图，非空的值，属性访问器
+         */
+        Triple<BitSet, Object[], PersistentPropertyAccessor<T>> selectiveValues (T instance) {
             PersistentPropertyAccessor<T> accessor = persistentPropertyAccessor(instance);
-            for (RelationalPersistentProperty property : insertColumns) {
-                Object value = accessor.getProperty(property);
+            allocateId(accessor);
+            BitSet shape = new BitSet(insertColumns.size());
+            Object[] args = new Object[insertColumns.size()];
+            int count = 0;
+            for (int i = 0; i < insertColumns.size(); i++) {
+                Object value = accessor.getProperty(insertColumns.get(i));
                 if (Objects.nonNull(value)) {
-                    args.add(value);
-                    properties.add(property.getColumnName().toSql(identifierProcessing));
+                    shape.set(i);
+                    args[count++] = value;
                 }
             }
-            sql.append(String.join(",", properties));
+            return Triple.of(shape, count == args.length ? args : Arrays.copyOf(args, count), accessor);
+        }
+
+        String insertSelective (BitSet shape) {
+            return insertSelectiveCache.get(shape, this::renderInsertSelective);
+        }
+
+        private String renderInsertSelective (BitSet shape) {
+            StringBuilder sql = new StringBuilder("insert into ");
+            sql.append(table.getName().toSql(identifierProcessing));
+            sql.append(" (");
+            sql.append(shape.stream()
+                    .mapToObj(i -> insertColumns.get(i).getColumnName().toSql(identifierProcessing))
+                    .collect(Collectors.joining(",")));
             sql.append(") values (");
-            sql.append(Stream.generate(() -> "?").limit(args.size()).collect(Collectors.joining(",")));
+            sql.append(Stream.generate(() -> "?").limit(shape.cardinality()).collect(Collectors.joining(",")));
             sql.append(")");
+            return sql.toString();
+        }
+
+        int insertListChunkSize() {
+            return insertListChunkSize;
+        }
+
+        /**
+         * addBatch/executeBatch每批的行数，驱动会自己改写，因此只受行数配置约束
+         */
+        int batchSize() {
+            return insertListBatchSize > 0 ? insertListBatchSize : Integer.MAX_VALUE;
+        }
+
+        /**
+         * 包含所有insertColumns的单行insert
+         */
+        String insertOne () {
+            return insertOne.get();
+        }
 
-            return Triple.of(sql.toString(), args.toArray(), accessor);
+        Object[] insertValues (PersistentPropertyAccessor<T> accessor) {
+            allocateId(accessor);
+            Object[] args = new Object[insertColumns.size()];
+            for (int i = 0; i < args.length; i++) {
+                args[i] = accessor.getProperty(insertColumns.get(i));
+            }
+            return args;
         }
 
-        Triple<String, Object[], Map<T, PersistentPropertyAccessor<T>>> insertList (Collection<T> instances) {
+        /**
+         * 生成一批的insert语句，调用方负责按{@link #insertListChunkSize()}拆分
+         * @param instances 一批数据，行数不能超过insertListChunkSize
+         */
+        Triple<String, Object[], List<PersistentPropertyAccessor<T>>> insertList (List<T> instances) {
             int size = instances.size();
-            Map<T, PersistentPropertyAccessor<T>> accessors = new IdentityHashMap<>(size);
+            String sql = size == insertListChunkSize ? insertListChunk.get() : renderInsertList(size);
+            List<PersistentPropertyAccessor<T>> accessors = new ArrayList<>(size);
+            for (T instance : instances) {
+                accessors.add(persistentPropertyAccessor(instance));
+            }
+            return Triple.of(sql, insertListValues(accessors), accessors);
+        }
+
+        /**
+         * 按行依次取出所有insertColumns的值
+         */
+        Object[] insertListValues (List<PersistentPropertyAccessor<T>> accessors) {
+            Object[] args = new Object[insertColumns.size() * accessors.size()];
+            int i = 0;
+            for (PersistentPropertyAccessor<T> accessor : accessors) {
+                allocateId(accessor);
+                for (RelationalPersistentProperty property : insertColumns) {
+                    args[i++] = accessor.getProperty(property);
+                }
+            }
+            return args;
+        }
+
+        /**
+         * 只有MySQL（包括MariaDB）支持LOAD DATA LOCAL INFILE
+         */
+        boolean loadDataSupported () {
+            return dialect instanceof MySqlDialect;
+        }
+
+        /**
+         * 字段顺序跟{@link #insertValues(PersistentPropertyAccessor)}一致，数据格式见{@link LoadDataInputStream}
+         */
+        String loadData () {
+            return loadData.get();
+        }
+
+        private String renderLoadData () {
+            return "load data local infile 'stream' into table "
+                    + table.getName().toSql(identifierProcessing)
+                    + " character set utf8mb4 fields terminated by '\\t' escaped by '\\\\' lines terminated by '\\n' ("
+                    + insertColumns.stream().map(p -> p.getColumnName().toSql(identifierProcessing)).collect(Collectors.joining(","))
+                    + ")";
+        }
+
+        private String renderInsertList (int rows) {
             String params = Stream.generate(() -> "?").limit(insertColumns.size()).collect(Collectors.joining(","));
             String line = "(" + params + ")";
-            String lines = Stream.generate(() -> line).limit(size).collect(Collectors.joining(","));
-            String sql = insertPrefix + lines;
-            List<Object> args = new ArrayList<>(insertColumns.size() * size);
-            instances.forEach(entity -> insertColumns.forEach(property -> {
-                PersistentPropertyAccessor<T> accessor = accessors.computeIfAbsent(entity, this::persistentPropertyAccessor);
-                args.add(accessor.getProperty(property));
-            }));
-            return Triple.of(sql, args.toArray(), accessors);
+            StringBuilder sql = new StringBuilder(insertPrefix.length() + (line.length() + 1) * rows).append(insertPrefix);
+            for (int i = 0; i < rows; i++) {
+                if (i > 0) {
+                    sql.append(',');
+                }
+                sql.append(line);
+            }
+            return sql.toString();
         }
 
 
+        /**
+         * upsert的sql，values部分的参数跟{@link #insertList(List)}一致
+         * <ul>
+         *     <li>MySQL: insert ... on duplicate key update，开启{@link #setUpsertRowAlias(boolean)}时使用行别名</li>
+         *     <li>Postgres: insert ... on conflict (id) do update</li>
+         *     <li>H2: merge into ... using (values ...)</li>
+         * </ul>
+         * 自增主键不在insert的字段中，冲突判断不到主键上，这类实体直接拒绝
+         * @param rows 行数
+         * @param properties 冲突时需要覆盖的属性名，为空时覆盖所有可更新的非主键字段
+         */
+        String upsert (int rows, Collection<String> properties) {
+            if (IdValueSource.GENERATED.equals(idValueSource)) {
+                throw new UnsupportedOperationException("upsert with generated id is not supported: " + entity.getType().getName());
+            }
+            List<RelationalPersistentProperty> updates;
+            if (properties == null || properties.isEmpty()) {
+                updates = updateColumns.stream().filter(p -> !p.isIdProperty()).toList();
+            }else {
+                updates = properties.stream().map(entity::getRequiredPersistentProperty).toList();
+                updates.forEach(p -> Assert.isTrue(updateColumns.contains(p) && !p.isIdProperty(),
+                        () -> String.format("Property %s of %s can not be updated on conflict", p.getName(), entity.getType().getName())));
+            }
+            return upsertCache.get(new UpsertShape(rows, updates), this::renderUpsert);
+        }
+
+        private String renderUpsert (UpsertShape shape) {
+            List<String> updates = shape.updates().stream().map(p -> p.getColumnName().toSql(identifierProcessing)).toList();
+            if (dialect instanceof MySqlDialect) {
+                String key = Optional.ofNullable(id).orElse(insertColumns.get(0)).getColumnName().toSql(identifierProcessing);
+                String set = updates.isEmpty() ? key + "=" + key : updates.stream()
+                        .map(c -> upsertRowAlias ? c + "=new." + c : c + "=values(" + c + ")")
+                        .collect(Collectors.joining(","));
+                return renderInsertList(shape.rows()) + (upsertRowAlias ? " as new" : "") + " on duplicate key update " + set;
+            }
+            if (Objects.isNull(id)) {
+                throw new UnsupportedOperationException("upsert without @Id is only supported by MySQL: " + entity.getType().getName());
+            }
+            String key = id.getColumnName().toSql(identifierProcessing);
+            if (dialect instanceof PostgresDialect) {
+                String action = updates.isEmpty() ? "do nothing" : "do update set " + updates.stream()
+                        .map(c -> c + "=excluded." + c)
+                        .collect(Collectors.joining(","));
+                return renderInsertList(shape.rows()) + " on conflict (" + key + ") " + action;
+            }
+            if (dialect instanceof H2Dialect) {
+                List<String> columns = insertColumns.stream().map(p -> p.getColumnName().toSql(identifierProcessing)).toList();
+                String line = "(" + Stream.generate(() -> "?").limit(columns.size()).collect(Collectors.joining(",")) + ")";
+                StringBuilder sql = new StringBuilder("merge into ")
+                        .append(table.getName().toSql(identifierProcessing))
+                        .append(" t using (values ")
+                        .append(Stream.generate(() -> line).limit(shape.rows()).collect(Collectors.joining(",")))
+                        .append(") s(").append(String.join(",", columns)).append(")")
+                        .append(" on t.").append(key).append("=s.").append(key);
+                if (!updates.isEmpty()) {
+                    sql.append(" when matched then update set ")
+                            .append(updates.stream().map(c -> "t." + c + "=s." + c).collect(Collectors.joining(",")));
+                }
+                sql.append(" when not matched then insert (").append(String.join(",", columns)).append(") values (")
+                        .append(columns.stream().map(c -> "s." + c).collect(Collectors.joining(",")))
+                        .append(")");
+                return sql.toString();
+            }
+            throw new UnsupportedOperationException("upsert is not supported by dialect " + dialect.getClass().getName());
+        }
+
         Pair<String, MapSqlParameterSource> deleteAll (Query query) {
-            DeleteBuilder.DeleteWhere deleteWhere = Delete.builder().from(table);
             MapSqlParameterSource parameterSource = new MapSqlParameterSource();
             if (Objects.isNull(query) || query.getCriteria().isEmpty()) {
-                return Pair.of(sqlRenderer.render(deleteWhere.build()), parameterSource);
+                return Pair.of(deleteAll(), parameterSource);
             }
-            Condition condition = queryMapper.getMappedObject(parameterSource, query.getCriteria().get(), table, entity);
-            Delete delete = deleteWhere.where(condition).build();
-            return Pair.of(sqlRenderer.render(delete), parameterSource);
+            return render(shape("deleteAll", null, query, null), query, table, parameterSource, source -> {
+                Condition condition = mapCriteria(source, query.getCriteria().get(), table);
+                return sqlRenderer.render(Delete.builder().from(table).where(condition).build());
+            });
         }
 
         Pair<String, MapSqlParameterSource> updateByIdSelective (T instance) {
@@ -239,23 +823,99 @@ public class ExtendSQLGeneratorSource {
             return Pair.of(sqlRenderer.render(update), parameterSource);
         }
 
-        Pair<String, MapSqlParameterSource> update (T instance, Query query) {
-            UpdateBuilder.UpdateAssign assign = Update.builder().table(table);
+        /**
+         * 取出非主键的非空字段的值，最后一个参数是主键
+         * @return 非空字段在updateColumns上的位图，参数
+         */
+        Pair<BitSet, Object[]> updateByIdSelectiveValues (T instance) {
             PersistentPropertyAccessor<T> accessor = persistentPropertyAccessor(instance);
-            MapSqlParameterSource parameterSource = new MapSqlParameterSource();
-            List<AssignValue> set = new ArrayList<>(updateColumns.size());
-            for (RelationalPersistentProperty property : updateColumns) {
+            BitSet shape = new BitSet(updateColumns.size());
+            Object[] args = new Object[updateColumns.size() + 1];
+            int count = 0;
+            for (int i = 0; i < updateColumns.size(); i++) {
+                RelationalPersistentProperty property = updateColumns.get(i);
+                if (property.isIdProperty()) {
+                    continue;
+                }
                 Object value = accessor.getProperty(property);
                 if (Objects.nonNull(value)) {
-                    String name = "set"+property.getName();
-                    parameterSource.addValue(name, value);
-                    set.add(Assignments.value(table.column(property.getColumnName()), SQL.bindMarker(":"+name)));
+                    shape.set(i);
+                    args[count++] = value;
                 }
             }
-            UpdateBuilder.UpdateWhere where = assign.set(set);
-            Condition condition = queryMapper.getMappedObject(parameterSource, query.getCriteria().orElseThrow(), table, entity);
-            Update update = where.where(condition).build();
-            return Pair.of(sqlRenderer.render(update), parameterSource);
+            args[count++] = accessor.getProperty(id);
+            return Pair.of(shape, Arrays.copyOf(args, count));
+        }
+
+        /**
+         * update t set c1=?,c2=? where id=?
+         */
+        String updateByIdSelective (BitSet shape) {
+            return updateByIdSelectiveCache.get(shape, s -> "update " + table.getName().toSql(identifierProcessing)
+                    + " set " + s.stream()
+                        .mapToObj(i -> updateColumns.get(i).getColumnName().toSql(identifierProcessing) + "=?")
+                        .collect(Collectors.joining(","))
+                    + " where " + id.getColumnName().toSql(identifierProcessing) + "=?");
+        }
+
+        Pair<String, MapSqlParameterSource> update (T instance, Query query) {
+            return update(instance, query, List.of());
+        }
+
+        /**
+         * @param instance    非空字段直接赋值，可以为null
+         * @param assignments 基于当前值的赋值，同一个字段同时出现时以assignments为准
+         */
+        Pair<String, MapSqlParameterSource> update (@Nullable T instance, Query query, List<UpdateAssignment> assignments) {
+            MapSqlParameterSource parameterSource = new MapSqlParameterSource();
+            List<AssignValue> set = new ArrayList<>(updateColumns.size() + assignments.size());
+            Set<String> assigned = assignments.stream().map(UpdateAssignment::property).collect(Collectors.toSet());
+            BitSet shape = new BitSet(updateColumns.size());
+            if (instance != null) {
+                PersistentPropertyAccessor<T> accessor = persistentPropertyAccessor(instance);
+                for (int i = 0; i < updateColumns.size(); i++) {
+                    RelationalPersistentProperty property = updateColumns.get(i);
+                    if (assigned.contains(property.getName())) {
+                        continue;
+                    }
+                    Object value = accessor.getProperty(property);
+                    if (Objects.nonNull(value)) {
+                        String name = "set"+property.getName();
+                        parameterSource.addValue(name, value);
+                        set.add(Assignments.value(table.column(property.getColumnName()), SQL.bindMarker(":"+name)));
+                        shape.set(i);
+                    }
+                }
+            }
+            List<Object> assignmentShape = new ArrayList<>(assignments.size());
+            for (UpdateAssignment assignment : assignments) {
+                RelationalPersistentProperty property = entity.getRequiredPersistentProperty(assignment.property());
+                String column = property.getColumnName().toSql(identifierProcessing);
+                String name = "assign" + property.getName() + assignmentShape.size();
+                Object operand = assignment.value();
+                String expression = switch (assignment.type()) {
+                    case INCREMENT -> column + " + :" + name;
+                    case GREATEST -> "greatest(" + column + ", :" + name + ")";
+                    case LEAST -> "least(" + column + ", :" + name + ")";
+                    case COLUMN -> {
+                        UpdateAssignment.ColumnOperation operation = (UpdateAssignment.ColumnOperation) assignment.value();
+                        String source = entity.getRequiredPersistentProperty(operation.source()).getColumnName().toSql(identifierProcessing);
+                        operand = operation.operand();
+                        yield operation.operator() == null ? source : source + " " + operation.operator().symbol() + " :" + name;
+                    }
+                };
+                if (operand != null) {
+                    parameterSource.addValue(name, operand);
+                }
+                set.add(Assignments.value(table.column(property.getColumnName()), Expressions.just(expression)));
+                assignmentShape.add(List.of(assignment.property(), assignment.type(), expression));
+            }
+            Assert.state(!set.isEmpty(), "nothing to update");
+            CriteriaDefinition criteria = query.getCriteria().orElseThrow();
+            return render(shape("update", null, query, List.of(shape, assignmentShape)), query, table, parameterSource, source -> {
+                Condition condition = mapCriteria(source, criteria, table);
+                return sqlRenderer.render(Update.builder().table(table).set(set).where(condition).build());
+            });
         }
 
         String findByIdTable (String table) {
@@ -263,54 +923,275 @@ public class ExtendSQLGeneratorSource {
         }
 
         String findAllByIdTable (String table, int size) {
-            String placeholder = IntStream.range(0, size).mapToObj(i -> "?").collect(Collectors.joining(","));
-            return selectPrefix +  table + " where " + id.getColumnName().toSql(identifierProcessing) + "in (" + placeholder +")";
+            return findAllByIdCache.get(Pair.of(table, size), p -> selectPrefix + identifierProcessing.quote(p.getFirst())
+                    + " where " + id.getColumnName().toSql(identifierProcessing)
+                    + " in (" + placeholders(p.getSecond()) +")");
+        }
+
+        String findAllById (int size) {
+            return findAllByIdCache.get(Pair.of("", size), p -> selectPrefix + table.getName().toSql(identifierProcessing)
+                    + " where " + id.getColumnName().toSql(identifierProcessing)
+                    + " in (" + placeholders(p.getSecond()) +")");
         }
 
 
         Pair<String, MapSqlParameterSource> findAllTable (Query query, String table) {
             Table t = Table.create(identifierProcessing.quote(table));
-            List<Expression> expressions = selectColumns.stream().map(property -> Expressions.just(property.getColumnName().toSql(identifierProcessing))).toList();
-            SelectBuilder.SelectFromAndJoin from = Select.builder().select(expressions).from(t);
+            return render(shape("findAll", table, query, null), query, t, new MapSqlParameterSource(), source -> {
+                SelectBuilder.SelectFromAndJoin from = Select.builder().select(selectExpressions(query, List.of())).from(t);
+                return sqlRenderer.render(applyQueryOnSelect(t, query, source, from).build());
+            });
+        }
 
-            MapSqlParameterSource parameterSource = new MapSqlParameterSource();
+        /**
+         * 只查询一个字段，忽略query中的columns
+         * @param column 属性名或者字段名
+         */
+        Pair<String, MapSqlParameterSource> findColumnTable (Query query, String column, String table) {
+            Table t = Table.create(identifierProcessing.quote(table));
+            return render(shape("findColumn", table, query, column), query, t, new MapSqlParameterSource(), source -> {
+                Expression expression = Expressions.just(selectProperty(column).getColumnName().toSql(identifierProcessing));
+                SelectBuilder.SelectFromAndJoin from = Select.builder().select(expression).from(t);
+                return sqlRenderer.render(applyQueryOnSelect(t, query, source, from).build());
+            });
+        }
 
-            SelectBuilder.SelectOrdered selectOrdered = applyQueryOnSelect(t, query, parameterSource, from);
+        /**
+         * 单列结果转换成type，跟实体属性一样经过自定义转换器
+         */
+        @SuppressWarnings("unchecked")
+        <V> RowMapper<V> columnRowMapper (Class<V> type) {
+            TypeInformation<V> typeInformation = TypeInformation.of(type);
+            return (rs, i) -> {
+                Object value = JdbcUtils.getResultSetValue(rs, 1);
+                return value == null ? null : (V) converter.readValue(value, typeInformation);
+            };
+        }
 
-            return Pair.of(sqlRenderer.render(selectOrdered.build()), parameterSource);
+        /**
+         * select 分组字段, 聚合函数 from table where ... group by 分组字段 order by 分组字段，
+         * sql渲染器不支持group by，拼接在渲染结果后面
+         * @param selectGroups 是否查询分组字段，读取基本类型数组时只查询聚合函数
+         */
+        Pair<String, MapSqlParameterSource> aggregate (Aggregation<T> aggregation, boolean selectGroups) {
+            Assert.isTrue(!aggregation.getFunctions().isEmpty(), "aggregation needs at least one aggregate function");
+            String table = aggregation.getTable() == null ? getTableName() : aggregation.getTable();
+            Table t = Table.create(identifierProcessing.quote(table));
+            Query query = aggregation.getQuery();
+            Object extra = List.of(aggregation.getFunctions(), aggregation.getGroupBy(), selectGroups);
+            return render(shape("aggregate", table, query, extra), query, t, new MapSqlParameterSource(), source -> {
+                List<String> groups = aggregation.getGroupBy().stream()
+                        .map(name -> selectProperty(name).getColumnName().toSql(identifierProcessing))
+                        .toList();
+                List<Expression> expressions = new ArrayList<>(groups.size() + aggregation.getFunctions().size());
+                if (selectGroups) {
+                    groups.forEach(column -> expressions.add(Expressions.just(column)));
+                }
+                aggregation.getFunctions().forEach(function -> expressions.add(aggregateExpression(function)));
+                SelectBuilder.SelectFromAndJoin from = Select.builder().select(expressions).from(t);
+                String sql = sqlRenderer.render(applyCriteria(query.getCriteria().orElse(null), from, source, t).build());
+                if (groups.isEmpty()) {
+                    return sql;
+                }
+                String columns = String.join(", ", groups);
+                return sql + " GROUP BY " + columns + " ORDER BY " + columns;
+            });
         }
 
+        private Expression aggregateExpression (AggregateFunction function) {
+            if (function.property() == null) {
+                return Functions.count(Expressions.just("*"));
+            }
+            Expression column = Expressions.just(selectProperty(function.property()).getColumnName().toSql(identifierProcessing));
+            return switch (function.type()) {
+                case COUNT -> Functions.count(column);
+                case SUM -> SimpleFunction.create("SUM", List.of(column));
+                case AVG -> SimpleFunction.create("AVG", List.of(column));
+                case MIN -> SimpleFunction.create("MIN", List.of(column));
+                case MAX -> SimpleFunction.create("MAX", List.of(column));
+            };
+        }
 
+        /**
+         * 聚合结果转换成type，record按列的顺序对应构造方法的参数，每列经过转换器转换成参数类型
+         */
+        <R> RowMapper<R> aggregateRowMapper (Class<R> type, int columns) {
+            if (!type.isRecord()) {
+                Assert.isTrue(columns == 1, () -> type.getName() + " is not a record, aggregation result has " + columns + " columns");
+                return columnRowMapper(type);
+            }
+            RecordComponent[] components = type.getRecordComponents();
+            Assert.isTrue(components.length == columns,
+                    () -> type.getName() + " has " + components.length + " components, aggregation result has " + columns + " columns");
+            Class<?>[] parameterTypes = Arrays.stream(components).map(RecordComponent::getType).toArray(Class<?>[]::new);
+            List<TypeInformation<?>> types = Arrays.stream(parameterTypes).<TypeInformation<?>>map(TypeInformation::of).toList();
+            Constructor<R> constructor;
+            try {
+                constructor = type.getDeclaredConstructor(parameterTypes);
+            } catch (NoSuchMethodException e) {
+                throw new IllegalStateException(type.getName() + " has no canonical constructor", e);
+            }
+            return (rs, i) -> {
+                Object[] args = new Object[columns];
+                for (int c = 0; c < columns; c++) {
+                    Object value = JdbcUtils.getResultSetValue(rs, c + 1);
+                    args[c] = value == null ? null : converter.readValue(value, types.get(c));
+                }
+                return BeanUtils.instantiateClass(constructor, args);
+            };
+        }
+
+        String idName () {
+            Assert.state(id != null, () -> entity.getName() + " has no @Id");
+            return id.getName();
+        }
 
         Pair<String, MapSqlParameterSource> findPageTable (Query query, Pageable pageable, String table) {
             Table t = Table.create(identifierProcessing.quote(table));
-            List<Expression> expressions = selectColumns.stream().map(property -> Expressions.just(property.getColumnName().toSql(identifierProcessing))).toList();
-            SelectBuilder.SelectFromAndJoin from = Select.builder().select(expressions).from(t);
-            MapSqlParameterSource parameterSource = new MapSqlParameterSource();
-            SelectBuilder.SelectOrdered selectOrdered = applyQueryOnSelect(t, query, parameterSource, from);
-            selectOrdered = applyPagination(pageable, selectOrdered)
-                    .orderBy(pageable.getSort().stream().map(o -> OrderByField
-                            .from(Expressions.just(entity.getRequiredPersistentProperty(o.getProperty()).getColumnName().toSql(identifierProcessing)), o.getDirection())
-                            .withNullHandling(o.getNullHandling())
-                    )
-                    .toList());
-            return Pair.of(sqlRenderer.render(selectOrdered.build()), parameterSource);
+            Object page = !pageable.isPaged() ? pageable.getSort() : limitBindable ? List.of(true, pageable.getSort())
+                    : List.of(pageable.getOffset(), pageable.getPageSize(), pageable.getSort());
+            long limit = pageable.isPaged() ? pageable.getPageSize() : query.getLimit();
+            long offset = pageable.isPaged() ? pageable.getOffset() : query.getOffset();
+            return render(shape("findPage", table, query, page), query, limit, offset, t, new MapSqlParameterSource(), source -> {
+                SelectBuilder.SelectFromAndJoin from = Select.builder().select(selectExpressions(query, List.of())).from(t);
+                SelectBuilder.SelectOrdered selectOrdered = applyPagination(pageable, applyQueryOnSelect(t, query, source, from))
+                        .orderBy(pageable.getSort().stream().map(o -> OrderByField
+                                .from(Expressions.just(entity.getRequiredPersistentProperty(o.getProperty()).getColumnName().toSql(identifierProcessing)), o.getDirection())
+                                .withNullHandling(o.getNullHandling())
+                        )
+                        .toList());
+                return sqlRenderer.render(selectOrdered.build());
+            });
         }
 
         Pair<String, MapSqlParameterSource> count (Query query, String table) {
             Table t = Table.create(identifierProcessing.quote(table));
-            SelectBuilder.SelectFromAndJoin from = Select.builder().select(Functions.count(Expressions.just("1"))).from(t);
-            MapSqlParameterSource parameterSource = new MapSqlParameterSource();
-            SelectBuilder.SelectOrdered selectOrdered = applyQueryOnSelect(t, query, parameterSource, from);
-            return Pair.of(sqlRenderer.render(selectOrdered.build()), parameterSource);
+            return render(shape("count", table, query, null), query, t, new MapSqlParameterSource(), source -> {
+                SelectBuilder.SelectFromAndJoin from = Select.builder().select(Functions.count(Expressions.just("1"))).from(t);
+                return sqlRenderer.render(applyQueryOnSelect(t, query, source, from).build());
+            });
         }
 
         Pair<String, MapSqlParameterSource> exists (Query query, String table) {
             Table t = Table.create(identifierProcessing.quote(table));
-            SelectBuilder.SelectFromAndJoin from = Select.builder().select(exsitsExpression).from(t);
+            return render(shape("exists", table, query, null), query, t, new MapSqlParameterSource(), source -> {
+                SelectBuilder.SelectFromAndJoin from = Select.builder().select(exsitsExpression).from(t);
+                return sqlRenderer.render(applyQueryOnSelect(t, query, source, from).build());
+            });
+        }
+
+        /**
+         * 条件结构，limit/offset可以绑定参数时只区分有没有，否则按值区分
+         */
+        @Nullable
+        private CriteriaShape shape (String kind, @Nullable String table, Query query, @Nullable Object extra) {
+            return CriteriaShape.of(kind, table, query, extra, limitBindable);
+        }
+
+        private Pair<String, MapSqlParameterSource> render (@Nullable CriteriaShape shape, Query query, Table table,
+                                                           MapSqlParameterSource parameterSource, Function<MapSqlParameterSource, String> renderer) {
+            return render(shape, query, query.getLimit(), query.getOffset(), table, parameterSource, renderer);
+        }
+
+        /**
+         * 按条件结构取缓存的sql，命中时跳过构建sql语法树和渲染，但条件的值仍然经过QueryMapper映射到参数中。
+         * 参数名由条件结构决定，跟渲染时生成的一致，limit/offset绑定为{@link #LIMIT_PARAMETER}、{@link #OFFSET_PARAMETER}
+         * @param shape 为null时不缓存
+         */
+        private Pair<String, MapSqlParameterSource> render (@Nullable CriteriaShape shape, Query query, long limit, long offset, Table table,
+                                                           MapSqlParameterSource parameterSource, Function<MapSqlParameterSource, String> renderer) {
+            Function<MapSqlParameterSource, String> bindable = limitBindable ? renderer.andThen(ExtendSQLGeneratorSource.this::bindLimit) : renderer;
+            String sql;
+            if (shape == null) {
+                sql = bindable.apply(parameterSource);
+            }else {
+                boolean[] rendered = {false};
+                sql = criteriaCache.get(shape, k -> {
+                    rendered[0] = true;
+                    return bindable.apply(parameterSource);
+                });
+                if (!rendered[0]) {
+                    query.getCriteria()
+                            .filter(criteria -> !criteria.isEmpty())
+                            .ifPresent(criteria -> mapCriteria(parameterSource, criteria, table));
+                }
+            }
+            if (limitBindable) {
+                if (sql.contains(":" + LIMIT_PARAMETER)) {
+                    parameterSource.addValue(LIMIT_PARAMETER, limit);
+                }
+                if (sql.contains(":" + OFFSET_PARAMETER)) {
+                    parameterSource.addValue(OFFSET_PARAMETER, offset);
+                }
+            }
+            return Pair.of(sql, parameterSource);
+        }
+
+        /**
+         * 模板按执行方式各渲染一次，之后只替换占位符的值
+         */
+        Pair<String, MapSqlParameterSource> findAll (QueryTemplate<T> template, Object[] values) {
+            return bindTemplate(template, template.compiled("findAll", () -> findAllTable(template.getQuery(), templateTable(template))), values);
+        }
+
+        Pair<String, MapSqlParameterSource> findOne (QueryTemplate<T> template, Object[] values) {
+            return bindTemplate(template, template.compiled("findOne", () -> findAllTable(template.getQuery().limit(1), templateTable(template))), values);
+        }
+
+        Pair<String, MapSqlParameterSource> count (QueryTemplate<T> template, Object[] values) {
+            return bindTemplate(template, template.compiled("count", () -> count(template.getQuery(), templateTable(template))), values);
+        }
+
+        Pair<String, MapSqlParameterSource> exists (QueryTemplate<T> template, Object[] values) {
+            return bindTemplate(template, template.compiled("exists", () -> exists(template.getQuery(), templateTable(template))), values);
+        }
+
+        private String templateTable (QueryTemplate<T> template) {
+            return template.getTable() == null ? getTableName() : template.getTable();
+        }
+
+        /**
+         * 复制编译时的参数，占位符换成实际的值，跟普通查询一样按属性的类型转换，in条件的集合逐个转换
+         */
+        private Pair<String, MapSqlParameterSource> bindTemplate (QueryTemplate<T> template, Pair<String, MapSqlParameterSource> compiled, Object[] values) {
+            Assert.isTrue(values.length == template.getSlots().size(),
+                    () -> "query template expects " + template.getSlots().size() + " values but got " + values.length);
+            MapSqlParameterSource source = compiled.getSecond();
             MapSqlParameterSource parameterSource = new MapSqlParameterSource();
-            SelectBuilder.SelectOrdered selectOrdered = applyQueryOnSelect(t, query, parameterSource, from);
-            return Pair.of(sqlRenderer.render(selectOrdered.build()), parameterSource);
+            for (String name : source.getParameterNames()) {
+                Object value = source.getValue(name);
+                if (value instanceof QueryTemplate.Slot slot) {
+                    RelationalPersistentProperty property = entity.getPersistentProperty(template.getProperty(slot));
+                    Object actual = template.valueOf(slot, values);
+                    if (property == null) {
+                        parameterSource.addValue(name, actual);
+                    }else if (actual instanceof Collection<?> collection) {
+                        List<Object> list = new ArrayList<>(collection.size());
+                        for (Object item : collection) {
+                            list.add(writeValue(property, item).getValue());
+                        }
+                        addValue(parameterSource, name, list, converter.getTargetSqlType(property));
+                    }else {
+                        JdbcValue jdbcValue = writeValue(property, actual);
+                        addValue(parameterSource, name, jdbcValue.getValue(), jdbcValue.getJdbcType());
+                    }
+                }else {
+                    parameterSource.addValue(name, value, source.getSqlType(name));
+                }
+            }
+            return Pair.of(compiled.getFirst(), parameterSource);
+        }
+
+        private void addValue (MapSqlParameterSource parameterSource, String name, Object value, @Nullable SQLType sqlType) {
+            if (sqlType == null || sqlType.getVendorTypeNumber() == null) {
+                parameterSource.addValue(name, value);
+            }else {
+                parameterSource.addValue(name, value, sqlType.getVendorTypeNumber());
+            }
+        }
+
+        private JdbcValue writeValue (RelationalPersistentProperty property, Object value) {
+            return converter.writeJdbcValue(value, converter.getColumnType(property), converter.getTargetSqlType(property));
         }
 
         String existsById (String table) {
@@ -344,6 +1225,150 @@ public class ExtendSQLGeneratorSource {
 
 
 
+        /**
+         * 排序字段加上主键作为唯一的排序，主键不在排序中时追加在最后，方向跟最后一个排序字段一致
+         */
+        List<Sort.Order> keysetOrders (Sort sort) {
+            List<Sort.Order> orders = new ArrayList<>(sort.toList());
+            if (id != null && orders.stream().noneMatch(o -> o.getProperty().equals(id.getName()))) {
+                Sort.Direction direction = orders.isEmpty() ? Sort.Direction.ASC : orders.get(orders.size() - 1).getDirection();
+                orders.add(new Sort.Order(direction, id.getName()));
+            }
+            Assert.state(!orders.isEmpty(), () -> entity.getName() + " has no @Id, keyset pagination needs a sort");
+            return orders;
+        }
+
+        /**
+         * 取出实体上排序字段的值，作为下一页的起点
+         */
+        Map<String, Object> keyset (T instance, List<Sort.Order> orders) {
+            PersistentPropertyAccessor<T> accessor = persistentPropertyAccessor(instance);
+            Map<String, Object> keys = new LinkedHashMap<>(orders.size());
+            for (Sort.Order order : orders) {
+                keys.put(order.getProperty(), accessor.getProperty(entity.getRequiredPersistentProperty(order.getProperty())));
+            }
+            return keys;
+        }
+
+        /**
+         * select ... where criteria and (c1, c2, id) > (:keyset0, :keyset1, :keyset2) order by c1, c2, id limit n
+         * <p>排序方向不一致时展开成 c1 > :keyset0 or (c1 = :keyset0 and c2 < :keyset1) or ...</p>
+         * @param keys 上一页最后一行的排序字段值，为空时查询第一页
+         */
+        Pair<String, MapSqlParameterSource> findAfterTable (Query query, List<Sort.Order> orders, Map<String, Object> keys, int limit, String table) {
+            Table t = Table.create(identifierProcessing.quote(table));
+            List<Expression> expressions = selectExpressions(query, orders);
+            SelectBuilder.SelectWhere from = Select.builder().select(expressions).from(t);
+            MapSqlParameterSource parameterSource = new MapSqlParameterSource();
+            Condition condition = query.getCriteria()
+                    .filter(criteria -> !criteria.isEmpty())
+                    .map(criteria -> mapCriteria(parameterSource, criteria, t))
+                    .orElse(null);
+            if (keys != null && !keys.isEmpty()) {
+                Condition seek = Conditions.just(seekCondition(orders, keys, parameterSource));
+                condition = condition == null ? seek : condition.and(seek);
+            }
+            SelectBuilder.SelectOrdered selectOrdered = condition == null ? from : from.where(condition);
+            selectOrdered = selectOrdered.orderBy(orders.stream()
+                    .map(o -> OrderByField.from(Expressions.just(keysetColumn(o)), o.getDirection()))
+                    .toList());
+            Select select = ((SelectBuilder.SelectOrdered) ((SelectBuilder.SelectLimitOffset) selectOrdered).limit(limit)).build();
+            return Pair.of(sqlRenderer.render(select), parameterSource);
+        }
+
+        private String seekCondition (List<Sort.Order> orders, Map<String, Object> keys, MapSqlParameterSource parameterSource) {
+            List<String> columns = new ArrayList<>(orders.size());
+            List<String> markers = new ArrayList<>(orders.size());
+            for (int i = 0; i < orders.size(); i++) {
+                Sort.Order order = orders.get(i);
+                Object value = keys.get(order.getProperty());
+                Assert.notNull(value, () -> "keyset is missing a non-null value for " + order.getProperty());
+                JdbcValue jdbcValue = writeValue(entity.getRequiredPersistentProperty(order.getProperty()), value);
+                addValue(parameterSource, "keyset" + i, jdbcValue.getValue(), jdbcValue.getJdbcType());
+                columns.add(keysetColumn(order));
+                markers.add(":keyset" + i);
+            }
+            boolean ascending = orders.get(0).isAscending();
+            if (orders.stream().allMatch(o -> o.isAscending() == ascending)) {
+                String operator = ascending ? " > " : " < ";
+                return columns.size() == 1
+                        ? columns.get(0) + operator + markers.get(0)
+                        : "(" + String.join(", ", columns) + ")" + operator + "(" + String.join(", ", markers) + ")";
+            }
+            List<String> or = new ArrayList<>(orders.size());
+            for (int i = 0; i < orders.size(); i++) {
+                StringBuilder and = new StringBuilder();
+                for (int j = 0; j < i; j++) {
+                    and.append(columns.get(j)).append(" = ").append(markers.get(j)).append(" and ");
+                }
+                and.append(columns.get(i)).append(orders.get(i).isAscending() ? " > " : " < ").append(markers.get(i));
+                or.add("(" + and + ")");
+            }
+            return "(" + String.join(" or ", or) + ")";
+        }
+
+        /**
+         * query中指定了columns时只查询这些字段（属性名或者字段名），否则查询全部字段
+         * @param orders 必须查询的排序字段，keyset分页要从结果中取下一页的位置
+         */
+        private List<Expression> selectExpressions (Query query, List<Sort.Order> orders) {
+            if (query.getColumns().isEmpty()) {
+                return allSelectExpressions;
+            }
+            Set<RelationalPersistentProperty> properties = new LinkedHashSet<>();
+            query.getColumns().forEach(column -> properties.add(selectProperty(column.getReference())));
+            orders.forEach(order -> properties.add(entity.getRequiredPersistentProperty(order.getProperty())));
+            return properties.stream().map(property -> (Expression) Expressions.just(property.getColumnName().toSql(identifierProcessing))).toList();
+        }
+
+        private RelationalPersistentProperty selectProperty (String name) {
+            RelationalPersistentProperty property = entity.getPersistentProperty(name);
+            if (property != null) {
+                return property;
+            }
+            return selectColumns.stream()
+                    .filter(p -> p.getColumnName().getReference().equalsIgnoreCase(name))
+                    .findFirst()
+                    .orElseThrow(() -> new IllegalArgumentException("no property or column named " + name + " in " + entity.getName()));
+        }
+
+        /**
+         * 投影类型的查询字段和RowMapper，每种类型只解析一次。
+         * 接口投影按getter、DTO（包括record）按构造方法参数确定需要的字段，查询出来的字段直接映射到投影，见{@link ProjectionRowMapper}；
+         * 没有字段（例如使用@Value的开放投影）时查询全部字段，或者字段不能直接读取时，先读取实体再转换
+         */
+        @SuppressWarnings("unchecked")
+        <P> Projection<P> projection (Class<P> type) {
+            return (Projection<P>) projections.computeIfAbsent(type, t -> {
+                if (type.isAssignableFrom(entity.getType())) {
+                    return new Projection<>(List.of(), (RowMapper<P>) rowMapper);
+                }
+                ReturnedType returnedType = ReturnedType.of(type, entity.getType(), projectionFactory);
+                List<RelationalPersistentProperty> properties = returnedType.getInputProperties().stream()
+                        .map(entity::getPersistentProperty)
+                        .filter(Objects::nonNull)
+                        .toList();
+                List<SqlIdentifier> columns = properties.stream()
+                        .map(property -> SqlIdentifier.unquoted(property.getName()))
+                        .toList();
+                Optional<RowMapper<P>> direct = ProjectionRowMapper.create(type, properties, converter, projectionFactory, context, instantiators);
+                RowMapper<P> mapper;
+                if (direct.isPresent()) {
+                    mapper = direct.get();
+                }else if (type.isInterface()) {
+                    mapper = (rs, i) -> projectionFactory.createProjection(type, rowMapper.mapRow(rs, i));
+                }else {
+                    DtoInstantiatingConverter dto = new DtoInstantiatingConverter(type, context, instantiators);
+                    mapper = (rs, i) -> (P) dto.convert(rowMapper.mapRow(rs, i));
+                }
+                return new Projection<>(columns, mapper);
+            });
+        }
+
+        private String keysetColumn (Sort.Order order) {
+            return entity.getRequiredPersistentProperty(order.getProperty()).getColumnName().toSql(identifierProcessing);
+        }
+
         private SelectBuilder.SelectOrdered applyQueryOnSelect(Table table, Query query, MapSqlParameterSource parameterSource,
                                                                SelectBuilder.SelectWhere selectBuilder) {
 
@@ -361,11 +1386,11 @@ public class ExtendSQLGeneratorSource {
             SelectBuilder.SelectLimitOffset limitable = (SelectBuilder.SelectLimitOffset) selectOrdered;
 
             if (query.getLimit() > 0) {
-                limitable = limitable.limit(query.getLimit());
+                limitable = limitable.limit(limitBindable ? LIMIT_MARK : query.getLimit());
             }
 
             if (query.getOffset() > 0) {
-                limitable = limitable.offset(query.getOffset());
+                limitable = limitable.offset(limitBindable ? OFFSET_MARK : query.getOffset());
             }
             return (SelectBuilder.SelectOrdered) limitable;
         }
@@ -375,7 +1400,112 @@ public class ExtendSQLGeneratorSource {
 
             return criteria == null || criteria.isEmpty() // Check for null and empty criteria
                     ? whereBuilder //
-                    : whereBuilder.where(queryMapper.getMappedObject(parameterSource, criteria, table, entity));
+                    : whereBuilder.where(mapCriteria(parameterSource, criteria, table));
+        }
+
+        /**
+         * 没有子查询时直接交给queryMapper；有子查询时按queryMapper的方式逐个条件映射后组合，子查询单独渲染
+         */
+        Condition mapCriteria (MapSqlParameterSource parameterSource, CriteriaDefinition criteria, Table table) {
+            if (!Subquery.present(criteria)) {
+                return queryMapper.getMappedObject(parameterSource, criteria, table, entity);
+            }
+            Condition condition = unroll(criteria, parameterSource, table);
+            Assert.state(condition != null, "cannot map empty criteria");
+            return condition;
+        }
+
+        @Nullable
+        private Condition unroll (CriteriaDefinition criteria, MapSqlParameterSource parameterSource, Table table) {
+            Deque<CriteriaDefinition> chain = new ArrayDeque<>();
+            for (CriteriaDefinition current = criteria; current != null; current = current.getPrevious()) {
+                chain.push(current);
+                if (!current.hasPrevious()) {
+                    break;
+                }
+            }
+            Condition mapped = null;
+            boolean first = true;
+            for (CriteriaDefinition current : chain) {
+                Condition condition = criteriaCondition(current, parameterSource, table);
+                if (first) {
+                    mapped = condition;
+                    first = false;
+                }else if (condition != null) {
+                    mapped = combine(mapped, current.getCombinator(), condition);
+                }
+            }
+            return mapped;
+        }
+
+        @Nullable
+        private Condition criteriaCondition (CriteriaDefinition criteria, MapSqlParameterSource parameterSource, Table table) {
+            if (criteria.isEmpty()) {
+                return null;
+            }
+            if (criteria.isGroup()) {
+                Condition mapped = null;
+                for (CriteriaDefinition group : criteria.getGroup()) {
+                    if (group.isEmpty()) {
+                        continue;
+                    }
+                    mapped = combine(mapped, group.getCombinator(), unroll(group, parameterSource, table));
+                }
+                return mapped == null ? null : Conditions.nest(mapped);
+            }
+            if (criteria.getValue() instanceof Subquery subquery) {
+                return subqueryCondition(criteria, subquery, parameterSource, table);
+            }
+            return queryMapper.getMappedObject(parameterSource, new SingleCriteria(criteria), table, entity);
+        }
+
+        private Condition combine (@Nullable Condition current, CriteriaDefinition.Combinator combinator, Condition next) {
+            if (current == null) {
+                return next;
+            }
+            return switch (combinator) {
+                case INITIAL -> current.and(Conditions.nest(next));
+                case AND -> current.and(next);
+                case OR -> current.or(next);
+            };
+        }
+
+        private String qualified (Table table, RelationalPersistentProperty property) {
+            return table.getName().toSql(identifierProcessing) + "." + property.getColumnName().toSql(identifierProcessing);
+        }
+
+        /**
+         * 子查询的参数跟外层放在一起，参数名由queryMapper去重
+         */
+        private Condition subqueryCondition (CriteriaDefinition criteria, Subquery subquery, MapSqlParameterSource parameterSource, Table table) {
+            Generator<?> sub = simpleSqlGenerator(subquery.entityClass());
+            Condition where = subquery.query().getCriteria()
+                    .filter(c -> !c.isEmpty())
+                    .map(c -> sub.mapCriteria(parameterSource, c, sub.table))
+                    .orElse(null);
+            switch (subquery.type()) {
+                case IN, NOT_IN -> {
+                    Assert.state(subquery.column() != null, "in subquery needs a select column");
+                    Column column = table.column(selectProperty(criteria.getColumn().getReference()).getColumnName());
+                    SelectBuilder.SelectWhere from = Select.builder()
+                            .select(sub.table.column(sub.selectProperty(subquery.column()).getColumnName()))
+                            .from(sub.table);
+                    Select select = (where == null ? from : from.where(where)).build();
+                    return subquery.type() == Subquery.Type.IN ? Conditions.in(column, select) : Conditions.notIn(column, select);
+                }
+                default -> {
+                    if (subquery.column() != null && subquery.outerColumn() != null) {
+                        //外层的表不在子查询的from中，写成文本避免sql构建时的校验
+                        Condition correlation = Conditions.isEqual(
+                                Expressions.just(qualified(sub.table, sub.selectProperty(subquery.column()))),
+                                Expressions.just(qualified(table, selectProperty(subquery.outerColumn()))));
+                        where = where == null ? correlation : correlation.and(Conditions.nest(where));
+                    }
+                    SelectBuilder.SelectWhere from = Select.builder().select(Expressions.just("1")).from(sub.table);
+                    String sql = "EXISTS (" + sqlRenderer.render((where == null ? from : from.where(where)).build()) + ")";
+                    return Conditions.just(subquery.type() == Subquery.Type.EXISTS ? sql : "NOT " + sql);
+                }
+            }
         }
 
         private SelectBuilder.SelectOrdered applyPagination(Pageable pageable, SelectBuilder.SelectOrdered select) {
@@ -388,7 +1518,8 @@ public class ExtendSQLGeneratorSource {
                     () -> String.format("Can't apply limit clause to statement of type %s", select.getClass()));
 
             SelectBuilder.SelectLimitOffset limitable = (SelectBuilder.SelectLimitOffset) select;
-            SelectBuilder.SelectLimitOffset limitResult = limitable.limitOffset(pageable.getPageSize(), pageable.getOffset());
+            SelectBuilder.SelectLimitOffset limitResult = limitBindable ? limitable.limitOffset(LIMIT_MARK, OFFSET_MARK)
+                    : limitable.limitOffset(pageable.getPageSize(), pageable.getOffset());
 
             Assert.state(limitResult instanceof SelectBuilder.SelectOrdered, String.format(
                     "The result of applying the limit-clause must be of type SelectOrdered in order to apply the order-by-clause but is of type %s",
@@ -400,4 +1531,157 @@ public class ExtendSQLGeneratorSource {
     }
 
 
+    private record UpsertShape(int rows, List<RelationalPersistentProperty> updates) {
+    }
+
+    /**
+     * 单独映射条件链中的一个条件
+     */
+    private record SingleCriteria(CriteriaDefinition delegate) implements CriteriaDefinition {
+
+        @Override
+        public boolean isGroup() {
+            return false;
+        }
+
+        @Override
+        public List<CriteriaDefinition> getGroup() {
+            return List.of();
+        }
+
+        @Override
+        public SqlIdentifier getColumn() {
+            return delegate.getColumn();
+        }
+
+        @Override
+        public Comparator getComparator() {
+            return delegate.getComparator();
+        }
+
+        @Override
+        public Object getValue() {
+            return delegate.getValue();
+        }
+
+        @Override
+        public boolean isIgnoreCase() {
+            return delegate.isIgnoreCase();
+        }
+
+        @Override
+        public CriteriaDefinition getPrevious() {
+            return null;
+        }
+
+        @Override
+        public boolean hasPrevious() {
+            return false;
+        }
+
+        @Override
+        public boolean isEmpty() {
+            return delegate.isEmpty();
+        }
+
+        @Override
+        public Combinator getCombinator() {
+            return Combinator.INITIAL;
+        }
+    }
+
+    /**
+     * 决定sql文本的部分：条件结构、查询的字段、排序、limit/offset、表名，以及各方法额外的部分。
+     * limit/offset绑定为参数时只记录有没有（1或者0），方言不支持时按值记录
+     */
+    private record CriteriaShape(String kind, String table, String criteria, List<SqlIdentifier> columns,
+                                 Sort sort, long limit, long offset, Object extra) {
+
+        /**
+         * @param limitBindable limit/offset是否绑定为参数
+         * @return 条件中有无法只按结构区分的值时（例如嵌入对象按非空字段展开）返回null
+         */
+        @Nullable
+        static CriteriaShape of (String kind, @Nullable String table, Query query, @Nullable Object extra, boolean limitBindable) {
+            StringBuilder builder = new StringBuilder();
+            if (query.getCriteria().isPresent() && !shape(query.getCriteria().get(), builder)) {
+                return null;
+            }
+            long limit = limitBindable ? Math.min(Math.max(query.getLimit(), 0), 1) : query.getLimit();
+            long offset = limitBindable ? Math.min(Math.max(query.getOffset(), 0), 1) : query.getOffset();
+            return new CriteriaShape(kind, table, builder.toString(), query.getColumns(), query.getSort(), limit, offset, extra);
+        }
+
+        private static boolean shape (@Nullable CriteriaDefinition criteria, StringBuilder builder) {
+            if (criteria == null || criteria.isEmpty()) {
+                return true;
+            }
+            if (criteria.hasPrevious() && !shape(criteria.getPrevious(), builder)) {
+                return false;
+            }
+            builder.append(criteria.getCombinator()).append('(');
+            if (criteria.isGroup()) {
+                for (CriteriaDefinition group : criteria.getGroup()) {
+                    if (!shape(group, builder)) {
+                        return false;
+                    }
+                }
+            }
+            if (criteria.getColumn() != null) {
+                builder.append(criteria.getColumn().getReference()).append(' ').append(criteria.getComparator());
+                if (criteria.isIgnoreCase()) {
+                    builder.append(" ignoreCase");
+                }
+                Object value = criteria.getValue();
+                if (value instanceof Subquery subquery) {
+                    builder.append(' ').append(subquery.type()).append(' ').append(subquery.entityClass().getName())
+                            .append(' ').append(subquery.column()).append(' ').append(subquery.outerColumn()).append(" {");
+                    if (subquery.query().getCriteria().isPresent() && !shape(subquery.query().getCriteria().get(), builder)) {
+                        return false;
+                    }
+                    builder.append("})");
+                    return true;
+                }
+                if (value instanceof Collection<?> collection) {
+                    builder.append(" [").append(collection.size()).append(']');
+                    value = collection.isEmpty() ? null : collection.iterator().next();
+                }
+                if (value instanceof JdbcValue jdbcValue) {
+                    builder.append(' ').append(jdbcValue.getJdbcType());
+                }
+                if (value != null && !(value instanceof Pair) && !BeanUtils.isSimpleValueType(value.getClass())
+                        && !(value instanceof JdbcValue)) {
+                    return false;
+                }
+                builder.append(' ').append(value == null ? null : value.getClass().getName());
+            }
+            builder.append(')');
+            return true;
+        }
+    }
+
+
+    /**
+     * 投影需要查询的字段，为空时查询全部字段
+     */
+    record Projection<P>(List<SqlIdentifier> columns, RowMapper<P> rowMapper) {
+    }
+
+    /**
+     * {@link QueryTemplate}的占位符在映射条件时原样保留，执行时再替换
+     */
+    static class TemplateQueryMapper extends QueryMapper {
+
+        TemplateQueryMapper(JdbcConverter converter) {
+            super(converter);
+        }
+
+        @Override
+        protected Object convertValue(@Nullable Object value, TypeInformation<?> typeInformation) {
+            if (value instanceof QueryTemplate.Slot) {
+                return value;
+            }
+            return super.convertValue(value, typeInformation);
+        }
+    }
 }
@@ -0,0 +1,203 @@
+package io.github.opensabe.jdbc.core.executor;
+
+import org.springframework.util.ClassUtils;
+import org.springframework.util.ReflectionUtils;
+
+import java.io.ByteArrayOutputStream;
+import java.io.InputStream;
+import java.lang.reflect.Method;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.time.*;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeFormatterBuilder;
+import java.time.temporal.TemporalAccessor;
+import java.util.Date;
+import java.util.Iterator;
+
+/**
+ * 把每行的值按LOAD DATA默认格式（制表符分隔、换行结尾、反斜杠转义、\N表示null）编码成utf8mb4，
+ * 读到哪一行才编码哪一行，不落临时文件，内存占用跟总行数无关
+ * @author heng.ma
+ */
+class LoadDataInputStream extends InputStream {
+
+    private static final String MYSQL_STATEMENT = "com.mysql.cj.jdbc.JdbcStatement";
+
+    private static final String MYSQL_CONNECTION = "com.mysql.cj.jdbc.JdbcConnection";
+
+    private static final String ALLOW_LOAD_LOCAL_INFILE = "allowLoadLocalInfile";
+
+    private static final Method SET_LOCAL_INFILE_INPUT_STREAM;
+
+    private static final Method GET_PROPERTY_SET;
+
+    static {
+        ClassLoader classLoader = LoadDataInputStream.class.getClassLoader();
+        boolean present = ClassUtils.isPresent(MYSQL_STATEMENT, classLoader) && ClassUtils.isPresent(MYSQL_CONNECTION, classLoader);
+        SET_LOCAL_INFILE_INPUT_STREAM = present
+                ? ReflectionUtils.findMethod(ClassUtils.resolveClassName(MYSQL_STATEMENT, classLoader), "setLocalInfileInputStream", InputStream.class)
+                : null;
+        GET_PROPERTY_SET = present
+                ? ReflectionUtils.findMethod(ClassUtils.resolveClassName(MYSQL_CONNECTION, classLoader), "getPropertySet")
+                : null;
+    }
+
+    private static final DateTimeFormatter DATE_TIME = new DateTimeFormatterBuilder()
+            .append(DateTimeFormatter.ISO_LOCAL_DATE)
+            .appendLiteral(' ')
+            .append(DateTimeFormatter.ISO_LOCAL_TIME)
+            .toFormatter();
+
+    private final Iterator<Object[]> rows;
+
+    private final ByteArrayOutputStream line = new ByteArrayOutputStream(256);
+
+    private byte[] current = new byte[0];
+
+    private int position;
+
+    LoadDataInputStream(Iterator<Object[]> rows) {
+        this.rows = rows;
+    }
+
+    /**
+     * 驱动是MySQL Connector/J，连接开启了allowLoadLocalInfile，并且服务端local_infile=1时，返回可以设置本地文件流的statement，
+     * 否则返回null（不支持，调用方需要降级）
+     */
+    static Statement localInfileStatement (Statement statement) throws SQLException {
+        if (SET_LOCAL_INFILE_INPUT_STREAM == null || GET_PROPERTY_SET == null
+                || !statement.isWrapperFor(SET_LOCAL_INFILE_INPUT_STREAM.getDeclaringClass())) {
+            return null;
+        }
+        Connection connection = statement.getConnection();
+        if (!connection.isWrapperFor(GET_PROPERTY_SET.getDeclaringClass()) || !clientAllowed(connection.unwrap(GET_PROPERTY_SET.getDeclaringClass())) || !serverAllowed(statement)) {
+            return null;
+        }
+        return (Statement) statement.unwrap(SET_LOCAL_INFILE_INPUT_STREAM.getDeclaringClass());
+    }
+
+    private static boolean clientAllowed (Object connection) {
+        Object propertySet = ReflectionUtils.invokeMethod(GET_PROPERTY_SET, connection);
+        Method getBooleanProperty = ReflectionUtils.findMethod(propertySet.getClass(), "getBooleanProperty", String.class);
+        Object property = getBooleanProperty == null ? null : ReflectionUtils.invokeMethod(getBooleanProperty, propertySet, ALLOW_LOAD_LOCAL_INFILE);
+        Method getValue = property == null ? null : ReflectionUtils.findMethod(property.getClass(), "getValue");
+        return getValue != null && Boolean.TRUE.equals(ReflectionUtils.invokeMethod(getValue, property));
+    }
+
+    private static boolean serverAllowed (Statement statement) throws SQLException {
+        try (ResultSet resultSet = statement.executeQuery("select @@local_infile")) {
+            return resultSet.next() && resultSet.getBoolean(1);
+        }
+    }
+
+    /**
+     * 下一条LOAD DATA LOCAL INFILE从该流读取数据，statement必须来自{@link #localInfileStatement(Statement)}
+     */
+    void bindTo (Statement statement) {
+        ReflectionUtils.invokeMethod(SET_LOCAL_INFILE_INPUT_STREAM, statement, this);
+    }
+
+    @Override
+    public int read() {
+        if (!fill()) {
+            return -1;
+        }
+        return current[position++] & 0xff;
+    }
+
+    @Override
+    public int read(byte[] b, int off, int len) {
+        if (len == 0) {
+            return 0;
+        }
+        int read = 0;
+        while (read < len && fill()) {
+            int n = Math.min(len - read, current.length - position);
+            System.arraycopy(current, position, b, off + read, n);
+            position += n;
+            read += n;
+        }
+        return read == 0 ? -1 : read;
+    }
+
+    private boolean fill () {
+        while (position >= current.length) {
+            if (!rows.hasNext()) {
+                return false;
+            }
+            current = encode(rows.next());
+            position = 0;
+        }
+        return true;
+    }
+
+    private byte[] encode (Object[] row) {
+        line.reset();
+        for (int i = 0; i < row.length; i++) {
+            if (i > 0) {
+                line.write('\t');
+            }
+            Object value = row[i];
+            if (value == null) {
+                line.write('\\');
+                line.write('N');
+            }else if (value instanceof byte[] bytes) {
+                escape(bytes);
+            }else {
+                escape(format(value).getBytes(StandardCharsets.UTF_8));
+            }
+        }
+        line.write('\n');
+        return line.toByteArray();
+    }
+
+    /**
+     * utf8的多字节字符不会包含ASCII字节，可以直接按字节转义
+     */
+    private void escape (byte[] bytes) {
+        for (byte b : bytes) {
+            switch (b) {
+                case '\\' -> { line.write('\\'); line.write('\\'); }
+                case '\t' -> { line.write('\\'); line.write('t'); }
+                case '\n' -> { line.write('\\'); line.write('n'); }
+                case '\r' -> { line.write('\\'); line.write('r'); }
+                case 0 -> { line.write('\\'); line.write('0'); }
+                default -> line.write(b);
+            }
+        }
+    }
+
+    /**
+     * 跟驱动绑定参数时的格式保持一致，带时区的时间按系统默认时区转换
+     */
+    static String format (Object value) {
+        if (value instanceof Boolean b) {
+            return b ? "1" : "0";
+        }
+        if (value instanceof Enum<?> e) {
+            return e.name();
+        }
+        if (value instanceof BigDecimal decimal) {
+            return decimal.toPlainString();
+        }
+        if (value instanceof Date date && !(value instanceof java.sql.Date) && !(value instanceof java.sql.Time)) {
+            return value instanceof Timestamp ? value.toString() : new Timestamp(date.getTime()).toString();
+        }
+        if (value instanceof LocalDateTime dateTime) {
+            return DATE_TIME.format(dateTime);
+        }
+        if (value instanceof Instant instant) {
+            return DATE_TIME.format(LocalDateTime.ofInstant(instant, ZoneId.systemDefault()));
+        }
+        if (value instanceof OffsetDateTime || value instanceof ZonedDateTime) {
+            return DATE_TIME.format(LocalDateTime.ofInstant(Instant.from((TemporalAccessor) value), ZoneId.systemDefault()));
+        }
+        return value.toString();
+    }
+}
@@ -0,0 +1,144 @@
+package io.github.opensabe.jdbc.core.executor;
+
+import org.springframework.jdbc.core.RowCallbackHandler;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.Arrays;
+import java.util.function.LongConsumer;
+
+/**
+ * 单列结果直接按基本类型读取（rs.getLong/getInt/getDouble），放到按2倍扩容的数组中，不经过RowMapper也不装箱。
+ * 默认null值跳过，指定了null的替代值时每行都占一个位置，下标跟行号对应
+ * @author heng.ma
+ */
+final class PrimitiveColumns {
+
+    private static final int DEFAULT_CAPACITY = 64;
+
+    /**
+     * 数组初始大小，有limit时按limit分配（不超过4096），避免扩容
+     */
+    static int capacity (int limit) {
+        return limit > 0 ? Math.min(limit, 4096) : DEFAULT_CAPACITY;
+    }
+
+    static RowCallbackHandler longs (LongConsumer consumer) {
+        return rs -> {
+            long value = rs.getLong(1);
+            if (!rs.wasNull()) {
+                consumer.accept(value);
+            }
+        };
+    }
+
+    static final class Longs implements RowCallbackHandler {
+
+        private long[] values;
+
+        private int size;
+
+        private final Long nullValue;
+
+        Longs(int capacity) {
+            this(capacity, null);
+        }
+
+        /**
+         * @param nullValue 为null时跳过null值，否则用它代替null
+         */
+        Longs(int capacity, Long nullValue) {
+            this.values = new long[Math.max(capacity, 1)];
+            this.nullValue = nullValue;
+        }
+
+        @Override
+        public void processRow(ResultSet rs) throws SQLException {
+            long value = rs.getLong(1);
+            if (rs.wasNull()) {
+                if (nullValue == null) {
+                    return;
+                }
+                value = nullValue;
+            }
+            if (size == values.length) {
+                values = Arrays.copyOf(values, size << 1);
+            }
+            values[size++] = value;
+        }
+
+        long[] toArray () {
+            return size == values.length ? values : Arrays.copyOf(values, size);
+        }
+    }
+
+    static final class Ints implements RowCallbackHandler {
+
+        private int[] values;
+
+        private int size;
+
+        Ints(int capacity) {
+            this.values = new int[Math.max(capacity, 1)];
+        }
+
+        @Override
+        public void processRow(ResultSet rs) throws SQLException {
+            int value = rs.getInt(1);
+            if (rs.wasNull()) {
+                return;
+            }
+            if (size == values.length) {
+                values = Arrays.copyOf(values, size << 1);
+            }
+            values[size++] = value;
+        }
+
+        int[] toArray () {
+            return size == values.length ? values : Arrays.copyOf(values, size);
+        }
+    }
+
+    static final class Doubles implements RowCallbackHandler {
+
+        private double[] values;
+
+        private int size;
+
+        private final Double nullValue;
+
+        Doubles(int capacity) {
+            this(capacity, null);
+        }
+
+        /**
+         * @param nullValue 为null时跳过null值，否则用它代替null
+         */
+        Doubles(int capacity, Double nullValue) {
+            this.values = new double[Math.max(capacity, 1)];
+            this.nullValue = nullValue;
+        }
+
+        @Override
+        public void processRow(ResultSet rs) throws SQLException {
+            double value = rs.getDouble(1);
+            if (rs.wasNull()) {
+                if (nullValue == null) {
+                    return;
+                }
+                value = nullValue;
+            }
+            if (size == values.length) {
+                values = Arrays.copyOf(values, size << 1);
+            }
+            values[size++] = value;
+        }
+
+        double[] toArray () {
+            return size == values.length ? values : Arrays.copyOf(values, size);
+        }
+    }
+
+    private PrimitiveColumns() {
+    }
+}
@@ -0,0 +1,102 @@
+package io.github.opensabe.jdbc.core.executor;
+
+import org.springframework.data.convert.CustomConversions;
+import org.springframework.data.jdbc.core.convert.JdbcConverter;
+import org.springframework.data.mapping.InstanceCreatorMetadata;
+import org.springframework.data.mapping.Parameter;
+import org.springframework.data.mapping.PersistentPropertyAccessor;
+import org.springframework.data.mapping.model.EntityInstantiator;
+import org.springframework.data.mapping.model.EntityInstantiators;
+import org.springframework.data.mapping.model.ParameterValueProvider;
+import org.springframework.data.projection.ProjectionFactory;
+import org.springframework.data.relational.core.conversion.AbstractRelationalConverter;
+import org.springframework.data.relational.core.mapping.RelationalMappingContext;
+import org.springframework.data.relational.core.mapping.RelationalPersistentEntity;
+import org.springframework.data.relational.core.mapping.RelationalPersistentProperty;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.jdbc.support.JdbcUtils;
+import org.springframework.util.ClassUtils;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * 投影只读取查询出来的字段，按实体属性的类型转换以后直接放进投影：接口投影代理到属性名为key的Map，DTO（包括record）通过构造方法和setter赋值，
+ * 不需要先创建完整的实体再复制一遍
+ * @author heng.ma
+ */
+class ProjectionRowMapper<P> implements RowMapper<P> {
+
+    private final JdbcConverter converter;
+
+    private final List<RelationalPersistentProperty> properties;
+
+    private final RowReader<P> reader;
+
+    private ProjectionRowMapper(JdbcConverter converter, List<RelationalPersistentProperty> properties, RowReader<P> reader) {
+        this.converter = converter;
+        this.properties = properties;
+        this.reader = reader;
+    }
+
+    /**
+     * 投影字段中有非扁平的属性（嵌入、关联、属性级转换器等）时返回empty，调用方先读取实体再转换
+     */
+    @SuppressWarnings("unchecked")
+    static <P> Optional<RowMapper<P>> create (Class<P> type, List<RelationalPersistentProperty> properties, JdbcConverter converter,
+                                              ProjectionFactory projectionFactory, RelationalMappingContext context, EntityInstantiators instantiators) {
+        CustomConversions conversions = converter instanceof AbstractRelationalConverter c ? c.getConversions() : null;
+        if (properties.isEmpty() || !properties.stream().allMatch(property -> DirectRowMapper.flat(property, conversions))) {
+            return Optional.empty();
+        }
+        if (type.isInterface()) {
+            return Optional.of(new ProjectionRowMapper<>(converter, properties, values -> projectionFactory.createProjection(type, values)));
+        }
+        RelationalPersistentEntity<P> dto = (RelationalPersistentEntity<P>) context.getRequiredPersistentEntity(type);
+        EntityInstantiator instantiator = instantiators.getInstantiatorFor(dto);
+        InstanceCreatorMetadata<RelationalPersistentProperty> creator = dto.getInstanceCreatorMetadata();
+        return Optional.of(new ProjectionRowMapper<>(converter, properties, values -> {
+            P instance = instantiator.createInstance(dto, new ParameterValueProvider<>() {
+                @Override
+                @SuppressWarnings("unchecked")
+                public <V> V getParameterValue(Parameter<V, RelationalPersistentProperty> parameter) {
+                    return (V) convert(converter, values.get(parameter.getName()), parameter.getType().getType());
+                }
+            });
+            PersistentPropertyAccessor<P> accessor = dto.getPropertyAccessor(instance);
+            for (RelationalPersistentProperty property : dto) {
+                if (creator != null && creator.isCreatorParameter(property) || !values.containsKey(property.getName())) {
+                    continue;
+                }
+                accessor.setProperty(property, convert(converter, values.get(property.getName()), property.getType()));
+            }
+            return accessor.getBean();
+        }));
+    }
+
+    private static Object convert (JdbcConverter converter, Object value, Class<?> type) {
+        if (value == null || ClassUtils.resolvePrimitiveIfNecessary(type).isInstance(value)) {
+            return value;
+        }
+        return converter.getConversionService().convert(value, type);
+    }
+
+    @Override
+    public P mapRow(ResultSet rs, int rowNum) throws SQLException {
+        Map<String, Object> values = new HashMap<>(properties.size() * 2);
+        for (RelationalPersistentProperty property : properties) {
+            Object value = JdbcUtils.getResultSetValue(rs, rs.findColumn(property.getColumnName().getReference()));
+            values.put(property.getName(), value == null ? null : converter.readValue(value, property.getTypeInformation()));
+        }
+        return reader.read(values);
+    }
+
+    @FunctionalInterface
+    private interface RowReader<P> {
+        P read (Map<String, Object> values);
+    }
+}
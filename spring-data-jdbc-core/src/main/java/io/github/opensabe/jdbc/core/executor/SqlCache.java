@@ -0,0 +1,64 @@
+package io.github.opensabe.jdbc.core.executor;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+
+/**
+ * 按key缓存渲染好的sql（或者其他由sql结构决定的对象），带有容量上限。
+ * 达到上限以后不再缓存新的key，直接渲染，已缓存的key依然命中，这样可选字段很多的实体也不会撑爆内存
+ * @author heng.ma
+ */
+public class SqlCache<K, V> {
+
+    private final Map<K, V> cache = new ConcurrentHashMap<>();
+
+    private final int maximumSize;
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+
+    public SqlCache(int maximumSize) {
+        this.maximumSize = maximumSize;
+    }
+
+    public V get (K key, Function<K, V> renderer) {
+        V value = cache.get(key);
+        if (value != null) {
+            hits.increment();
+            return value;
+        }
+        misses.increment();
+        value = renderer.apply(key);
+        if (cache.size() < maximumSize) {
+            V previous = cache.putIfAbsent(key, value);
+            if (previous != null) {
+                return previous;
+            }
+        }
+        return value;
+    }
+
+    public void clear () {
+        cache.clear();
+    }
+
+    public Statistics statistics () {
+        return new Statistics(cache.size(), maximumSize, hits.sum(), misses.sum());
+    }
+
+    /**
+     * @param size    当前缓存的条数
+     * @param maximumSize 缓存上限
+     * @param hits    命中次数
+     * @param misses  未命中次数
+     */
+    public record Statistics(int size, int maximumSize, long hits, long misses) {
+
+        public double hitRate () {
+            long total = hits + misses;
+            return total == 0 ? 0 : (double) hits / total;
+        }
+    }
+}
@@ -0,0 +1,120 @@
+package io.github.opensabe.jdbc.core.id;
+
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.data.relational.core.mapping.RelationalPersistentEntity;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionOperations;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.util.Assert;
+
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * hi/lo分配主键，每次从序列表中预留blockSize个连续的主键，用完以后再取下一段，数据库访问次数只有插入行数的1/blockSize。
+ * 每个实体使用表名作为序列名，序列表结构：
+ * <pre>
+ * create table id_sequence (
+ *     name varchar(64) primary key,
+ *     next_hi bigint not null
+ * );
+ * </pre>
+ * 预留号段在单独的事务中提交，外层事务回滚时号段作废，主键不连续但不会重复；
+ * 多个实例同时初始化序列时，插入冲突的一方在新的事务中重试，不会在已经出错的事务里继续执行
+ * @author heng.ma
+ */
+public class HiLoIdAllocator implements IdAllocator {
+
+    private final JdbcTemplate jdbcTemplate;
+
+    private final TransactionOperations transactionOperations;
+
+    private final int blockSize;
+
+    private final String update;
+    private final String insert;
+    private final String select;
+
+    private final Map<String, Block> blocks = new ConcurrentHashMap<>();
+
+    public HiLoIdAllocator(JdbcTemplate jdbcTemplate, PlatformTransactionManager transactionManager) {
+        this(jdbcTemplate, transactionManager, "id_sequence", 100);
+    }
+
+    /**
+     * @param transactionManager 为null时依赖自动提交，此时在外层事务中调用会加入外层事务，插入冲突后无法在Postgres上重试
+     * @param table              序列表名
+     * @param blockSize          每次预留的主键个数
+     */
+    public HiLoIdAllocator(JdbcTemplate jdbcTemplate, PlatformTransactionManager transactionManager, String table, int blockSize) {
+        Assert.isTrue(blockSize > 0, "blockSize must be positive");
+        this.jdbcTemplate = jdbcTemplate;
+        this.blockSize = blockSize;
+        if (transactionManager == null) {
+            this.transactionOperations = TransactionOperations.withoutTransaction();
+        }else {
+            TransactionTemplate template = new TransactionTemplate(transactionManager);
+            template.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+            this.transactionOperations = template;
+        }
+        this.update = "update " + table + " set next_hi = next_hi + ? where name = ?";
+        this.insert = "insert into " + table + " (name, next_hi) values (?, ?)";
+        this.select = "select next_hi from " + table + " where name = ?";
+    }
+
+    @Override
+    public Object next(RelationalPersistentEntity<?> entity) {
+        return nextId(entity.getTableName().getReference());
+    }
+
+    public long nextId (String name) {
+        return blocks.computeIfAbsent(name, Block::new).next();
+    }
+
+    /**
+     * 预留一段主键
+     * @return 该段之后的第一个主键
+     */
+    private long reserve (String name) {
+        Long hi;
+        try {
+            hi = transactionOperations.execute(status -> {
+                if (jdbcTemplate.update(update, blockSize, name) == 0) {
+                    jdbcTemplate.update(insert, name, 1L + blockSize);
+                }
+                return jdbcTemplate.queryForObject(select, Long.class, name);
+            });
+        } catch (DuplicateKeyException e) {
+            //其他实例同时初始化了这个序列，插入失败的事务已经回滚（Postgres中失败的语句会使整个事务不可用），在新的事务中重新预留
+            hi = transactionOperations.execute(status -> {
+                jdbcTemplate.update(update, blockSize, name);
+                return jdbcTemplate.queryForObject(select, Long.class, name);
+            });
+        }
+        return Objects.requireNonNull(hi);
+    }
+
+    private class Block {
+
+        private final String name;
+
+        private long next;
+
+        private long max;
+
+        private Block(String name) {
+            this.name = name;
+        }
+
+        private synchronized long next () {
+            if (next >= max) {
+                max = reserve(name);
+                next = max - blockSize;
+            }
+            return next++;
+        }
+    }
+}
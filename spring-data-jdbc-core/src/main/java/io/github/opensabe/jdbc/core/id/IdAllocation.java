@@ -0,0 +1,17 @@
+package io.github.opensabe.jdbc.core.id;
+
+import java.lang.annotation.*;
+
+/**
+ * 在实体类上指定主键的分配方式，主键字段不能是{@link org.springframework.data.annotation.ReadOnlyProperty}。
+ * 优先使用容器中该类型的bean，没有时通过无参构造方法创建
+ * @author heng.ma
+ */
+@Inherited
+@Documented
+@Retention(RetentionPolicy.RUNTIME)
+@Target(ElementType.TYPE)
+public @interface IdAllocation {
+
+    Class<? extends IdAllocator> value();
+}
@@ -0,0 +1,22 @@
+package io.github.opensabe.jdbc.core.id;
+
+import io.github.opensabe.jdbc.core.executor.ExtendSQLGeneratorSource;
+import org.springframework.data.relational.core.mapping.event.BeforeConvertCallback;
+
+/**
+ * save/insert等走{@link org.springframework.data.jdbc.core.JdbcAggregateTemplate}的操作也在插入前分配主键
+ * @author heng.ma
+ */
+public class IdAllocationCallback implements BeforeConvertCallback<Object> {
+
+    private final ExtendSQLGeneratorSource extendSQLGeneratorSource;
+
+    public IdAllocationCallback(ExtendSQLGeneratorSource extendSQLGeneratorSource) {
+        this.extendSQLGeneratorSource = extendSQLGeneratorSource;
+    }
+
+    @Override
+    public Object onBeforeConvert(Object aggregate) {
+        return extendSQLGeneratorSource.allocateId(aggregate);
+    }
+}
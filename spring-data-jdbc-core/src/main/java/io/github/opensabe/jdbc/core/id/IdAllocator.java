@@ -0,0 +1,17 @@
+package io.github.opensabe.jdbc.core.id;
+
+import org.springframework.data.relational.core.mapping.RelationalPersistentEntity;
+
+/**
+ * 客户端分配主键，插入前给为空的主键赋值，不再依赖自增主键回填，insertList可以自由的合并成batch
+ * @see IdAllocation
+ * @author heng.ma
+ */
+public interface IdAllocator {
+
+    /**
+     * 分配下一个主键，返回值会按主键字段的类型转换
+     * @param entity 需要分配主键的实体
+     */
+    Object next (RelationalPersistentEntity<?> entity);
+}
@@ -0,0 +1,76 @@
+package io.github.opensabe.jdbc.core.id;
+
+import org.springframework.data.relational.core.mapping.RelationalPersistentEntity;
+import org.springframework.util.Assert;
+
+import java.lang.management.ManagementFactory;
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+
+/**
+ * 雪花算法，41位毫秒时间戳 + 10位机器号 + 12位序号，同一个进程内单调递增，索引插入总是追加在末尾。
+ * 时钟回拨时沿用上一次的时间戳继续递增序号
+ * @author heng.ma
+ */
+public class SnowflakeIdAllocator implements IdAllocator {
+
+    /**
+     * 2024-01-01T00:00:00Z
+     */
+    private static final long EPOCH = 1704067200000L;
+
+    private static final int WORKER_BITS = 10;
+    private static final int SEQUENCE_BITS = 12;
+    private static final long MAX_WORKER = (1L << WORKER_BITS) - 1;
+    private static final long SEQUENCE_MASK = (1L << SEQUENCE_BITS) - 1;
+
+    private final long workerId;
+
+    private long lastTimestamp = -1;
+
+    private long sequence;
+
+    /**
+     * 机器号由主机名和进程号计算，多个实例部署时建议显式指定
+     */
+    public SnowflakeIdAllocator() {
+        this(defaultWorkerId());
+    }
+
+    public SnowflakeIdAllocator(long workerId) {
+        Assert.isTrue(workerId >= 0 && workerId <= MAX_WORKER, "workerId must be between 0 and " + MAX_WORKER);
+        this.workerId = workerId;
+    }
+
+    @Override
+    public Object next(RelationalPersistentEntity<?> entity) {
+        return nextId();
+    }
+
+    public synchronized long nextId () {
+        long timestamp = Math.max(System.currentTimeMillis(), lastTimestamp);
+        if (timestamp == lastTimestamp) {
+            sequence = (sequence + 1) & SEQUENCE_MASK;
+            if (sequence == 0) {
+                timestamp = lastTimestamp + 1;
+                while (System.currentTimeMillis() < timestamp) {
+                    Thread.onSpinWait();
+                }
+            }
+        }else {
+            sequence = 0;
+        }
+        lastTimestamp = timestamp;
+        return ((timestamp - EPOCH) << (WORKER_BITS + SEQUENCE_BITS)) | (workerId << SEQUENCE_BITS) | sequence;
+    }
+
+    private static long defaultWorkerId () {
+        String host;
+        try {
+            host = InetAddress.getLocalHost().getHostName();
+        } catch (UnknownHostException e) {
+            host = "localhost";
+        }
+        return ((host + "@" + ManagementFactory.getRuntimeMXBean().getName()).hashCode() & Integer.MAX_VALUE) % (MAX_WORKER + 1);
+    }
+}
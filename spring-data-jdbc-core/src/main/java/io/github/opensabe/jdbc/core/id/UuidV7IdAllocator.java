@@ -0,0 +1,45 @@
+package io.github.opensabe.jdbc.core.id;
+
+import org.springframework.data.relational.core.mapping.RelationalPersistentEntity;
+
+import java.security.SecureRandom;
+import java.util.UUID;
+
+/**
+ * UUID version 7，前48位是毫秒时间戳，同一毫秒内用12位计数器保证单调递增，主键是字符串时按标准格式写入
+ * @author heng.ma
+ */
+public class UuidV7IdAllocator implements IdAllocator {
+
+    private final SecureRandom random = new SecureRandom();
+
+    private long lastTimestamp = -1;
+
+    private long counter;
+
+    @Override
+    public Object next(RelationalPersistentEntity<?> entity) {
+        return nextId();
+    }
+
+    public UUID nextId () {
+        long timestamp;
+        long sequence;
+        synchronized (this) {
+            timestamp = Math.max(System.currentTimeMillis(), lastTimestamp);
+            if (timestamp == lastTimestamp) {
+                counter = (counter + 1) & 0xfff;
+                if (counter == 0) {
+                    timestamp++;
+                }
+            }else {
+                counter = random.nextInt(0x800);
+            }
+            lastTimestamp = timestamp;
+            sequence = counter;
+        }
+        long most = (timestamp << 16) | 0x7000L | sequence;
+        long least = (random.nextLong() & 0x3fffffffffffffffL) | 0x8000000000000000L;
+        return new UUID(most, least);
+    }
+}
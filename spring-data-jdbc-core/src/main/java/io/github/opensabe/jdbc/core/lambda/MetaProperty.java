@@ -0,0 +1,17 @@
+package io.github.opensabe.jdbc.core.lambda;
+
+/**
+ * 静态元模型中的属性（例如User_.name），由spring-data-jdbc-metamodel生成，可以在所有接收{@link Fn}的地方代替方法引用，
+ * 直接携带属性名，不需要反射解析lambda
+ * @author heng.ma
+ */
+public record MetaProperty<T>(String name) implements Fn<T, Object> {
+
+    /**
+     * 只作为属性引用使用，不能取值
+     */
+    @Override
+    public Object apply(T t) {
+        throw new UnsupportedOperationException("meta property " + name + " can only be used as a property reference");
+    }
+}
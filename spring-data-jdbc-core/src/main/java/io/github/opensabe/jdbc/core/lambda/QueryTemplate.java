@@ -0,0 +1,266 @@
+package io.github.opensabe.jdbc.core.lambda;
+
+import org.springframework.data.jdbc.core.mapping.JdbcValue;
+import org.springframework.data.relational.core.query.CriteriaDefinition;
+import org.springframework.data.relational.core.query.Query;
+import org.springframework.data.relational.core.sql.SqlIdentifier;
+import org.springframework.data.util.Pair;
+import org.springframework.util.Assert;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+/**
+ * 预编译的查询，条件中的值用{@link #slot(String)}占位，第一次执行时映射条件、渲染sql，之后只替换参数：
+ * <pre>
+ * static final QueryTemplate&lt;User&gt; BY_NAME;
+ * static {
+ *     Weekend&lt;User&gt; weekend = Weekend.of(User.class);
+ *     weekend.weekendCriteria().andEqualTo(User::getName, QueryTemplate.slot("name"));
+ *     BY_NAME = weekend.compile();
+ * }
+ * userRepository.findAll(BY_NAME, "name1");
+ * </pre>
+ * 执行时的参数按占位符第一次出现的顺序传入，同名的占位符共用一个参数，in条件的参数传集合。
+ * 编译以后不再读取Weekend，之后对Weekend的修改不影响模板
+ * @author heng.ma
+ */
+public final class QueryTemplate<T> {
+
+    private final Class<T> entityClass;
+
+    private final Query query;
+
+    private final String table;
+
+    private final List<Slot> slots;
+
+    /**
+     * 占位符对应的属性名，执行时按属性类型转换参数
+     */
+    private final Map<Slot, String> properties;
+
+    private final Map<Object, Object> compiled = new ConcurrentHashMap<>();
+
+    QueryTemplate(Class<T> entityClass, Query query, String table) {
+        this.entityClass = entityClass;
+        this.table = table;
+        Map<Slot, String> properties = new HashMap<>();
+        List<Slot> slots = new ArrayList<>();
+        query.getCriteria().ifPresent(criteria -> collect(criteria, slots, properties));
+        this.slots = Collections.unmodifiableList(slots);
+        this.properties = Collections.unmodifiableMap(properties);
+        this.query = slots.isEmpty() ? query : query.getCriteria()
+                .map(criteria -> Query.query(new TemplateCriteria(criteria))
+                        .columns(query.getColumns().toArray(SqlIdentifier[]::new))
+                        .sort(query.getSort())
+                        .limit(query.getLimit())
+                        .offset(query.getOffset()))
+                .orElse(query);
+    }
+
+    /**
+     * 占位符，可以用在等于、比较、between、in等条件的值中
+     */
+    public static Slot slot (String name) {
+        return new Slot(name);
+    }
+
+    private static void collect (CriteriaDefinition criteria, List<Slot> slots, Map<Slot, String> properties) {
+        if (criteria == null || criteria.isEmpty()) {
+            return;
+        }
+        collect(criteria.getPrevious(), slots, properties);
+        if (criteria.isGroup()) {
+            criteria.getGroup().forEach(c -> collect(c, slots, properties));
+        }
+        if (criteria.getColumn() == null) {
+            return;
+        }
+        for (Object v : values(criteria.getValue())) {
+            if (v instanceof Slot slot) {
+                if (!slots.contains(slot)) {
+                    slots.add(slot);
+                }
+                properties.putIfAbsent(slot, criteria.getColumn().getReference());
+            }
+        }
+    }
+
+    private static Collection<?> values (Object value) {
+        if (value instanceof Collection<?> collection) {
+            return collection;
+        }
+        if (value instanceof Pair<?, ?> pair) {
+            return List.of(pair.getFirst(), pair.getSecond());
+        }
+        return Collections.singletonList(value);
+    }
+
+    public Class<T> getEntityClass() {
+        return entityClass;
+    }
+
+    public Query getQuery() {
+        return query;
+    }
+
+    /**
+     * @return 通过{@link Weekend#compile(String)}指定的表名，没有时为null
+     */
+    public String getTable() {
+        return table;
+    }
+
+    public List<Slot> getSlots() {
+        return slots;
+    }
+
+    public String getProperty (Slot slot) {
+        return properties.get(slot);
+    }
+
+    /**
+     * 按参数顺序取占位符的值
+     */
+    public Object valueOf (Slot slot, Object[] values) {
+        Assert.isTrue(values.length == slots.size(), () -> "query template expects " + slots.size() + " values but got " + values.length);
+        int index = slots.indexOf(slot);
+        Assert.isTrue(index >= 0, () -> "unknown slot " + slot.getName());
+        return values[index];
+    }
+
+    /**
+     * 每种执行方式编译一次
+     */
+    @SuppressWarnings("unchecked")
+    public <C> C compiled (Object key, Supplier<C> compiler) {
+        return (C) compiled.computeIfAbsent(key, k -> compiler.get());
+    }
+
+    /**
+     * QueryMapper只有JdbcValue类型的值会经过可以覆盖的convertValue，in和between中的占位符包装成JdbcValue：
+     * in的一组占位符换成单个占位符，渲染成in (:p)，执行时绑定集合由NamedParameterJdbcTemplate展开
+     */
+    private record TemplateCriteria(CriteriaDefinition delegate) implements CriteriaDefinition {
+
+        @Override
+        public boolean isGroup() {
+            return delegate.isGroup();
+        }
+
+        @Override
+        public List<CriteriaDefinition> getGroup() {
+            return delegate.getGroup().stream().<CriteriaDefinition>map(TemplateCriteria::new).toList();
+        }
+
+        @Override
+        public SqlIdentifier getColumn() {
+            return delegate.getColumn();
+        }
+
+        @Override
+        public Comparator getComparator() {
+            return delegate.getComparator();
+        }
+
+        @Override
+        public Object getValue() {
+            Object value = delegate.getValue();
+            if (value instanceof Collection<?> collection && collection.stream().anyMatch(Slot.class::isInstance)) {
+                Assert.isTrue(collection.size() == 1, "in condition of query template accepts exactly one slot, bind the collection at execution");
+                return collection.iterator().next();
+            }
+            if (value instanceof Pair<?, ?> pair && (pair.getFirst() instanceof Slot || pair.getSecond() instanceof Slot)) {
+                return new Wrapped(pair);
+            }
+            return value;
+        }
+
+        @Override
+        public boolean isIgnoreCase() {
+            return delegate.isIgnoreCase();
+        }
+
+        @Override
+        public CriteriaDefinition getPrevious() {
+            CriteriaDefinition previous = delegate.getPrevious();
+            return previous == null ? null : new TemplateCriteria(previous);
+        }
+
+        @Override
+        public boolean hasPrevious() {
+            return delegate.hasPrevious();
+        }
+
+        @Override
+        public boolean isEmpty() {
+            return delegate.isEmpty();
+        }
+
+        @Override
+        public Combinator getCombinator() {
+            return delegate.getCombinator();
+        }
+    }
+
+    private static final class Wrapped extends JdbcValue {
+
+        private final Object value;
+
+        private Wrapped(Object value) {
+            super(null, null);
+            this.value = value;
+        }
+
+        @Override
+        public Object getValue() {
+            return value;
+        }
+    }
+
+    /**
+     * 继承JdbcValue，映射条件时原样保留在参数中，执行时替换成实际的值
+     */
+    public static final class Slot extends JdbcValue {
+
+        private final String name;
+
+        private Slot(String name) {
+            super(null, null);
+            Assert.hasText(name, "slot name must not be empty");
+            this.name = name;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        @Override
+        public Object getValue() {
+            return this;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            return o instanceof Slot slot && name.equals(slot.name);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(Slot.class, name);
+        }
+
+        @Override
+        public String toString() {
+            return ":" + name;
+        }
+    }
+}
@@ -9,11 +9,35 @@ public class Reflections {
     private static final Pattern GET_PATTERN = Pattern.compile("^get[A-Z].*");
     private static final Pattern IS_PATTERN  = Pattern.compile("^is[A-Z].*");
 
+    /**
+     * 每个lambda（方法引用）在调用处生成一个类，同一个类对应的属性名不变，按类缓存，只在第一次解析
+     */
+    private static final ClassValue<FieldName> FIELD_NAMES = new ClassValue<>() {
+        @Override
+        protected FieldName computeValue(Class<?> type) {
+            return new FieldName();
+        }
+    };
+
     private Reflections() {
     }
 
     @SuppressWarnings("rawtypes")
     public static String fnToFieldName(Fn fn) {
+        if (fn instanceof MetaProperty<?> property) {
+            return property.name();
+        }
+        FieldName fieldName = FIELD_NAMES.get(fn.getClass());
+        String name = fieldName.name;
+        if (name == null) {
+            name = resolve(fn);
+            fieldName.name = name;
+        }
+        return name;
+    }
+
+    @SuppressWarnings("rawtypes")
+    private static String resolve(Fn fn) {
         try {
             Method method = fn.getClass().getDeclaredMethod("writeReplace");
             method.setAccessible(Boolean.TRUE);
@@ -29,4 +53,9 @@ public class Reflections {
             throw new RuntimeException(e);
         }
     }
-}
\ No newline at end of file
+
+    private static class FieldName {
+
+        private volatile String name;
+    }
+}
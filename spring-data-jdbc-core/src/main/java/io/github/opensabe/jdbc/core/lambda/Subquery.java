@@ -0,0 +1,47 @@
+package io.github.opensabe.jdbc.core.lambda;
+
+import org.springframework.data.relational.core.query.CriteriaDefinition;
+import org.springframework.data.relational.core.query.Query;
+import org.springframework.lang.Nullable;
+
+/**
+ * 作为条件的值表示一个子查询，由ExtendSQLGeneratorSource渲染成 col in (select ...) 或者 exists (select ...)，
+ * 包含子查询的Query不经过JdbcAggregateTemplate执行
+ * @param type        子查询的方式
+ * @param entityClass 子查询的实体
+ * @param query       子查询的条件
+ * @param column      in时为子查询select的属性，exists时为子查询中跟外层关联的属性，可以为null
+ * @param outerColumn exists时外层关联的属性，可以为null
+ * @author heng.ma
+ */
+public record Subquery(Type type, Class<?> entityClass, Query query, @Nullable String column, @Nullable String outerColumn) {
+
+    /**
+     * exists条件没有外层的字段，使用这个列名占位
+     */
+    static final String EXISTS_COLUMN = "exists";
+
+    public enum Type {
+        IN,
+        NOT_IN,
+        EXISTS,
+        NOT_EXISTS
+    }
+
+    /**
+     * 条件中是否有子查询
+     */
+    public static boolean present (@Nullable CriteriaDefinition criteria) {
+        if (criteria == null || criteria.isEmpty()) {
+            return false;
+        }
+        if (criteria.getValue() instanceof Subquery || present(criteria.getPrevious())) {
+            return true;
+        }
+        return criteria.isGroup() && criteria.getGroup().stream().anyMatch(Subquery::present);
+    }
+
+    public static boolean present (Query query) {
+        return query.getCriteria().map(Subquery::present).orElse(false);
+    }
+}
@@ -0,0 +1,58 @@
+package io.github.opensabe.jdbc.core.lambda;
+
+import org.springframework.lang.Nullable;
+
+/**
+ * update时基于字段当前值的赋值，在一条sql内完成，不需要先查出来再写回。
+ * 所有的值都是绑定参数，sql中只会出现实体字段对应的列名，不会拼接外部传入的sql片段
+ * @param property 属性名
+ * @param type     赋值方式
+ * @param value    INCREMENT/GREATEST/LEAST为绑定参数，COLUMN为{@link ColumnOperation}
+ * @author heng.ma
+ */
+public record UpdateAssignment(String property, Type type, Object value) {
+
+    public enum Type {
+        /**
+         * col = col + :value
+         */
+        INCREMENT,
+        /**
+         * col = greatest(col, :value)
+         */
+        GREATEST,
+        /**
+         * col = least(col, :value)
+         */
+        LEAST,
+        /**
+         * col = source 或者 col = source operator :operand
+         */
+        COLUMN
+    }
+
+    public enum Operator {
+        ADD("+"),
+        SUBTRACT("-"),
+        MULTIPLY("*"),
+        DIVIDE("/");
+
+        private final String symbol;
+
+        Operator(String symbol) {
+            this.symbol = symbol;
+        }
+
+        public String symbol() {
+            return symbol;
+        }
+    }
+
+    /**
+     * @param source   同一实体的属性名
+     * @param operator 为null时直接赋值为source列
+     * @param operand  绑定参数，operator不为null时必填
+     */
+    public record ColumnOperation(String source, @Nullable Operator operator, @Nullable Object operand) {
+    }
+}
@@ -14,6 +14,8 @@ public class Weekend<T> {
 
     private final List<String> columns = new ArrayList<>();
 
+    private final List<UpdateAssignment> assignments = new ArrayList<>();
+
     private Weekend(Class<T> entityClass) {
         this.entityClass = entityClass;
     }
@@ -38,6 +40,49 @@ public class Weekend<T> {
     }
 
 
+    /**
+     * updateSelective时 col = col + delta，delta为负数时减少
+     */
+    public Weekend<T> increment(Fn<T, Object> fn, Number delta) {
+        return assign(fn, UpdateAssignment.Type.INCREMENT, delta);
+    }
+
+    /**
+     * updateSelective时 col = greatest(col, value)
+     */
+    public Weekend<T> greatest(Fn<T, Object> fn, Object value) {
+        return assign(fn, UpdateAssignment.Type.GREATEST, value);
+    }
+
+    /**
+     * updateSelective时 col = least(col, value)
+     */
+    public Weekend<T> least(Fn<T, Object> fn, Object value) {
+        return assign(fn, UpdateAssignment.Type.LEAST, value);
+    }
+
+    /**
+     * updateSelective时 col = source，source为同一张表的另一个字段
+     */
+    public Weekend<T> set(Fn<T, Object> fn, Fn<T, Object> source) {
+        return assign(fn, UpdateAssignment.Type.COLUMN, new UpdateAssignment.ColumnOperation(Reflections.fnToFieldName(source), null, null));
+    }
+
+    /**
+     * updateSelective时 col = source operator :operand，operand为绑定参数
+     */
+    public Weekend<T> set(Fn<T, Object> fn, Fn<T, Object> source, UpdateAssignment.Operator operator, Object operand) {
+        Objects.requireNonNull(operator, "operator must not be null");
+        Objects.requireNonNull(operand, "operand must not be null");
+        return assign(fn, UpdateAssignment.Type.COLUMN, new UpdateAssignment.ColumnOperation(Reflections.fnToFieldName(source), operator, operand));
+    }
+
+    private Weekend<T> assign (Fn<T, Object> fn, UpdateAssignment.Type type, Object value) {
+        Objects.requireNonNull(value, "assignment value must not be null");
+        assignments.add(new UpdateAssignment(Reflections.fnToFieldName(fn), type, value));
+        return this;
+    }
+
     public void or(WeekendCriteria<T, Object> criteria) {
         this.weekendCriteria.or(criteria);
     }
@@ -54,6 +99,24 @@ public class Weekend<T> {
         return query;
     }
 
+    /**
+     * 编译成可以重复执行的查询模板，条件中的值使用{@link QueryTemplate#slot(String)}占位
+     */
+    public QueryTemplate<T> compile () {
+        return new QueryTemplate<>(entityClass, toQuery(), null);
+    }
+
+    /**
+     * 查询指定的表（例如归档表）
+     */
+    public QueryTemplate<T> compile (String table) {
+        return new QueryTemplate<>(entityClass, toQuery(), table);
+    }
+
+    public List<UpdateAssignment> getAssignments() {
+        return assignments;
+    }
+
     public Class<T> getEntityClass() {
         return entityClass;
     }
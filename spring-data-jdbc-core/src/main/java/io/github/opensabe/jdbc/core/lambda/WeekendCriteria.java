@@ -85,6 +85,40 @@ public class WeekendCriteria<A,B> implements CriteriaDefinition {
         return this;
     }
 
+    /**
+     * col in (select selectColumn from subquery的表 where ...)，由数据库完成半连接，不需要先查出子查询的结果
+     */
+    public <S> WeekendCriteria<A, B> andInSubquery(Fn<A, B> fn, Weekend<S> subquery, Fn<S, ?> selectColumn) {
+        return subquery(Reflections.fnToFieldName(fn), Subquery.Type.IN, subquery, Reflections.fnToFieldName(selectColumn), null);
+    }
+
+    public <S> WeekendCriteria<A, B> andNotInSubquery(Fn<A, B> fn, Weekend<S> subquery, Fn<S, ?> selectColumn) {
+        return subquery(Reflections.fnToFieldName(fn), Subquery.Type.NOT_IN, subquery, Reflections.fnToFieldName(selectColumn), null);
+    }
+
+    /**
+     * exists (select 1 from subquery的表 where ...)
+     */
+    public WeekendCriteria<A, B> andExists(Weekend<?> subquery) {
+        return subquery(Subquery.EXISTS_COLUMN, Subquery.Type.EXISTS, subquery, null, null);
+    }
+
+    /**
+     * 关联子查询 exists (select 1 from subquery的表 where column = 外层的outerColumn and ...)
+     */
+    public <S> WeekendCriteria<A, B> andExists(Weekend<S> subquery, Fn<S, ?> column, Fn<A, B> outerColumn) {
+        return subquery(Subquery.EXISTS_COLUMN, Subquery.Type.EXISTS, subquery, Reflections.fnToFieldName(column), Reflections.fnToFieldName(outerColumn));
+    }
+
+    public <S> WeekendCriteria<A, B> andNotExists(Weekend<S> subquery, Fn<S, ?> column, Fn<A, B> outerColumn) {
+        return subquery(Subquery.EXISTS_COLUMN, Subquery.Type.NOT_EXISTS, subquery, Reflections.fnToFieldName(column), Reflections.fnToFieldName(outerColumn));
+    }
+
+    private WeekendCriteria<A, B> subquery(String column, Subquery.Type type, Weekend<?> subquery, String selectColumn, String outerColumn) {
+        criteria = criteria.and(column).is(new Subquery(type, subquery.getEntityClass(), subquery.toQuery(), selectColumn, outerColumn));
+        return this;
+    }
+
     public WeekendCriteria<A, B> andBetween(Fn<A, B> fn, Object begin, Object end) {
         criteria = criteria.and(Reflections.fnToFieldName(fn)).between(begin,end);
         return this;
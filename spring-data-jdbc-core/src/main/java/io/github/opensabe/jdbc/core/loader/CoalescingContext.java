@@ -0,0 +1,17 @@
+package io.github.opensabe.jdbc.core.loader;
+
+import org.springframework.lang.Nullable;
+
+/**
+ * 当前线程上影响查询结果的上下文（比如选择的数据源），上下文不同的调用不会合并到同一批
+ * @author heng.ma
+ */
+@FunctionalInterface
+public interface CoalescingContext {
+
+    /**
+     * @return 上下文的标识，需要实现equals和hashCode，null表示默认上下文
+     */
+    @Nullable
+    Object current ();
+}
@@ -0,0 +1,151 @@
+package io.github.opensabe.jdbc.core.loader;
+
+import org.springframework.util.Assert;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+import java.util.function.IntConsumer;
+
+/**
+ * 把短时间内并发的单个key查询合并成一次批量查询。
+ * 一批中第一个调用方作为leader，等待window或者这一批凑满maxBatchSize个key，然后在自己的线程里执行批量查询并唤醒其他调用方；
+ * 凑满的那个调用方直接执行，不再等待。不使用额外的线程，查询使用leader线程上的数据源选择等上下文，
+ * 因此同一个loader上的调用方上下文需要相同，见{@link CoalescingLoaders}
+ * @author heng.ma
+ */
+public class CoalescingLoader<K, V> {
+
+    private final Function<List<K>, Map<K, V>> batchLoader;
+
+    private final long windowNanos;
+
+    private final int maxBatchSize;
+
+    private Batch current;
+
+    private final LongAdder batches = new LongAdder();
+
+    private final LongAdder keys = new LongAdder();
+
+    private final AtomicInteger largestBatch = new AtomicInteger();
+
+    private IntConsumer batchSizeListener;
+
+    /**
+     * @param batchLoader 按key批量查询，结果中没有的key返回null
+     */
+    public CoalescingLoader(Function<List<K>, Map<K, V>> batchLoader, Duration window, int maxBatchSize) {
+        Assert.isTrue(maxBatchSize > 0, "maxBatchSize must be positive");
+        this.batchLoader = batchLoader;
+        this.windowNanos = window.toNanos();
+        this.maxBatchSize = maxBatchSize;
+    }
+
+    /**
+     * 每执行一批回调一次批次大小，用于上报指标
+     */
+    public void setBatchSizeListener(IntConsumer batchSizeListener) {
+        this.batchSizeListener = batchSizeListener;
+    }
+
+    public V load (K key) {
+        Assert.notNull(key, "key must not be null");
+        Batch batch;
+        CompletableFuture<V> future;
+        boolean leader = false;
+        boolean full = false;
+        synchronized (this) {
+            if (current == null) {
+                current = new Batch();
+                leader = true;
+            }
+            batch = current;
+            future = batch.futures.computeIfAbsent(key, k -> new CompletableFuture<>());
+            if (batch.futures.size() >= maxBatchSize) {
+                current = null;
+                full = true;
+            }
+        }
+        if (full) {
+            batch.full.countDown();
+            execute(batch);
+        }else if (leader) {
+            awaitFull(batch);
+            if (detach(batch)) {
+                execute(batch);
+            }
+        }
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            throw e;
+        }
+    }
+
+    private void awaitFull (Batch batch) {
+        try {
+            batch.full.await(windowNanos, TimeUnit.NANOSECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private synchronized boolean detach (Batch batch) {
+        if (current != batch) {
+            return false;
+        }
+        current = null;
+        return true;
+    }
+
+    private void execute (Batch batch) {
+        //detach以后没有其他线程修改futures
+        List<K> list = new ArrayList<>(batch.futures.keySet());
+        batches.increment();
+        keys.add(list.size());
+        largestBatch.accumulateAndGet(list.size(), Math::max);
+        if (batchSizeListener != null) {
+            batchSizeListener.accept(list.size());
+        }
+        try {
+            Map<K, V> result = batchLoader.apply(list);
+            batch.futures.forEach((k, f) -> f.complete(result.get(k)));
+        } catch (Throwable e) {
+            batch.futures.values().forEach(f -> f.completeExceptionally(e));
+        }
+    }
+
+    /**
+     * 累计的批次数、key数和最大批次
+     */
+    public Statistics statistics () {
+        return new Statistics(batches.sum(), keys.sum(), largestBatch.get());
+    }
+
+    public record Statistics(long batches, long keys, int largestBatch) {
+
+        public double averageBatchSize () {
+            return batches == 0 ? 0 : (double) keys / batches;
+        }
+    }
+
+    private class Batch {
+
+        private final Map<K, CompletableFuture<V>> futures = new LinkedHashMap<>();
+
+        private final CountDownLatch full = new CountDownLatch(1);
+    }
+}
@@ -0,0 +1,88 @@
+package io.github.opensabe.jdbc.core.loader;
+
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+import java.util.function.ObjIntConsumer;
+
+/**
+ * 每个实体、每个{@link CoalescingContext}一个findById合并查询的{@link CoalescingLoader}，
+ * 批量查询在leader线程上执行，只有数据源选择相同的调用才会合并到同一批。
+ * 事务中不合并，批量查询可能在其他调用方的连接上执行，看不到当前事务未提交的数据
+ * @author heng.ma
+ */
+public class CoalescingLoaders {
+
+    private final Map<LoaderKey, CoalescingLoader<?, ?>> loaders = new ConcurrentHashMap<>();
+
+    private CoalescingContext context = () -> null;
+
+    private boolean enabled;
+
+    private Duration window = Duration.ofMillis(2);
+
+    private int maxBatchSize = 128;
+
+    private ObjIntConsumer<Class<?>> batchSizeListener;
+
+    /**
+     * 当前调用是否合并
+     */
+    public boolean isActive () {
+        return enabled && !TransactionSynchronizationManager.isActualTransactionActive();
+    }
+
+    @SuppressWarnings("unchecked")
+    public <K, V> CoalescingLoader<K, V> loader (Class<V> entityClass, Function<List<K>, Map<K, V>> batchLoader) {
+        return (CoalescingLoader<K, V>) loaders.computeIfAbsent(new LoaderKey(entityClass, context.current()), k -> {
+            CoalescingLoader<K, V> loader = new CoalescingLoader<>(batchLoader, window, maxBatchSize);
+            if (batchSizeListener != null) {
+                loader.setBatchSizeListener(size -> batchSizeListener.accept(entityClass, size));
+            }
+            return loader;
+        });
+    }
+
+    /**
+     * 各实体累计的批次统计，不同上下文的合并在一起
+     */
+    public Map<Class<?>, CoalescingLoader.Statistics> statistics () {
+        Map<Class<?>, CoalescingLoader.Statistics> statistics = new ConcurrentHashMap<>();
+        loaders.forEach((key, loader) -> statistics.merge(key.entityClass(), loader.statistics(), (a, b) ->
+                new CoalescingLoader.Statistics(a.batches() + b.batches(), a.keys() + b.keys(), Math.max(a.largestBatch(), b.largestBatch()))));
+        return statistics;
+    }
+
+    /**
+     * 区分调用上下文，需要在第一次查询前设置
+     */
+    public void setContext(CoalescingContext context) {
+        this.context = context;
+    }
+
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    public void setWindow(Duration window) {
+        this.window = window;
+    }
+
+    public void setMaxBatchSize(int maxBatchSize) {
+        this.maxBatchSize = maxBatchSize;
+    }
+
+    /**
+     * 每执行一批回调一次（实体类型，批次大小），用于上报指标，需要在第一次查询前设置
+     */
+    public void setBatchSizeListener(ObjIntConsumer<Class<?>> batchSizeListener) {
+        this.batchSizeListener = batchSizeListener;
+    }
+
+    private record LoaderKey(Class<?> entityClass, Object context) {
+    }
+}
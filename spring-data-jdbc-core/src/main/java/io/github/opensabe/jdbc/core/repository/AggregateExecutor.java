@@ -0,0 +1,18 @@
+package io.github.opensabe.jdbc.core.repository;
+
+import io.github.opensabe.jdbc.core.aggregate.Aggregation;
+import io.github.opensabe.jdbc.core.lambda.Weekend;
+
+/**
+ * sum/avg/min/max/count以及group by在数据库中完成，不需要查出全部实体
+ * @author heng.ma
+ */
+public interface AggregateExecutor<T> {
+
+    Aggregation<T> aggregate (Weekend<T> weekend);
+
+    /**
+     * @param table 例如归档表
+     */
+    Aggregation<T> aggregate (Weekend<T> weekend, String table);
+}
@@ -4,10 +4,13 @@ import io.github.opensabe.jdbc.core.lambda.Weekend;
 import org.springframework.data.domain.Example;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.ScrollPosition;
 import org.springframework.data.domain.Sort;
+import org.springframework.data.domain.Window;
 
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 public interface AssignmentTableQueryRepository<T, ID>  {
 
@@ -34,6 +37,10 @@ public interface AssignmentTableQueryRepository<T, ID>  {
     List<T> findAll (Weekend<T> weekend, String table);
     List<T> findAll (Weekend<T> weekend, Sort sort, String table);
 
+    Stream<T> streamAll (String table);
+    Stream<T> streamAll (Weekend<T> weekend, String table);
+    Stream<T> streamAll (Example<T> example, String table);
+
 
     default Optional<T> findOne (Weekend<T> weekend, Sort sort, String table) {
         return findAll(weekend, sort, table).stream().limit(1).findFirst();
@@ -43,6 +50,15 @@ public interface AssignmentTableQueryRepository<T, ID>  {
     Page<T> findAll (Weekend<T> weekend, Pageable pageable, String table);
     Page<T> findAll (Example<T> example, Pageable pageable, String table);
 
+    <P> Optional<P> findOne (Weekend<T> weekend, Class<P> projection, String table);
+    <P> List<P> findAll (Weekend<T> weekend, Class<P> projection, String table);
+    <P> List<P> findAll (Weekend<T> weekend, Sort sort, Class<P> projection, String table);
+    <P> Page<P> findAll (Weekend<T> weekend, Pageable pageable, Class<P> projection, String table);
+
+    Window<T> findAfter (Sort sort, ScrollPosition position, int limit, String table);
+    Window<T> findAfter (Weekend<T> weekend, Sort sort, ScrollPosition position, int limit, String table);
+    Window<T> findAfter (Example<T> example, Sort sort, ScrollPosition position, int limit, String table);
+
     List<T> findLimit (int limit, Sort sort, String table);
     List<T> findLimit (Weekend<T> weekend, int limit, Sort sort, String table);
     List<T> findLimit (Example<T> example, int limit, Sort sort, String table);
@@ -17,6 +17,9 @@ public interface BaseRepository<T, ID> extends
         PageAndSortingExecutor<T>,
         ListPageAndSortingExecutor<T>,
         ListQueryExecutor<T, ID>,
+        ColumnQueryExecutor<T>,
+        TemplateQueryExecutor<T>,
+        AggregateExecutor<T>,
         ExistsExecutor<T, ID>,
         AssignmentTableQueryRepository<T, ID>,
         Repository<T, ID>
@@ -0,0 +1,38 @@
+package io.github.opensabe.jdbc.core.repository;
+
+import io.github.opensabe.jdbc.core.lambda.Fn;
+import io.github.opensabe.jdbc.core.lambda.Weekend;
+
+import java.util.List;
+import java.util.function.Consumer;
+import java.util.function.LongConsumer;
+
+/**
+ * 只查询一个字段，基本类型直接读取成数组
+ * @see io.github.opensabe.jdbc.core.executor.CriteriaJdbcOperation#findLongColumn(org.springframework.data.relational.core.query.Query, String, Class)
+ * @author heng.ma
+ */
+public interface ColumnQueryExecutor<T> {
+
+    /**
+     * 主键必须是数字类型
+     */
+    long[] findIds (Weekend<T> weekend);
+
+    /**
+     * 游标逐行读取主键，不保存结果
+     */
+    void scanIds (Weekend<T> weekend, LongConsumer consumer);
+
+    <V> List<V> findColumn (Weekend<T> weekend, Fn<T, Object> fn, Class<V> type);
+
+    int[] findIntColumn (Weekend<T> weekend, Fn<T, Object> fn);
+
+    long[] findLongColumn (Weekend<T> weekend, Fn<T, Object> fn);
+
+    double[] findDoubleColumn (Weekend<T> weekend, Fn<T, Object> fn);
+
+    void scanLongColumn (Weekend<T> weekend, Fn<T, Object> fn, LongConsumer consumer);
+
+    <V> void scanColumn (Weekend<T> weekend, Fn<T, Object> fn, Class<V> type, Consumer<? super V> consumer);
+}
@@ -1,8 +1,50 @@
 package io.github.opensabe.jdbc.core.repository;
 
+import io.github.opensabe.jdbc.core.lambda.Fn;
+
+import java.util.function.LongConsumer;
+import java.util.stream.Stream;
+
 public interface InsertRepository <T> {
 
     int insertSelective (T entity);
 
     long insertList (Iterable<T> entities);
+
+    /**
+     * 每个实体只插入非空字段，非空字段相同的实体合并成一个batch执行
+     */
+    long insertSelectiveList (Iterable<T> entities);
+
+    /**
+     * 插入，主键冲突时覆盖所有可更新的非主键字段
+     */
+    int upsert (T entity);
+
+    /**
+     * 插入，主键冲突时只覆盖指定的字段
+     */
+    @SuppressWarnings("unchecked")
+    int upsert (T entity, Fn<T, Object> ... updateColumns);
+
+    long upsertList (Iterable<T> entities);
+
+    @SuppressWarnings("unchecked")
+    long upsertList (Iterable<T> entities, Fn<T, Object> ... updateColumns);
+
+    /**
+     * 流式插入，每批单独提交
+     * @see io.github.opensabe.jdbc.core.executor.CustomerJdbcOperation#insertStream(Stream, Class, int, boolean, LongConsumer)
+     */
+    long insertStream (Stream<T> entities);
+
+    /**
+     * @see io.github.opensabe.jdbc.core.executor.CustomerJdbcOperation#insertStream(Stream, Class, int, boolean, LongConsumer)
+     */
+    long insertStream (Stream<T> entities, int chunkSize, boolean commitPerChunk, LongConsumer progress);
+
+    /**
+     * @see io.github.opensabe.jdbc.core.executor.CustomerJdbcOperation#loadData(Stream, Class)
+     */
+    long loadData (Stream<T> entities);
 }
@@ -12,6 +12,12 @@ public interface ListPageAndSortingExecutor <T> {
     List<T> findAll (Weekend<T> weekend);
     List<T> findAll (Weekend<T> weekend, Sort sort);
 
+    /**
+     * @see io.github.opensabe.jdbc.core.executor.CriteriaJdbcOperation#findAll(org.springframework.data.relational.core.query.Query, Class, Class)
+     */
+    <P> List<P> findAll (Weekend<T> weekend, Class<P> projection);
+    <P> List<P> findAll (Weekend<T> weekend, Sort sort, Class<P> projection);
+
     List<T> findAll (Example<T> example);
     List<T> findAll (Example<T> example, Sort sort);
 }
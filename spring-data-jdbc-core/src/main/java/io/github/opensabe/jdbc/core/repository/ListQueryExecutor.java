@@ -1,10 +1,24 @@
 package io.github.opensabe.jdbc.core.repository;
 
+import io.github.opensabe.jdbc.core.lambda.Weekend;
+import org.springframework.data.domain.Example;
+
 import java.util.List;
+import java.util.stream.Stream;
 
 public interface ListQueryExecutor<T, ID> {
 
     List<T> findAll ();
 
     List<T> findAllById (Iterable<ID> ids);
+
+    /**
+     * 流式读取，读完以后自动释放连接，提前结束时需要close
+     * @see io.github.opensabe.jdbc.core.executor.CriteriaJdbcOperation#streamAll(org.springframework.data.relational.core.query.Query, Class)
+     */
+    Stream<T> streamAll ();
+
+    Stream<T> streamAll (Weekend<T> weekend);
+
+    Stream<T> streamAll (Example<T> example);
 }
@@ -17,4 +17,9 @@ public interface OptionalExecutor<T, ID> {
 
     Optional<T> findOne (Weekend<T> weekend);
     Optional<T> findOne (Weekend<T> weekend, Sort sort);
+
+    /**
+     * @see io.github.opensabe.jdbc.core.executor.CriteriaJdbcOperation#findOne(org.springframework.data.relational.core.query.Query, Class, Class)
+     */
+    <P> Optional<P> findOne (Weekend<T> weekend, Class<P> projection);
 }
@@ -4,11 +4,24 @@ import io.github.opensabe.jdbc.core.lambda.Weekend;
 import org.springframework.data.domain.Example;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.ScrollPosition;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.domain.Window;
 
 public interface PageAndSortingExecutor<T> {
 
     Page<T> findAll (Pageable pageable);
     Page<T> findAll (Weekend<T> weekend, Pageable pageable);
+    <P> Page<P> findAll (Weekend<T> weekend, Pageable pageable, Class<P> projection);
     Page<T> findAll (Example<T> example, Pageable pageable);
 
+    /**
+     * keyset分页，深分页时不需要扫描跳过的行
+     * @param position 第一页传{@link ScrollPosition#keyset()}，之后传上一页的{@link Window#positionAt(int)}
+     * @see io.github.opensabe.jdbc.core.executor.CriteriaJdbcOperation#findAfter(org.springframework.data.relational.core.query.Query, Sort, ScrollPosition, int, Class)
+     */
+    Window<T> findAfter (Sort sort, ScrollPosition position, int limit);
+    Window<T> findAfter (Weekend<T> weekend, Sort sort, ScrollPosition position, int limit);
+    Window<T> findAfter (Example<T> example, Sort sort, ScrollPosition position, int limit);
+
 }
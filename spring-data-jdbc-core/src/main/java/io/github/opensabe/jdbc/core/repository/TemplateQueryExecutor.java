@@ -0,0 +1,25 @@
+package io.github.opensabe.jdbc.core.repository;
+
+import io.github.opensabe.jdbc.core.lambda.QueryTemplate;
+
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * 执行预编译的查询模板，sql只渲染一次
+ * @see io.github.opensabe.jdbc.core.lambda.Weekend#compile()
+ * @author heng.ma
+ */
+public interface TemplateQueryExecutor<T> {
+
+    /**
+     * @param values 按占位符第一次出现的顺序传入，in条件传集合
+     */
+    List<T> findAll (QueryTemplate<T> template, Object... values);
+
+    Optional<T> findOne (QueryTemplate<T> template, Object... values);
+
+    long count (QueryTemplate<T> template, Object... values);
+
+    boolean exists (QueryTemplate<T> template, Object... values);
+}
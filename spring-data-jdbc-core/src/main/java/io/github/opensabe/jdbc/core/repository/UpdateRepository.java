@@ -12,9 +12,21 @@ public interface UpdateRepository<T> {
 
     int updateByIdSelective (T entity);
 
+    /**
+     * 批量根据主键更新非空字段，非空字段相同的实体合并成一个batch
+     * @return 每个实体对应的影响行数，顺序跟参数一致，驱动不返回影响行数时为{@link java.sql.Statement#SUCCESS_NO_INFO}
+     * @see io.github.opensabe.jdbc.core.executor.CriteriaJdbcOperation#updateByIdSelective(Iterable, Class)
+     */
+    int[] updateByIdSelective (Iterable<T> entities);
+
     long updateSelective (T entity, Weekend<T> weekend);
     long updateSelective (T entity, Weekend<T> weekend, int limit);
 
+    /**
+     * 只执行weekend上的increment/greatest/least/set赋值
+     */
+    long update (Weekend<T> weekend);
+
     long updateSelective (T entity, Example<T> example);
     long updateSelective (T entity, Example<T> example, int limit);
 }
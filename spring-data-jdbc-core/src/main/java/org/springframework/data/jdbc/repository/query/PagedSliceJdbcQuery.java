@@ -20,12 +20,19 @@ import java.lang.reflect.Constructor;
 import java.sql.SQLType;
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.HashMap;
 import java.util.LinkedHashMap;
 import java.util.List;
-import java.util.Objects;
+import java.util.Locale;
+import java.util.Map;
+import java.util.function.BiPredicate;
 import java.util.function.Function;
 import java.util.function.Supplier;
 
+import io.github.opensabe.jdbc.core.count.CountQuery;
+import io.github.opensabe.jdbc.core.count.CountQueryDeriver;
+import io.github.opensabe.jdbc.core.count.CountStrategies;
+import io.github.opensabe.jdbc.core.count.CountStrategy;
 import org.springframework.beans.BeanUtils;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.expression.ValueEvaluationContext;
@@ -34,6 +41,8 @@ import org.springframework.data.jdbc.core.convert.JdbcConverter;
 import org.springframework.data.jdbc.core.mapping.JdbcValue;
 import org.springframework.data.jdbc.support.JdbcUtil;
 import org.springframework.data.relational.core.mapping.RelationalMappingContext;
+import org.springframework.data.relational.core.mapping.RelationalPersistentEntity;
+import org.springframework.data.relational.core.mapping.RelationalPersistentProperty;
 import org.springframework.data.relational.repository.query.RelationalParameterAccessor;
 import org.springframework.data.relational.repository.query.RelationalParametersParameterAccessor;
 import org.springframework.data.repository.query.Parameter;
@@ -76,6 +85,16 @@ public class PagedSliceJdbcQuery extends AbstractJdbcQuery {
 
     private final CachedRowMapperFactory cachedRowMapperFactory;
 
+    private final NamedParameterJdbcOperations operations;
+
+    @Nullable
+    private final CountStrategies countStrategies;
+
+    /**
+     * 每个方法的count语句只推导一次
+     */
+    private final Lazy<String> countQuery;
+
     /**
      *
      * Creates a new {@link PagedSliceJdbcQuery} for the given {@link JdbcQueryMethod}, {@link RelationalMappingContext}
@@ -89,6 +108,17 @@ public class PagedSliceJdbcQuery extends AbstractJdbcQuery {
     public PagedSliceJdbcQuery(JdbcQueryMethod queryMethod, NamedParameterJdbcOperations operations,
                                RowMapperFactory rowMapperFactory, JdbcConverter converter,
                                ValueExpressionDelegate delegate) {
+        this(queryMethod, operations, rowMapperFactory, converter, delegate, null, null);
+    }
+
+    /**
+     * @param countStrategies count策略，为null时总是执行count(*)
+     * @param countQuery      指定的count语句，为null时由查询语句推导
+     */
+    public PagedSliceJdbcQuery(JdbcQueryMethod queryMethod, NamedParameterJdbcOperations operations,
+                               RowMapperFactory rowMapperFactory, JdbcConverter converter,
+                               ValueExpressionDelegate delegate, @Nullable CountStrategies countStrategies,
+                               @Nullable String countQuery) {
 
         super(queryMethod, operations);
 
@@ -110,6 +140,10 @@ public class PagedSliceJdbcQuery extends AbstractJdbcQuery {
 
         this.parsedQuery = rewriter.parse(queryMethod.getRequiredQuery());
         this.delegate = delegate;
+        this.operations = operations;
+        this.countStrategies = countStrategies;
+        this.countQuery = Lazy.of(() -> countQuery != null ? countQuery : new CountQueryDeriver(uniqueKey(converter)).derive(
+                parsedQuery.hasParameterBindings() ? parsedQuery.getQueryString() : queryMethod.getRequiredQuery()));
     }
 
     @Override
@@ -292,11 +326,13 @@ public class PagedSliceJdbcQuery extends AbstractJdbcQuery {
             queryExecution = new PartTreeJdbcQuery.SliceQueryExecution<>((JdbcQueryExecution<Collection<Object>>) queryExecution, pageable);
         }else if (queryMethod.isPageQuery()) {
             parameterMap.addValue("limit", pageable.getPageSize());
+            CountStrategy countStrategy = countStrategies == null ? null : countStrategies.current();
             queryExecution =  new PartTreeJdbcQuery.PageQueryExecution<>((JdbcQueryExecution<Collection<Object>>) queryExecution, pageable,
                     () -> {
-                        String querySql = Objects.requireNonNull(getQueryMethod().getDeclaredQuery());
-                        String countQuerySql = querySql.replaceFirst("(?i)select .*? from", "select count(*) from")
-                                .replaceFirst("(?i) order by .*", "");
+                        String countQuerySql = countQuery.get();
+                        if (countStrategy != null) {
+                            return countStrategy.count(new CountQuery(operations, countQuerySql, countParameters(parameterMap), null));
+                        }
                         Object count = singleObjectQuery((rs, i) -> rs.getLong(1)).execute(countQuerySql, parameterMap);
                         return this.converter.getConversionService().convert(count, Long.class);
                     });
@@ -306,6 +342,33 @@ public class PagedSliceJdbcQuery extends AbstractJdbcQuery {
 
 
 
+    /**
+     * 映射的实体表的主键是唯一的，推导count语句时关联这些表主键的LEFT JOIN可以去掉
+     */
+    private static BiPredicate<String, String> uniqueKey(JdbcConverter converter) {
+        Map<String, String> ids = new HashMap<>();
+        for (RelationalPersistentEntity<?> entity : converter.getMappingContext().getPersistentEntities()) {
+            RelationalPersistentProperty id = entity.getIdProperty();
+            if (id != null) {
+                ids.put(entity.getTableName().getReference().toLowerCase(Locale.ROOT), id.getColumnName().getReference());
+            }
+        }
+        return (table, column) -> column.equalsIgnoreCase(ids.get(table.toLowerCase(Locale.ROOT)));
+    }
+
+    /**
+     * count语句用不到limit和offset，去掉以后不同页的count参数相同
+     */
+    private static MapSqlParameterSource countParameters(MapSqlParameterSource parameterMap) {
+        MapSqlParameterSource parameters = new MapSqlParameterSource();
+        parameterMap.getValues().forEach((name, value) -> {
+            if (!"limit".equals(name) && !"offset".equals(name)) {
+                parameters.addValue(name, value, parameterMap.getSqlType(name));
+            }
+        });
+        return parameters;
+    }
+
     class CachedRowMapperFactory {
 
         private final Lazy<RowMapper<Object>> cachedRowMapper;
@@ -1,6 +1,9 @@
 package org.springframework.data.jdbc.repository.support;
 
+import io.github.opensabe.jdbc.core.count.CountStrategies;
+import io.github.opensabe.jdbc.core.count.PageCount;
 import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.core.annotation.AnnotatedElementUtils;
 import org.springframework.data.jdbc.core.convert.JdbcConverter;
 import org.springframework.data.jdbc.repository.QueryMappingConfiguration;
 import org.springframework.data.jdbc.repository.query.JdbcQueryMethod;
@@ -14,6 +17,7 @@ import org.springframework.data.repository.core.RepositoryMetadata;
 import org.springframework.data.repository.query.RepositoryQuery;
 import org.springframework.data.repository.query.ValueExpressionDelegate;
 import org.springframework.jdbc.core.namedparam.NamedParameterJdbcOperations;
+import org.springframework.util.StringUtils;
 
 import java.lang.reflect.Method;
 
@@ -22,14 +26,25 @@ import java.lang.reflect.Method;
  */
 public class PagedJdbcQueryLookupStrategy extends JdbcQueryLookupStrategy {
 
+    private final CountStrategies countStrategies;
 
     public PagedJdbcQueryLookupStrategy(ApplicationEventPublisher publisher, EntityCallbacks callbacks, RelationalMappingContext context, JdbcConverter converter, Dialect dialect, QueryMappingConfiguration queryMappingConfiguration, NamedParameterJdbcOperations operations, ValueExpressionDelegate delegate) {
+        this(publisher, callbacks, context, converter, dialect, queryMappingConfiguration, operations, delegate, null);
+    }
+
+    /**
+     * @param countStrategies 分页查询的count策略，为null时总是执行count(*)
+     */
+    public PagedJdbcQueryLookupStrategy(ApplicationEventPublisher publisher, EntityCallbacks callbacks, RelationalMappingContext context, JdbcConverter converter, Dialect dialect, QueryMappingConfiguration queryMappingConfiguration, NamedParameterJdbcOperations operations, ValueExpressionDelegate delegate, CountStrategies countStrategies) {
         super(publisher, callbacks, context, converter, dialect, queryMappingConfiguration, operations, delegate);
+        this.countStrategies = countStrategies;
     }
 
     @Override
     public RepositoryQuery resolveQuery(Method method, RepositoryMetadata metadata, ProjectionFactory factory, NamedQueries namedQueries) {
         JdbcQueryMethod queryMethod = getJdbcQueryMethod(method, metadata, factory, namedQueries);
-        return new PagedSliceJdbcQuery(queryMethod, getOperations(), this::createMapper, getConverter(), delegate);
+        PageCount pageCount = AnnotatedElementUtils.findMergedAnnotation(method, PageCount.class);
+        String countQuery = pageCount == null || !StringUtils.hasText(pageCount.query()) ? null : pageCount.query();
+        return new PagedSliceJdbcQuery(queryMethod, getOperations(), this::createMapper, getConverter(), delegate, countStrategies, countQuery);
     }
 }
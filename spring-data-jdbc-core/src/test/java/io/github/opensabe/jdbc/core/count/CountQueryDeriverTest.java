@@ -0,0 +1,101 @@
+package io.github.opensabe.jdbc.core.count;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * @author heng.ma
+ */
+public class CountQueryDeriverTest {
+
+    /**
+     * 每张表的唯一键都是id
+     */
+    private final CountQueryDeriver deriver = new CountQueryDeriver((table, column) -> "id".equalsIgnoreCase(column));
+
+    @Test
+    public void replaceSelectList() {
+        assertThat(deriver.derive("select id, name from t_user where age > :age"))
+                .isEqualTo("select count(*) from t_user where age > :age");
+    }
+
+    @Test
+    public void stripOrderByAndForUpdate() {
+        assertThat(deriver.derive("select * from t_user where age > :age order by age desc, id;"))
+                .isEqualTo("select count(*) from t_user where age > :age");
+        assertThat(deriver.derive("select * from t_user where age > :age for update"))
+                .isEqualTo("select count(*) from t_user where age > :age");
+        assertThat(deriver.derive("select * from t_user order by age for share"))
+                .isEqualTo("select count(*) from t_user");
+    }
+
+    @Test
+    public void wrapGroupByHavingUnion() {
+        assertThat(deriver.derive("select age, count(*) from t_user group by age having count(*) > 1 order by age"))
+                .isEqualTo("select count(*) from (select age, count(*) from t_user group by age having count(*) > 1) count_query_");
+        assertThat(deriver.derive("select id from t_user union select id from t_user_his"))
+                .isEqualTo("select count(*) from (select id from t_user union select id from t_user_his) count_query_");
+    }
+
+    @Test
+    public void wrapLimitKeepsOrderBy() {
+        assertThat(deriver.derive("select * from t_user order by age limit 10"))
+                .isEqualTo("select count(*) from (select * from t_user order by age limit 10) count_query_");
+    }
+
+    @Test
+    public void wrapDistinct() {
+        //count(distinct ...)会跳过NULL，必须整体作为子查询
+        assertThat(deriver.derive("select distinct email from t_user order by email"))
+                .isEqualTo("select count(*) from (select distinct email from t_user) count_query_");
+        assertThat(deriver.derive("select distinct name, email from t_user where age > 1"))
+                .isEqualTo("select count(*) from (select distinct name, email from t_user where age > 1) count_query_");
+    }
+
+    @Test
+    public void pruneLeftJoinOnUniqueKey() {
+        assertThat(deriver.derive("select u.*, r.name from t_user u left join t_role r on r.id = u.role_id where u.age > :age order by u.age"))
+                .isEqualTo("select count(*) from t_user u where u.age > :age");
+        assertThat(deriver.derive("select u.* from t_user u left outer join t_role as r on u.role_id = r.id"))
+                .isEqualTo("select count(*) from t_user u");
+    }
+
+    @Test
+    public void keepLeftJoinWhenReferenced() {
+        assertThat(deriver.derive("select u.* from t_user u left join t_role r on r.id = u.role_id where r.name = :name"))
+                .isEqualTo("select count(*) from t_user u left join t_role r on r.id = u.role_id where r.name = :name");
+        //不是唯一键，关联可能放大行数
+        assertThat(deriver.derive("select u.* from t_user u left join t_role r on r.user_id = u.id"))
+                .isEqualTo("select count(*) from t_user u left join t_role r on r.user_id = u.id");
+        //inner join可能过滤行
+        assertThat(deriver.derive("select u.* from t_user u join t_role r on r.id = u.role_id"))
+                .isEqualTo("select count(*) from t_user u join t_role r on r.id = u.role_id");
+    }
+
+    @Test
+    public void keepLeftJoinWithUnqualifiedColumn() {
+        //role_name不带表名，可能是t_role的字段
+        assertThat(deriver.derive("select u.* from t_user u left join t_role r on r.id = u.role_id where role_name = :name"))
+                .isEqualTo("select count(*) from t_user u left join t_role r on r.id = u.role_id where role_name = :name");
+        assertThat(deriver.derive("select u.* from t_user u left join t_role r on r.id = u.role_id left join t_dept d on d.id = dept_id"))
+                .isEqualTo("select count(*) from t_user u left join t_role r on r.id = u.role_id left join t_dept d on d.id = dept_id");
+        //关键字、参数、函数不算字段
+        assertThat(deriver.derive("select u.* from t_user u left join t_role r on r.id = u.role_id where u.name is not null and u.age in (:ages) and lower(u.email) like :email"))
+                .isEqualTo("select count(*) from t_user u where u.name is not null and u.age in (:ages) and lower(u.email) like :email");
+    }
+
+    @Test
+    public void ignoreCommentsStringsAndSubqueries() {
+        assertThat(deriver.derive("select /* from */ id, 'order by x' as s, (select max(age) from t_user_his h where h.id = u.id) -- from\n from t_user u where u.name <> 'group by' order by id"))
+                .isEqualTo("select count(*) from t_user u where u.name <> 'group by'");
+        assertThat(deriver.derive("select u.*, r.name from t_user u left join t_role r on r.id = u.role_id where u.id in (select user_id from t_log where `type` = 'r.x')"))
+                .isEqualTo("select count(*) from t_user u left join t_role r on r.id = u.role_id where u.id in (select user_id from t_log where `type` = 'r.x')");
+    }
+
+    @Test
+    public void wrapNonSelect() {
+        assertThat(deriver.derive("with a as (select * from t_user) select * from a"))
+                .isEqualTo("select count(*) from (with a as (select * from t_user) select * from a) count_query_");
+    }
+}
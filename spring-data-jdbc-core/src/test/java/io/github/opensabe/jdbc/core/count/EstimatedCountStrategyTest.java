@@ -0,0 +1,89 @@
+package io.github.opensabe.jdbc.core.count;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.InvalidDataAccessResourceUsageException;
+import org.springframework.data.relational.core.dialect.MariaDbDialect;
+import org.springframework.data.relational.core.dialect.MySqlDialect;
+import org.springframework.data.relational.core.dialect.PostgresDialect;
+import org.springframework.data.relational.core.sql.IdentifierProcessing;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcOperations;
+import org.springframework.jdbc.core.namedparam.SqlParameterSource;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyMap;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * @author heng.ma
+ */
+public class EstimatedCountStrategyTest {
+
+    private static final String SQL = "select count(*) from t_user where age > :age";
+
+    private NamedParameterJdbcOperations operations;
+
+    private CountQuery query;
+
+    @BeforeEach
+    void setup () {
+        operations = mock(NamedParameterJdbcOperations.class);
+        SqlParameterSource parameters = new MapSqlParameterSource("age", 1);
+        query = new CountQuery(operations, SQL, parameters, "t_user");
+        when(operations.queryForObject(SQL, parameters, Long.class)).thenReturn(100L);
+    }
+
+    @Test
+    public void estimatedAboveThreshold() {
+        when(operations.queryForList(eq("explain " + SQL), any(SqlParameterSource.class)))
+                .thenReturn(List.of(Map.of("rows", 2000L, "filtered", 50.0)));
+
+        assertThat(new EstimatedCountStrategy(500, MySqlDialect.INSTANCE).count(query)).isEqualTo(1000);
+        verify(operations, never()).queryForObject(SQL, query.parameters(), Long.class);
+    }
+
+    @Test
+    public void estimatedBelowThreshold() {
+        when(operations.queryForList(eq("explain " + SQL), any(SqlParameterSource.class)))
+                .thenReturn(List.of(Map.of("rows", 200L, "filtered", 50.0)));
+
+        assertThat(new EstimatedCountStrategy(500, new MariaDbDialect(IdentifierProcessing.NONE)).count(query)).isEqualTo(100);
+        verify(operations).queryForList(eq("explain " + SQL), any(SqlParameterSource.class));
+    }
+
+    @Test
+    public void tableRowsWithoutPlanRows() {
+        when(operations.queryForList(eq("explain " + SQL), any(SqlParameterSource.class)))
+                .thenReturn(List.of(Map.of("Extra", "Select tables optimized away")));
+        when(operations.queryForObject(anyString(), eq(Map.of("table", "t_user")), eq(Long.class))).thenReturn(5000L);
+
+        assertThat(new EstimatedCountStrategy(500, MySqlDialect.INSTANCE).count(query)).isEqualTo(5000);
+    }
+
+    @Test
+    public void exactWhenExplainFails() {
+        when(operations.queryForList(eq("explain " + SQL), any(SqlParameterSource.class)))
+                .thenThrow(new InvalidDataAccessResourceUsageException("explain denied"));
+
+        assertThat(new EstimatedCountStrategy(500, MySqlDialect.INSTANCE).count(query)).isEqualTo(100);
+    }
+
+    @Test
+    public void exactOnOtherDatabases() {
+        assertThat(new EstimatedCountStrategy(500, PostgresDialect.INSTANCE).count(query)).isEqualTo(100);
+        assertThat(new EstimatedCountStrategy(500, null).count(query)).isEqualTo(100);
+
+        verify(operations, never()).queryForList(anyString(), any(SqlParameterSource.class));
+        verify(operations, never()).queryForObject(anyString(), anyMap(), eq(Long.class));
+    }
+}
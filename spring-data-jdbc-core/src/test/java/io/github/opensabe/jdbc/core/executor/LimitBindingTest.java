@@ -0,0 +1,48 @@
+package io.github.opensabe.jdbc.core.executor;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.data.jdbc.core.convert.MappingJdbcConverter;
+import org.springframework.data.jdbc.core.dialect.JdbcMySqlDialect;
+import org.springframework.data.jdbc.core.mapping.JdbcMappingContext;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * 渲染时写入的limit/offset标记只在最后的limit子句中替换成参数
+ * @author heng.ma
+ */
+public class LimitBindingTest {
+
+    private static final long LIMIT = ExtendSQLGeneratorSource.LIMIT_MARK;
+
+    private static final long OFFSET = ExtendSQLGeneratorSource.OFFSET_MARK;
+
+    private final ExtendSQLGeneratorSource source;
+
+    public LimitBindingTest() {
+        JdbcMappingContext context = new JdbcMappingContext();
+        source = new ExtendSQLGeneratorSource(context, new MappingJdbcConverter(context, (identifier, path) -> List.of()), JdbcMySqlDialect.INSTANCE);
+    }
+
+    @Test
+    public void bindTrailingClause() {
+        assertThat(source.bindLimit("SELECT * FROM t ORDER BY id LIMIT " + OFFSET + ", " + LIMIT))
+                .isEqualTo("SELECT * FROM t ORDER BY id LIMIT :__offset, :__limit");
+        assertThat(source.bindLimit("SELECT * FROM t LIMIT " + LIMIT + " FOR UPDATE"))
+                .isEqualTo("SELECT * FROM t LIMIT :__limit FOR UPDATE");
+    }
+
+    @Test
+    public void keepSameValueOutsideClause() {
+        assertThat(source.bindLimit("SELECT * FROM t WHERE code = '" + LIMIT + "' AND n > " + OFFSET + " LIMIT " + LIMIT))
+                .isEqualTo("SELECT * FROM t WHERE code = '" + LIMIT + "' AND n > " + OFFSET + " LIMIT :__limit");
+    }
+
+    @Test
+    public void noClause() {
+        assertThat(source.bindLimit("SELECT * FROM t WHERE n = " + LIMIT))
+                .isEqualTo("SELECT * FROM t WHERE n = " + LIMIT);
+    }
+}
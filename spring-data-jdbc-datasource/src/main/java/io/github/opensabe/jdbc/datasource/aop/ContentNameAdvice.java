@@ -21,6 +21,29 @@ public class ContentNameAdvice implements MethodInterceptor {
         return CONTENT_NAME_HOLDER.get();
     }
 
+    /**
+     * 把当前线程的数据源名称带到执行task的线程中，用于repository内部提交的异步任务（例如并行count）
+     */
+    public static Runnable wrap (Runnable task) {
+        String name = CONTENT_NAME_HOLDER.get();
+        if (!StringUtils.hasText(name)) {
+            return task;
+        }
+        return () -> {
+            String previous = CONTENT_NAME_HOLDER.get();
+            CONTENT_NAME_HOLDER.set(name);
+            try {
+                task.run();
+            }finally {
+                if (previous == null) {
+                    CONTENT_NAME_HOLDER.remove();
+                }else {
+                    CONTENT_NAME_HOLDER.set(previous);
+                }
+            }
+        };
+    }
+
     private Map<MethodInvocation, String> cache = new ConcurrentHashMap<>();
 
     @Override
@@ -0,0 +1,23 @@
+package io.github.opensabe.jdbc.datasource.aop;
+
+import io.github.opensabe.jdbc.core.loader.CoalescingContext;
+
+/**
+ * findById合并查询按数据源名称和是否只读区分，不同数据源的调用不会合并到同一批
+ * @author heng.ma
+ */
+public class DataSourceCoalescingContext implements CoalescingContext {
+
+    @Override
+    public Object current() {
+        String name = ContentNameAdvice.getRepositoryName();
+        boolean readOnly = ReadOnlyRepositoryAdvice.isReadOnly();
+        if ((name == null || "default".equals(name)) && !readOnly) {
+            return null;
+        }
+        return new Key(name, readOnly);
+    }
+
+    private record Key(String name, boolean readOnly) {
+    }
+}
@@ -0,0 +1,15 @@
+package io.github.opensabe.jdbc.datasource.aop;
+
+import org.springframework.core.task.TaskDecorator;
+
+/**
+ * 异步执行repository内部的sql时，沿用提交线程选择的数据源（数据源名称以及是否只读）
+ * @author heng.ma
+ */
+public class DataSourceContextTaskDecorator implements TaskDecorator {
+
+    @Override
+    public Runnable decorate(Runnable runnable) {
+        return ContentNameAdvice.wrap(ReadOnlyRepositoryAdvice.wrap(runnable));
+    }
+}
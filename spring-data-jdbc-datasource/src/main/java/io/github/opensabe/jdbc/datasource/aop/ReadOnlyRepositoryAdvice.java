@@ -33,6 +33,29 @@ public class ReadOnlyRepositoryAdvice implements MethodInterceptor {
         return Optional.ofNullable(READ_ONLY_HOLDER.get()).orElse(false);
     }
 
+    /**
+     * 把当前线程是否只读带到执行task的线程中
+     */
+    public static Runnable wrap (Runnable task) {
+        Boolean readOnly = READ_ONLY_HOLDER.get();
+        if (readOnly == null) {
+            return task;
+        }
+        return () -> {
+            Boolean previous = READ_ONLY_HOLDER.get();
+            READ_ONLY_HOLDER.set(readOnly);
+            try {
+                task.run();
+            }finally {
+                if (previous == null) {
+                    READ_ONLY_HOLDER.remove();
+                }else {
+                    READ_ONLY_HOLDER.set(previous);
+                }
+            }
+        };
+    }
+
     @Override
     public Object invoke(MethodInvocation invocation) throws Throwable {
         //该Advice在最前面，因此在repository开启事务之前判断是否在事务中，如果在事务中，说明事务是在Service开启的
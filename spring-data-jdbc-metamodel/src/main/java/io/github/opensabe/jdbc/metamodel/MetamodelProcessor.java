@@ -0,0 +1,106 @@
+package io.github.opensabe.jdbc.metamodel;
+
+import javax.annotation.processing.AbstractProcessor;
+import javax.annotation.processing.RoundEnvironment;
+import javax.annotation.processing.SupportedAnnotationTypes;
+import javax.lang.model.SourceVersion;
+import javax.lang.model.element.*;
+import javax.lang.model.type.DeclaredType;
+import javax.lang.model.type.TypeKind;
+import javax.lang.model.type.TypeMirror;
+import javax.lang.model.util.ElementFilter;
+import javax.tools.Diagnostic;
+import javax.tools.JavaFileObject;
+import java.io.IOException;
+import java.io.Writer;
+import java.util.LinkedHashSet;
+import java.util.Set;
+
+/**
+ * 为带@Table的实体生成静态元模型，User生成User_，每个持久化属性一个同名的{@code MetaProperty<User>}常量：
+ * <pre>
+ * Weekend&lt;User&gt; weekend = Weekend.of(User.class);
+ * weekend.weekendCriteria().andEqualTo(User_.name, "name");
+ * </pre>
+ * 包括父类中的字段，跳过static、transient以及@Transient的字段，只处理顶层类
+ * @author heng.ma
+ */
+@SupportedAnnotationTypes(MetamodelProcessor.TABLE)
+public class MetamodelProcessor extends AbstractProcessor {
+
+    static final String TABLE = "org.springframework.data.relational.core.mapping.Table";
+
+    private static final String TRANSIENT = "org.springframework.data.annotation.Transient";
+
+    private static final String META_PROPERTY = "io.github.opensabe.jdbc.core.lambda.MetaProperty";
+
+    @Override
+    public SourceVersion getSupportedSourceVersion() {
+        return SourceVersion.latestSupported();
+    }
+
+    @Override
+    public boolean process(Set<? extends TypeElement> annotations, RoundEnvironment roundEnv) {
+        for (TypeElement annotation : annotations) {
+            for (TypeElement type : ElementFilter.typesIn(roundEnv.getElementsAnnotatedWith(annotation))) {
+                if (type.getNestingKind() == NestingKind.TOP_LEVEL) {
+                    generate(type);
+                }
+            }
+        }
+        return false;
+    }
+
+    private void generate (TypeElement type) {
+        String packageName = processingEnv.getElementUtils().getPackageOf(type).getQualifiedName().toString();
+        String simpleName = type.getSimpleName() + "_";
+        String entity = type.getQualifiedName().toString();
+        try {
+            JavaFileObject file = processingEnv.getFiler().createSourceFile(
+                    packageName.isEmpty() ? simpleName : packageName + "." + simpleName, type);
+            try (Writer writer = file.openWriter()) {
+                if (!packageName.isEmpty()) {
+                    writer.write("package " + packageName + ";\n\n");
+                }
+                writer.write("import " + META_PROPERTY + ";\n\n");
+                writer.write("@javax.annotation.processing.Generated(\"" + getClass().getName() + "\")\n");
+                writer.write("public final class " + simpleName + " {\n\n");
+                for (String property : properties(type)) {
+                    writer.write("    public static final MetaProperty<" + entity + "> " + property
+                            + " = new MetaProperty<>(\"" + property + "\");\n\n");
+                }
+                writer.write("    private " + simpleName + "() {\n    }\n}\n");
+            }
+        } catch (IOException e) {
+            processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR, "failed to generate metamodel: " + e.getMessage(), type);
+        }
+    }
+
+    /**
+     * 父类的字段在前，子类同名字段不重复
+     */
+    private Set<String> properties (TypeElement type) {
+        Set<String> properties = new LinkedHashSet<>();
+        TypeMirror superclass = type.getSuperclass();
+        if (superclass.getKind() == TypeKind.DECLARED) {
+            TypeElement parent = (TypeElement) ((DeclaredType) superclass).asElement();
+            if (!Object.class.getName().equals(parent.getQualifiedName().toString())) {
+                properties.addAll(properties(parent));
+            }
+        }
+        for (VariableElement field : ElementFilter.fieldsIn(type.getEnclosedElements())) {
+            Set<Modifier> modifiers = field.getModifiers();
+            if (modifiers.contains(Modifier.STATIC) || modifiers.contains(Modifier.TRANSIENT) || isTransient(field)) {
+                continue;
+            }
+            properties.add(field.getSimpleName().toString());
+        }
+        return properties;
+    }
+
+    private boolean isTransient (VariableElement field) {
+        return field.getAnnotationMirrors().stream()
+                .map(mirror -> ((TypeElement) mirror.getAnnotationType().asElement()).getQualifiedName().toString())
+                .anyMatch(TRANSIENT::equals);
+    }
+}